@@ -0,0 +1,53 @@
+package com.streamflix.gateway.cache;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+
+import java.util.List;
+
+/**
+ * Key and path helpers shared by the response-sharing filters.
+ */
+final class CacheKeys {
+
+    private CacheKeys() {
+    }
+
+    /**
+     * Build "routeId|path?query|vary1|vary2..." for a request.
+     */
+    static String of(String routeId, ServerHttpRequest request, List<String> varyHeaders) {
+        StringBuilder key = new StringBuilder(128)
+                .append(routeId).append('|')
+                .append(request.getPath().value());
+        String query = request.getURI().getRawQuery();
+        if (query != null) {
+            key.append('?').append(query);
+        }
+        HttpHeaders headers = request.getHeaders();
+        for (String header : varyHeaders) {
+            key.append('|');
+            List<String> values = headers.get(header);
+            if (values != null) {
+                key.append(String.join(",", values));
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * Exact path match, or prefix match for patterns ending in "/**".
+     */
+    static boolean matches(List<String> patterns, String path) {
+        for (String pattern : patterns) {
+            if (pattern.endsWith("/**")) {
+                if (path.startsWith(pattern.substring(0, pattern.length() - 3))) {
+                    return true;
+                }
+            } else if (path.equals(pattern)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,74 @@
+package com.streamflix.gateway.cache;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import reactor.core.publisher.Mono;
+
+/**
+ * Immutable snapshot of an upstream response that can be replayed
+ * to other clients.
+ *
+ * Headers only include what the upstream (and filters after the capture
+ * point) added; per-request gateway headers such as X-Correlation-ID stay
+ * with the request that is being answered.
+ */
+public class CachedResponse {
+
+    private final HttpStatusCode status;
+    private final HttpHeaders headers;
+    private final byte[] body;
+    private final long storedAtNanos;
+
+    public CachedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body) {
+        this.status = status;
+        this.headers = HttpHeaders.readOnlyHttpHeaders(headers);
+        this.body = body;
+        this.storedAtNanos = System.nanoTime();
+    }
+
+    /**
+     * Whether a response may be served to clients other than the one that
+     * triggered it: a 200 without cookies or private/no-store cache control.
+     */
+    public static boolean isShareable(HttpStatusCode status, HttpHeaders headers) {
+        if (status == null || status.value() != HttpStatus.OK.value()) {
+            return false;
+        }
+        if (headers.containsKey(HttpHeaders.SET_COOKIE)) {
+            return false;
+        }
+        String cacheControl = headers.getCacheControl();
+        if (cacheControl != null) {
+            String lower = cacheControl.toLowerCase();
+            return !lower.contains("private") && !lower.contains("no-store");
+        }
+        return true;
+    }
+
+    /**
+     * Write this response to the given exchange response.
+     */
+    public Mono<Void> writeTo(ServerHttpResponse response) {
+        response.setStatusCode(status);
+        headers.forEach((name, values) -> response.getHeaders().put(name, values));
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+
+    public HttpStatusCode getStatus() {
+        return status;
+    }
+
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public long getStoredAtNanos() {
+        return storedAtNanos;
+    }
+}
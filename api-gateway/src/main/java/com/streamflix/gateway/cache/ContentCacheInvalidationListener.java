@@ -0,0 +1,34 @@
+package com.streamflix.gateway.cache;
+
+import com.streamflix.common.event.ContentEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Kafka consumer that invalidates the edge cache on catalog changes.
+ *
+ * Every gateway node holds its own cache, so each node joins with a
+ * unique consumer group and receives every event. Only new events matter
+ * (older ones are already reflected in upstream responses), so a fresh
+ * group starts from the latest offset.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ContentCacheInvalidationListener {
+
+    private final EdgeResponseCache edgeResponseCache;
+
+    @KafkaListener(
+        topics = ContentEvent.TOPIC,
+        groupId = "api-gateway-edge-cache-${random.uuid}",
+        autoStartup = "${gateway.edge-cache.invalidation.enabled:true}",
+        properties = "auto.offset.reset=latest"
+    )
+    public void handleContentEvent(ContentEvent event) {
+        log.debug("Received content event {} for content {}", event.getEventType(), event.getContentId());
+        edgeResponseCache.invalidateContent(event.getContentId());
+    }
+}
@@ -0,0 +1,233 @@
+package com.streamflix.gateway.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gateway edge cache for non-personalized GET responses.
+ *
+ * Features:
+ * - Shareable 200 responses (no Set-Cookie, not private/no-store) are kept
+ *   in memory for ttl, keyed like RequestCoalescing
+ * - Strong ETag per cached body (the upstream ETag if it sent one);
+ *   If-None-Match is answered with 304 straight from the gateway
+ * - Stale-while-revalidate: after ttl, one request refreshes the entry
+ *   through the rest of the filter chain while concurrent requests are
+ *   served the stale copy, for up to staleWhileRevalidate
+ * - Entries of routes with invalidateOnContentEvents are dropped on every
+ *   ContentEvent (see ContentCacheInvalidationListener); responses fetched
+ *   across an invalidation are not stored
+ * - X-Cache response header: HIT, STALE, MISS or REVALIDATED
+ *
+ * Place after JwtAuthentication and before RequestCoalescing.
+ *
+ * Usage in route config:
+ *   filters:
+ *     - name: EdgeCache
+ *       args:
+ *         paths: /api/v1/genres, /api/v1/content/**
+ *         ttl: 30s
+ *         staleWhileRevalidate: 60s
+ *
+ * Metrics:
+ * - gateway.edge-cache.lookups{route, result}
+ * - cache.* with cache=gateway.edge-cache (Caffeine stats)
+ */
+@Slf4j
+@Component
+public class EdgeCacheFilter extends AbstractGatewayFilterFactory<EdgeCacheFilter.Config> {
+
+    private static final String CACHE_STATUS_HEADER = "X-Cache";
+
+    private final EdgeResponseCache cache;
+    private final MeterRegistry meterRegistry;
+
+    public EdgeCacheFilter(EdgeResponseCache cache, MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.cache = cache;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        String routeId = config.getRouteId() != null ? config.getRouteId() : "unknown";
+        if (config.isInvalidateOnContentEvents()) {
+            cache.registerContentRoute(routeId);
+        }
+        long ttlNanos = config.getTtl().toNanos();
+        long staleNanos = config.getStaleWhileRevalidate().toNanos();
+        Counter hits = counter(routeId, "hit");
+        Counter staleHits = counter(routeId, "stale");
+        Counter misses = counter(routeId, "miss");
+
+        return (exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            if (request.getMethod() != HttpMethod.GET
+                    || !CacheKeys.matches(config.getPaths(), request.getPath().value())) {
+                return chain.filter(exchange);
+            }
+
+            String key = CacheKeys.of(routeId, request, config.getVaryHeaders());
+            EdgeResponseCache.Entry entry = cache.get(key);
+            if (entry != null) {
+                if (entry.isFresh(System.nanoTime())) {
+                    hits.increment();
+                    return serve(exchange, entry, "HIT");
+                }
+                if (!entry.tryStartRevalidation()) {
+                    staleHits.increment();
+                    return serve(exchange, entry, "STALE");
+                }
+            }
+
+            misses.increment();
+            long generation = cache.generation(routeId);
+            exchange.getResponse().getHeaders()
+                    .set(CACHE_STATUS_HEADER, entry != null ? "REVALIDATED" : "MISS");
+            ResponseCaptureDecorator response = new ResponseCaptureDecorator(exchange.getResponse(), cached -> {
+                String etag = cached.getHeaders().getETag();
+                if (etag == null) {
+                    etag = EdgeResponseCache.etag(cached.getBody());
+                    exchange.getResponse().getHeaders().setETag(etag);
+                }
+                cache.put(routeId, key, new EdgeResponseCache.Entry(cached, etag, ttlNanos, staleNanos), generation);
+            });
+
+            Mono<Void> upstream = chain.filter(exchange.mutate().response(response).build());
+            return entry == null ? upstream : upstream.doFinally(signal -> entry.revalidationDone());
+        };
+    }
+
+    private Mono<Void> serve(ServerWebExchange exchange, EdgeResponseCache.Entry entry, String cacheStatus) {
+        ServerHttpResponse response = exchange.getResponse();
+        long ageNanos = System.nanoTime() - entry.getResponse().getStoredAtNanos();
+        response.getHeaders().set(CACHE_STATUS_HEADER, cacheStatus);
+        response.getHeaders().set(HttpHeaders.AGE, String.valueOf(TimeUnit.NANOSECONDS.toSeconds(ageNanos)));
+        response.getHeaders().setETag(entry.getEtag());
+
+        if (ifNoneMatch(exchange.getRequest().getHeaders(), entry.getEtag())) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return response.setComplete();
+        }
+        return entry.getResponse().writeTo(response);
+    }
+
+    /**
+     * Weak comparison of If-None-Match against the cached ETag (RFC 9110 13.1.2).
+     */
+    private static boolean ifNoneMatch(HttpHeaders headers, String etag) {
+        List<String> tags;
+        try {
+            tags = headers.getIfNoneMatch();
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        String opaque = stripWeak(etag);
+        for (String tag : tags) {
+            if ("*".equals(tag) || stripWeak(tag).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    private Counter counter(String routeId, String result) {
+        return Counter.builder("gateway.edge-cache.lookups")
+                .description("Edge cache lookups by outcome")
+                .tag("route", routeId)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String name() {
+        return "EdgeCache";
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return Collections.singletonList("paths");
+    }
+
+    public static class Config implements HasRouteId {
+        private List<String> paths = Collections.emptyList();
+        private List<String> varyHeaders = Arrays.asList(
+                HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING, HttpHeaders.ACCEPT_LANGUAGE);
+        private Duration ttl = Duration.ofSeconds(30);
+        private Duration staleWhileRevalidate = Duration.ofSeconds(60);
+        private boolean invalidateOnContentEvents = true;
+        private String routeId;
+
+        public List<String> getPaths() {
+            return paths;
+        }
+
+        public void setPaths(List<String> paths) {
+            this.paths = paths;
+        }
+
+        public List<String> getVaryHeaders() {
+            return varyHeaders;
+        }
+
+        public void setVaryHeaders(List<String> varyHeaders) {
+            this.varyHeaders = varyHeaders;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public Duration getStaleWhileRevalidate() {
+            return staleWhileRevalidate;
+        }
+
+        public void setStaleWhileRevalidate(Duration staleWhileRevalidate) {
+            this.staleWhileRevalidate = staleWhileRevalidate;
+        }
+
+        public boolean isInvalidateOnContentEvents() {
+            return invalidateOnContentEvents;
+        }
+
+        public void setInvalidateOnContentEvents(boolean invalidateOnContentEvents) {
+            this.invalidateOnContentEvents = invalidateOnContentEvents;
+        }
+
+        @Override
+        public String getRouteId() {
+            return routeId;
+        }
+
+        @Override
+        public void setRouteId(String routeId) {
+            this.routeId = routeId;
+        }
+    }
+}
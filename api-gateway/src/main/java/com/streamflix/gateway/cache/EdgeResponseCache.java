@@ -0,0 +1,179 @@
+package com.streamflix.gateway.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory store for the gateway edge cache.
+ *
+ * - Bounded by total body size (gateway.edge-cache.max-size-mb)
+ * - Each entry expires at the end of its stale-while-revalidate window
+ * - Routes that serve catalog data register for content invalidation;
+ *   any ContentEvent drops all of their entries, since one title can
+ *   appear on many listing pages
+ * - Each content route has an invalidation generation; a response is only
+ *   stored if no invalidation happened since its upstream call started, so
+ *   a fetch that raced an invalidation cannot re-insert pre-change data
+ *
+ * Keys start with "routeId|", see EdgeCacheFilter.
+ */
+@Slf4j
+@Component
+public class EdgeResponseCache {
+
+    private final Cache<String, Entry> entries;
+    private final Set<String> contentRoutes = ConcurrentHashMap.newKeySet();
+    private final ConcurrentMap<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    public EdgeResponseCache(@Value("${gateway.edge-cache.max-size-mb:64}") long maxSizeMb,
+                             MeterRegistry meterRegistry) {
+        this.entries = Caffeine.newBuilder()
+                .maximumWeight(maxSizeMb * 1024 * 1024)
+                .weigher((String key, Entry entry) -> key.length() + entry.getResponse().getBody().length)
+                .expireAfter(new Expiry<String, Entry>() {
+                    @Override
+                    public long expireAfterCreate(String key, Entry entry, long currentTime) {
+                        return Math.max(0, entry.staleUntilNanos - System.nanoTime());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Entry entry,
+                                                  long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, entry, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Entry entry,
+                                                long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, entries, "gateway.edge-cache");
+    }
+
+    public Entry get(String key) {
+        return entries.getIfPresent(key);
+    }
+
+    /**
+     * Current invalidation generation of a route. Read it before calling
+     * upstream and pass it to {@link #put}.
+     */
+    public long generation(String routeId) {
+        AtomicLong generation = generations.get(routeId);
+        return generation != null ? generation.get() : 0;
+    }
+
+    /**
+     * Store an entry unless the route was invalidated after generation was read.
+     */
+    public void put(String routeId, String key, Entry entry, long generation) {
+        if (generation(routeId) != generation) {
+            return;
+        }
+        entries.put(key, entry);
+        // An invalidation between the check and the put may have missed this entry
+        if (generation(routeId) != generation) {
+            entries.asMap().remove(key, entry);
+        }
+    }
+
+    /**
+     * Drop entries of this route whenever catalog content changes.
+     */
+    public void registerContentRoute(String routeId) {
+        contentRoutes.add(routeId);
+        generations.putIfAbsent(routeId, new AtomicLong());
+    }
+
+    /**
+     * Invalidate all entries of content routes after a change to a title.
+     */
+    public void invalidateContent(String contentId) {
+        if (contentRoutes.isEmpty()) {
+            return;
+        }
+        // Bump generations first so in-flight fetches started before now are not stored
+        for (String routeId : contentRoutes) {
+            generations.get(routeId).incrementAndGet();
+        }
+        entries.asMap().keySet().removeIf(key -> {
+            int separator = key.indexOf('|');
+            return separator > 0 && contentRoutes.contains(key.substring(0, separator));
+        });
+        log.debug("Edge cache invalidated for content {}", contentId);
+    }
+
+    /**
+     * Strong ETag derived from the response body.
+     */
+    static String etag(byte[] body) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(body);
+            byte[] prefix = new byte[12];
+            System.arraycopy(hash, 0, prefix, 0, prefix.length);
+            return '"' + Base64.getUrlEncoder().withoutPadding().encodeToString(prefix) + '"';
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is mandated by the Java platform specification
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Cached response plus its freshness window.
+     */
+    public static class Entry {
+        private final CachedResponse response;
+        private final String etag;
+        private final long freshUntilNanos;
+        private final long staleUntilNanos;
+        private final AtomicBoolean revalidating = new AtomicBoolean();
+
+        public Entry(CachedResponse response, String etag, long ttlNanos, long staleWhileRevalidateNanos) {
+            this.response = response;
+            this.etag = etag;
+            this.freshUntilNanos = response.getStoredAtNanos() + ttlNanos;
+            this.staleUntilNanos = freshUntilNanos + staleWhileRevalidateNanos;
+        }
+
+        public boolean isFresh(long now) {
+            return now - freshUntilNanos < 0;
+        }
+
+        /**
+         * Claim the single upstream refresh for this stale entry.
+         */
+        public boolean tryStartRevalidation() {
+            return revalidating.compareAndSet(false, true);
+        }
+
+        public void revalidationDone() {
+            revalidating.set(false);
+        }
+
+        public CachedResponse getResponse() {
+            return response;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+    }
+}
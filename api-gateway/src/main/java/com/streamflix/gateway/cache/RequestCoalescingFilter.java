@@ -0,0 +1,160 @@
+package com.streamflix.gateway.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collapses identical concurrent GETs into a single upstream call.
+ *
+ * The first request for a key goes upstream; requests for the same key that
+ * arrive while it is in flight wait for its response and get a copy of it.
+ *
+ * - Key: route, path, raw query and the configured varyHeaders
+ *   (Accept, Accept-Encoding, Accept-Language by default)
+ * - Only GETs on the configured paths are coalesced; list only
+ *   non-personalized endpoints here, since the user headers set by
+ *   JwtAuthentication are not part of the key
+ * - Only shareable responses are replayed (200, no Set-Cookie, not
+ *   private/no-store); otherwise waiting requests go upstream themselves
+ * - Waiting requests give up after maxWait and go upstream themselves
+ *
+ * Place after JwtAuthentication so every caller is still authenticated.
+ *
+ * Usage in route config:
+ *   filters:
+ *     - name: RequestCoalescing
+ *       args:
+ *         paths: /api/v1/content/featured, /api/v1/genres
+ *
+ * Metrics:
+ * - gateway.coalescing.requests{route, result=leader|coalesced}
+ */
+@Slf4j
+@Component
+public class RequestCoalescingFilter extends AbstractGatewayFilterFactory<RequestCoalescingFilter.Config> {
+
+    private final Map<String, Sinks.One<CachedResponse>> inFlight = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public RequestCoalescingFilter(MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        String routeId = config.getRouteId() != null ? config.getRouteId() : "unknown";
+        Counter leaders = counter(routeId, "leader");
+        Counter coalesced = counter(routeId, "coalesced");
+
+        return (exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            if (request.getMethod() != HttpMethod.GET
+                    || !CacheKeys.matches(config.getPaths(), request.getPath().value())) {
+                return chain.filter(exchange);
+            }
+
+            String key = CacheKeys.of(routeId, request, config.getVaryHeaders());
+            Sinks.One<CachedResponse> sink = Sinks.one();
+            Sinks.One<CachedResponse> leader = inFlight.putIfAbsent(key, sink);
+
+            if (leader != null) {
+                coalesced.increment();
+                return leader.asMono()
+                        .timeout(config.getMaxWait(), Mono.empty())
+                        .flatMap(cached -> cached.writeTo(exchange.getResponse()).thenReturn(Boolean.TRUE))
+                        .switchIfEmpty(Mono.defer(() -> chain.filter(exchange).thenReturn(Boolean.TRUE)))
+                        .then();
+            }
+
+            leaders.increment();
+            ResponseCaptureDecorator response = new ResponseCaptureDecorator(exchange.getResponse(), cached -> {
+                inFlight.remove(key, sink);
+                sink.tryEmitValue(cached);
+            });
+            return chain.filter(exchange.mutate().response(response).build())
+                    .doFinally(signal -> {
+                        // Not shareable, failed or cancelled: release waiters to go upstream
+                        inFlight.remove(key, sink);
+                        sink.tryEmitEmpty();
+                    });
+        };
+    }
+
+    private Counter counter(String routeId, String result) {
+        return Counter.builder("gateway.coalescing.requests")
+                .description("GET requests by coalescing outcome")
+                .tag("route", routeId)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String name() {
+        return "RequestCoalescing";
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return Collections.singletonList("paths");
+    }
+
+    public static class Config implements HasRouteId {
+        private List<String> paths = Collections.emptyList();
+        private List<String> varyHeaders = Arrays.asList(
+                HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING, HttpHeaders.ACCEPT_LANGUAGE);
+        private Duration maxWait = Duration.ofSeconds(5);
+        private String routeId;
+
+        public List<String> getPaths() {
+            return paths;
+        }
+
+        public void setPaths(List<String> paths) {
+            this.paths = paths;
+        }
+
+        public List<String> getVaryHeaders() {
+            return varyHeaders;
+        }
+
+        public void setVaryHeaders(List<String> varyHeaders) {
+            this.varyHeaders = varyHeaders;
+        }
+
+        public Duration getMaxWait() {
+            return maxWait;
+        }
+
+        public void setMaxWait(Duration maxWait) {
+            this.maxWait = maxWait;
+        }
+
+        @Override
+        public String getRouteId() {
+            return routeId;
+        }
+
+        @Override
+        public void setRouteId(String routeId) {
+            this.routeId = routeId;
+        }
+    }
+}
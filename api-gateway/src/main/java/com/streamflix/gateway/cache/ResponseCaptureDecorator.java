@@ -0,0 +1,75 @@
+package com.streamflix.gateway.cache;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+/**
+ * Response decorator that buffers the upstream body, hands a
+ * {@link CachedResponse} to a callback when the response is shareable,
+ * and then writes the body through unchanged.
+ *
+ * Header names already on the response when the decorator is created
+ * (correlation ID, rate-limit headers, ...) are left out of the snapshot.
+ */
+public class ResponseCaptureDecorator extends ServerHttpResponseDecorator {
+
+    private static final String[] HOP_BY_HOP_HEADERS = {
+            HttpHeaders.TRANSFER_ENCODING, HttpHeaders.CONNECTION, "Keep-Alive"
+    };
+
+    private final Set<String> gatewayHeaders = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+    private final Consumer<CachedResponse> onCaptured;
+
+    public ResponseCaptureDecorator(ServerHttpResponse delegate, Consumer<CachedResponse> onCaptured) {
+        super(delegate);
+        this.gatewayHeaders.addAll(delegate.getHeaders().keySet());
+        this.onCaptured = onCaptured;
+    }
+
+    @Override
+    public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+        return DataBufferUtils.join(Flux.from(body))
+                .map(joined -> {
+                    byte[] bytes = new byte[joined.readableByteCount()];
+                    joined.read(bytes);
+                    DataBufferUtils.release(joined);
+                    return bytes;
+                })
+                .defaultIfEmpty(new byte[0])
+                .flatMap(bytes -> {
+                    capture(bytes);
+                    return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+                });
+    }
+
+    @Override
+    public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+        return writeWith(Flux.from(body).flatMapSequential(p -> p));
+    }
+
+    private void capture(byte[] bytes) {
+        if (!CachedResponse.isShareable(getStatusCode(), getHeaders())) {
+            return;
+        }
+        HttpHeaders upstreamHeaders = new HttpHeaders();
+        getHeaders().forEach((name, values) -> {
+            if (!gatewayHeaders.contains(name)) {
+                upstreamHeaders.put(name, values);
+            }
+        });
+        for (String header : HOP_BY_HOP_HEADERS) {
+            upstreamHeaders.remove(header);
+        }
+        onCaptured.accept(new CachedResponse(getStatusCode(), upstreamHeaders, bytes));
+    }
+}
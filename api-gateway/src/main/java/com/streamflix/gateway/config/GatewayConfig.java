@@ -1,15 +1,29 @@
 package com.streamflix.gateway.config;
 
+import com.streamflix.common.security.SecurityConstants;
+import com.streamflix.common.security.UserContextCodec;
 import com.streamflix.gateway.filter.CorrelationIdFilter;
 import com.streamflix.gateway.filter.JwtAuthenticationFilter;
 import com.streamflix.gateway.filter.LoggingFilter;
 import com.streamflix.gateway.filter.RequireProfileFilter;
 import com.streamflix.gateway.filter.RequireRoleFilter;
+import com.streamflix.gateway.logging.AccessLogWriter;
+import com.streamflix.gateway.metrics.RouteLatencyTracker;
 import com.streamflix.gateway.ratelimit.UserKeyResolver;
+import com.streamflix.gateway.security.JwksKeyCache;
 import com.streamflix.gateway.security.JwtTokenValidator;
+import com.streamflix.gateway.security.PublicPathMatcher;
+import com.streamflix.gateway.security.RevokedTokenRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Central configuration for API Gateway components.
@@ -31,12 +45,33 @@ public class GatewayConfig {
         return new UserKeyResolver();
     }
 
+    /**
+     * Public path matcher shared by the auth filters.
+     * Compiled once from SecurityConstants.PUBLIC_PATHS plus any
+     * route-specific paths (comma-separated) in gateway.security.public-paths.
+     */
+    @Bean
+    public PublicPathMatcher publicPathMatcher(
+            @Value("${gateway.security.public-paths:}") List<String> additionalPublicPaths) {
+        List<String> patterns = new ArrayList<>(Arrays.asList(SecurityConstants.PUBLIC_PATHS));
+        patterns.addAll(additionalPublicPaths);
+        return new PublicPathMatcher(patterns);
+    }
+
     /**
      * JWT token validator bean.
+     * Verifies against the cached JWKS keys, with Redis-backed revocation.
      */
     @Bean
-    public JwtTokenValidator jwtTokenValidator() {
-        return new JwtTokenValidator();
+    public JwtTokenValidator jwtTokenValidator(
+            @Value("${jwt.secret}") String secret,
+            @Value("${jwt.verification-cache.max-size:100000}") long cacheMaxSize,
+            @Value("${jwt.legacy-hs256-verification:true}") boolean legacyVerification,
+            JwksKeyCache jwksKeyCache,
+            ReactiveRedisTemplate<String, String> redisTemplate,
+            RevokedTokenRegistry revokedTokenRegistry) {
+        return new JwtTokenValidator(secret, cacheMaxSize, legacyVerification, jwksKeyCache,
+                redisTemplate, revokedTokenRegistry);
     }
 
     /**
@@ -47,35 +82,62 @@ public class GatewayConfig {
         return new CorrelationIdFilter();
     }
 
+    /**
+     * Asynchronous access-log writer backing the logging filter.
+     */
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public AccessLogWriter accessLogWriter(
+            @Value("${gateway.access-log.buffer-size:8192}") int bufferSize,
+            @Value("${gateway.access-log.sample-rate:1.0}") double sampleRate,
+            @Value("${gateway.access-log.flush-interval-ms:200}") long flushIntervalMs,
+            @Value("${gateway.access-log.max-batch-size:512}") int maxBatchSize) {
+        return new AccessLogWriter(bufferSize, sampleRate, flushIntervalMs, maxBatchSize);
+    }
+
     /**
      * Request/Response logging filter factory.
      */
     @Bean
-    public LoggingFilter loggingFilter() {
-        return new LoggingFilter();
+    public LoggingFilter loggingFilter(AccessLogWriter accessLogWriter, RouteLatencyTracker routeLatencyTracker) {
+        return new LoggingFilter(accessLogWriter, routeLatencyTracker);
+    }
+
+    /**
+     * Signs the X-User-Context header sent to downstream services.
+     * The secret must match streamflix.user-context.secret in every service.
+     */
+    @Bean
+    public UserContextCodec userContextCodec(
+            @Value("${streamflix.user-context.secret}") String secret,
+            @Value("${streamflix.user-context.max-age:60s}") Duration maxAge) {
+        return new UserContextCodec(secret, maxAge);
     }
 
     /**
      * JWT Authentication filter factory.
      */
     @Bean
-    public JwtAuthenticationFilter jwtAuthenticationFilter(JwtTokenValidator jwtTokenValidator) {
-        return new JwtAuthenticationFilter(jwtTokenValidator);
+    public JwtAuthenticationFilter jwtAuthenticationFilter(
+            JwtTokenValidator jwtTokenValidator,
+            PublicPathMatcher publicPathMatcher,
+            UserContextCodec userContextCodec,
+            @Value("${gateway.user-context.legacy-headers:true}") boolean legacyHeaders) {
+        return new JwtAuthenticationFilter(jwtTokenValidator, publicPathMatcher, userContextCodec, legacyHeaders);
     }
 
     /**
      * Profile requirement filter factory.
      */
     @Bean
-    public RequireProfileFilter requireProfileFilter() {
-        return new RequireProfileFilter();
+    public RequireProfileFilter requireProfileFilter(PublicPathMatcher publicPathMatcher) {
+        return new RequireProfileFilter(publicPathMatcher);
     }
 
     /**
      * Role-based access filter factory.
      */
     @Bean
-    public RequireRoleFilter requireRoleFilter() {
-        return new RequireRoleFilter();
+    public RequireRoleFilter requireRoleFilter(PublicPathMatcher publicPathMatcher) {
+        return new RequireRoleFilter(publicPathMatcher);
     }
 }
@@ -1,5 +1,19 @@
 package com.streamflix.gateway.config;
 
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.SocketOptions;
+import io.lettuce.core.event.connection.ConnectedEvent;
+import io.lettuce.core.event.connection.DisconnectedEvent;
+import io.lettuce.core.event.connection.ReconnectFailedEvent;
+import io.lettuce.core.metrics.MicrometerCommandLatencyRecorder;
+import io.lettuce.core.metrics.MicrometerOptions;
+import io.lettuce.core.resource.ClientResources;
+import io.lettuce.core.resource.DefaultClientResources;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -11,10 +25,10 @@ import org.springframework.data.redis.connection.lettuce.LettucePoolingClientCon
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
-import io.lettuce.core.ClientOptions;
-import io.lettuce.core.SocketOptions;
-import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
 import java.time.Duration;
 
 /**
@@ -26,10 +40,26 @@ import java.time.Duration;
  * - Session caching
  *
  * Uses reactive Redis client (Lettuce) for non-blocking operations.
+ *
+ * Connection modes (gateway.redis.mode):
+ * - shared (default): one multiplexed native connection. Lettuce pipelines
+ *   concurrent commands (blacklist checks, rate-limiter scripts) on it
+ *   without waiting for replies, and there is no pool to wait on.
+ *   Responses are published off the I/O thread.
+ * - pooled: commons-pool connections, for workloads that need dedicated
+ *   connections (blocking commands, MULTI). No PING on borrow by default.
+ *
+ * Metrics:
+ * - lettuce.command.completion / lettuce.command.firstresponse (per command)
+ * - gateway.redis.connection.events{event}
+ * - gateway.redis.pool.* (pooled mode: active, idle, waiters, borrow wait)
  */
+@Slf4j
 @Configuration
 public class RedisConfig {
 
+    private static final String POOL_JMX_PREFIX = "gateway-redis";
+
     @Value("${spring.data.redis.host:localhost}")
     private String redisHost;
 
@@ -39,8 +69,54 @@ public class RedisConfig {
     @Value("${spring.data.redis.password:}")
     private String redisPassword;
 
+    @Value("${gateway.redis.mode:shared}")
+    private String mode;
+
+    @Value("${spring.data.redis.lettuce.pool.max-active:50}")
+    private int poolMaxActive;
+
+    @Value("${spring.data.redis.lettuce.pool.max-idle:10}")
+    private int poolMaxIdle;
+
+    @Value("${spring.data.redis.lettuce.pool.min-idle:5}")
+    private int poolMinIdle;
+
+    @Value("${spring.data.redis.lettuce.pool.max-wait:1000ms}")
+    private Duration poolMaxWait;
+
+    @Value("${gateway.redis.pool.test-on-borrow:false}")
+    private boolean poolTestOnBorrow;
+
+    /**
+     * Lettuce resources with command latency metrics recorded into Micrometer
+     * and connection lifecycle events counted.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ClientResources lettuceClientResources(MeterRegistry meterRegistry) {
+        ClientResources resources = DefaultClientResources.builder()
+                .commandLatencyRecorder(new MicrometerCommandLatencyRecorder(meterRegistry,
+                        MicrometerOptions.builder().histogram(true).build()))
+                .build();
+
+        Counter connected = connectionEvents(meterRegistry, "connected");
+        Counter disconnected = connectionEvents(meterRegistry, "disconnected");
+        Counter reconnectFailed = connectionEvents(meterRegistry, "reconnect_failed");
+        resources.eventBus().get().subscribe(event -> {
+            if (event instanceof ConnectedEvent) {
+                connected.increment();
+            } else if (event instanceof DisconnectedEvent) {
+                disconnected.increment();
+                log.warn("Redis connection lost: {}", event);
+            } else if (event instanceof ReconnectFailedEvent) {
+                reconnectFailed.increment();
+            }
+        });
+        return resources;
+    }
+
     @Bean
-    public ReactiveRedisConnectionFactory reactiveRedisConnectionFactory() {
+    public ReactiveRedisConnectionFactory reactiveRedisConnectionFactory(
+            ClientResources clientResources, MeterRegistry meterRegistry) {
         RedisStandaloneConfiguration redisConfig = new RedisStandaloneConfiguration();
         redisConfig.setHostName(redisHost);
         redisConfig.setPort(redisPort);
@@ -49,15 +125,6 @@ public class RedisConfig {
             redisConfig.setPassword(redisPassword);
         }
 
-        // Connection pool configuration
-        GenericObjectPoolConfig<?> poolConfig = new GenericObjectPoolConfig<>();
-        poolConfig.setMaxTotal(50);
-        poolConfig.setMaxIdle(10);
-        poolConfig.setMinIdle(5);
-        poolConfig.setMaxWait(Duration.ofMillis(1000));
-        poolConfig.setTestOnBorrow(true);
-        poolConfig.setTestWhileIdle(true);
-
         // Socket options
         SocketOptions socketOptions = SocketOptions.builder()
                 .connectTimeout(Duration.ofSeconds(2))
@@ -69,15 +136,41 @@ public class RedisConfig {
                 .socketOptions(socketOptions)
                 .autoReconnect(true)
                 .disconnectedBehavior(ClientOptions.DisconnectedBehavior.REJECT_COMMANDS)
+                .publishOnScheduler(true)
                 .build();
 
-        LettuceClientConfiguration clientConfig = LettucePoolingClientConfiguration.builder()
-                .poolConfig(poolConfig)
-                .clientOptions(clientOptions)
-                .commandTimeout(Duration.ofSeconds(2))
-                .build();
+        LettuceClientConfiguration clientConfig;
+        if ("pooled".equalsIgnoreCase(mode)) {
+            // Connection pool configuration
+            GenericObjectPoolConfig<?> poolConfig = new GenericObjectPoolConfig<>();
+            poolConfig.setMaxTotal(poolMaxActive);
+            poolConfig.setMaxIdle(poolMaxIdle);
+            poolConfig.setMinIdle(poolMinIdle);
+            poolConfig.setMaxWait(poolMaxWait);
+            poolConfig.setTestOnBorrow(poolTestOnBorrow);
+            poolConfig.setTestWhileIdle(true);
+            poolConfig.setJmxEnabled(true);
+            poolConfig.setJmxNamePrefix(POOL_JMX_PREFIX);
+
+            clientConfig = LettucePoolingClientConfiguration.builder()
+                    .poolConfig(poolConfig)
+                    .clientOptions(clientOptions)
+                    .clientResources(clientResources)
+                    .commandTimeout(Duration.ofSeconds(2))
+                    .build();
+            registerPoolMetrics(meterRegistry);
+        } else {
+            clientConfig = LettuceClientConfiguration.builder()
+                    .clientOptions(clientOptions)
+                    .clientResources(clientResources)
+                    .commandTimeout(Duration.ofSeconds(2))
+                    .build();
+        }
 
-        return new LettuceConnectionFactory(redisConfig, clientConfig);
+        LettuceConnectionFactory factory = new LettuceConnectionFactory(redisConfig, clientConfig);
+        factory.setShareNativeConnection(true);
+        factory.setValidateConnection(false);
+        return factory;
     }
 
     @Bean
@@ -96,4 +189,46 @@ public class RedisConfig {
 
         return new ReactiveRedisTemplate<>(connectionFactory, serializationContext);
     }
+
+    private static Counter connectionEvents(MeterRegistry meterRegistry, String event) {
+        return Counter.builder("gateway.redis.connection.events")
+                .description("Redis connection lifecycle events")
+                .tag("event", event)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Export commons-pool statistics, which the pool publishes over JMX,
+     * summed across the gateway's Redis pools.
+     */
+    private static void registerPoolMetrics(MeterRegistry meterRegistry) {
+        poolGauge(meterRegistry, "gateway.redis.pool.active", "NumActive", "Connections borrowed from the pool");
+        poolGauge(meterRegistry, "gateway.redis.pool.idle", "NumIdle", "Idle pooled connections");
+        poolGauge(meterRegistry, "gateway.redis.pool.waiters", "NumWaiters", "Callers waiting for a connection");
+        poolGauge(meterRegistry, "gateway.redis.pool.borrow.wait.mean", "MeanBorrowWaitTimeMillis",
+                "Mean time spent waiting to borrow a connection (ms)");
+        poolGauge(meterRegistry, "gateway.redis.pool.borrow.wait.max", "MaxBorrowWaitTimeMillis",
+                "Max time spent waiting to borrow a connection (ms)");
+    }
+
+    private static void poolGauge(MeterRegistry meterRegistry, String name, String attribute, String description) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        Gauge.builder(name, server, s -> sumPoolAttribute(s, attribute))
+                .description(description)
+                .register(meterRegistry);
+    }
+
+    private static double sumPoolAttribute(MBeanServer server, String attribute) {
+        try {
+            ObjectName pattern = new ObjectName(
+                    "org.apache.commons.pool2:type=GenericObjectPool,name=" + POOL_JMX_PREFIX + "*");
+            double total = 0;
+            for (ObjectName name : server.queryNames(pattern, null)) {
+                total += ((Number) server.getAttribute(name, attribute)).doubleValue();
+            }
+            return total;
+        } catch (Exception e) {
+            return Double.NaN;
+        }
+    }
 }
@@ -0,0 +1,212 @@
+package com.streamflix.gateway.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.cloud.gateway.config.GatewayProperties;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.cloud.gateway.config.HttpClientFactory;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.config.HttpClientSslConfigurer;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.netty.http.Http2AllocationStrategy;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Connection management for gateway-to-service traffic.
+ *
+ * Replaces the default Spring Cloud Gateway HttpClient factory so the
+ * shared connection provider can carry per-upstream pool settings. The
+ * rest of the client setup (timeouts, SSL, customizers) is unchanged.
+ *
+ * Features:
+ * - Default pool from spring.cloud.gateway.httpclient.pool.*, with a
+ *   bounded pending-acquire queue (gateway.upstream.pending-acquire-max-count)
+ * - Per-route pool overrides from route metadata (upstream-pool), applied
+ *   to the route's host and port on top of the default pool settings
+ *   (unset keys such as max-idle-time keep the global value). Routes sharing an address share its
+ *   pool; the first route that configures it wins
+ * - Optional h2c (gateway.upstream.h2c): HTTP/1.1 Upgrade to cleartext
+ *   HTTP/2, falling back to HTTP/1.1 for services that don't support it
+ *
+ * Usage in route config:
+ *   metadata:
+ *     upstream-pool:
+ *       max-connections: 500
+ *       pending-acquire-max-count: 1000
+ *       pending-acquire-timeout: 2s
+ *       max-idle-time: 30s
+ *       max-life-time: 5m
+ *       max-concurrent-streams: 100   # h2c only
+ *
+ * Metrics (spring.cloud.gateway.httpclient.pool.metrics=true):
+ * - reactor.netty.connection.provider.{total,active,idle,pending}.connections
+ * - reactor.netty.connection.provider.pending.connections.time{status}
+ *   (acquire latency; status=ERROR counts acquire timeouts and rejections)
+ */
+@Slf4j
+@Configuration
+public class UpstreamHttpClientConfig {
+
+    static final String POOL_METADATA_KEY = "upstream-pool";
+
+    @Bean
+    public HttpClientFactory upstreamHttpClientFactory(HttpClientProperties properties,
+                                                       ServerProperties serverProperties,
+                                                       HttpClientSslConfigurer sslConfigurer,
+                                                       List<HttpClientCustomizer> customizers,
+                                                       GatewayProperties gatewayProperties,
+                                                       @Value("${gateway.upstream.pending-acquire-max-count:1000}")
+                                                       int pendingAcquireMaxCount) {
+        Map<InetSocketAddress, Map<String, Object>> upstreamPools = new LinkedHashMap<>();
+        for (RouteDefinition route : gatewayProperties.getRoutes()) {
+            Object pool = route.getMetadata().get(POOL_METADATA_KEY);
+            InetSocketAddress address = address(route.getUri());
+            if (pool instanceof Map<?, ?> settings && address != null) {
+                if (upstreamPools.containsKey(address)) {
+                    log.warn("Route {} shares upstream {} with another pooled route; keeping the first settings",
+                            route.getId(), address);
+                    continue;
+                }
+                Map<String, Object> copy = new LinkedHashMap<>();
+                settings.forEach((key, value) -> copy.put(String.valueOf(key), value));
+                upstreamPools.put(address, copy);
+            }
+        }
+        return new UpstreamHttpClientFactory(properties, serverProperties, sslConfigurer, customizers,
+                upstreamPools, pendingAcquireMaxCount);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "gateway.upstream.h2c", havingValue = "true")
+    public HttpClientCustomizer h2cHttpClientCustomizer() {
+        log.info("Upstream h2c enabled (HTTP/1.1 Upgrade with fallback)");
+        return httpClient -> httpClient.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+    }
+
+    private static InetSocketAddress address(URI uri) {
+        if (uri == null || uri.getHost() == null) {
+            return null;
+        }
+        if (!"http".equals(uri.getScheme()) && !"https".equals(uri.getScheme())) {
+            return null;
+        }
+        int port = uri.getPort() != -1 ? uri.getPort() : ("https".equals(uri.getScheme()) ? 443 : 80);
+        // Reactor Netty keys pools by the unresolved address from the request URI
+        return InetSocketAddress.createUnresolved(uri.getHost(), port);
+    }
+
+    /**
+     * HttpClientFactory whose connection provider has per-upstream pools.
+     */
+    static class UpstreamHttpClientFactory extends HttpClientFactory {
+
+        private final Map<InetSocketAddress, Map<String, Object>> upstreamPools;
+        private final int pendingAcquireMaxCount;
+
+        UpstreamHttpClientFactory(HttpClientProperties properties, ServerProperties serverProperties,
+                                  HttpClientSslConfigurer sslConfigurer, List<HttpClientCustomizer> customizers,
+                                  Map<InetSocketAddress, Map<String, Object>> upstreamPools,
+                                  int pendingAcquireMaxCount) {
+            super(properties, serverProperties, sslConfigurer, customizers);
+            this.upstreamPools = upstreamPools;
+            this.pendingAcquireMaxCount = pendingAcquireMaxCount;
+        }
+
+        @Override
+        protected ConnectionProvider buildConnectionProvider(HttpClientProperties properties) {
+            HttpClientProperties.Pool pool = properties.getPool();
+            if (pool.getType() == HttpClientProperties.Pool.PoolType.DISABLED) {
+                return ConnectionProvider.newConnection();
+            }
+
+            ConnectionProvider.Builder builder = ConnectionProvider.builder(pool.getName());
+            applyPoolDefaults(builder, pool);
+
+            upstreamPools.forEach((address, settings) -> {
+                builder.forRemoteHost(address, spec -> {
+                    // Host specs start from Reactor's defaults, not the builder's
+                    applyPoolDefaults(spec, pool);
+
+                    Integer maxConnections = intSetting(settings, "max-connections");
+                    Integer maxStreams = intSetting(settings, "max-concurrent-streams");
+                    Integer maxPending = intSetting(settings, "pending-acquire-max-count");
+                    Duration acquireTimeout = durationSetting(settings, "pending-acquire-timeout");
+                    Duration maxIdleTime = durationSetting(settings, "max-idle-time");
+                    Duration maxLifeTime = durationSetting(settings, "max-life-time");
+
+                    if (maxConnections != null) {
+                        spec.maxConnections(maxConnections);
+                    }
+                    if (maxStreams != null) {
+                        spec.allocationStrategy(Http2AllocationStrategy.builder()
+                                .maxConcurrentStreams(maxStreams)
+                                .maxConnections(maxConnections != null ? maxConnections : pool.getMaxConnections())
+                                .minConnections(1)
+                                .build());
+                    }
+                    if (maxPending != null) {
+                        spec.pendingAcquireMaxCount(maxPending);
+                    }
+                    if (acquireTimeout != null) {
+                        spec.pendingAcquireTimeout(acquireTimeout);
+                    }
+                    if (maxIdleTime != null) {
+                        spec.maxIdleTime(maxIdleTime);
+                    }
+                    if (maxLifeTime != null) {
+                        spec.maxLifeTime(maxLifeTime);
+                    }
+                });
+                log.info("Upstream pool for {}: {}", address, settings);
+            });
+            return builder.build();
+        }
+
+        /**
+         * Global spring.cloud.gateway.httpclient.pool settings, applied to the
+         * default pool and as the base of every per-upstream pool.
+         */
+        private <T extends ConnectionProvider.ConnectionPoolSpec<T>> void applyPoolDefaults(
+                T spec, HttpClientProperties.Pool pool) {
+            spec.pendingAcquireMaxCount(pendingAcquireMaxCount)
+                    .metrics(pool.isMetrics());
+            if (pool.getType() == HttpClientProperties.Pool.PoolType.FIXED) {
+                spec.maxConnections(pool.getMaxConnections())
+                        .pendingAcquireTimeout(Duration.ofMillis(pool.getAcquireTimeout()));
+            } else {
+                spec.maxConnections(Integer.MAX_VALUE)
+                        .pendingAcquireTimeout(Duration.ZERO);
+            }
+            if (pool.getMaxIdleTime() != null) {
+                spec.maxIdleTime(pool.getMaxIdleTime());
+            }
+            if (pool.getMaxLifeTime() != null) {
+                spec.maxLifeTime(pool.getMaxLifeTime());
+            }
+            spec.evictInBackground(pool.getEvictionInterval());
+        }
+
+        private static Integer intSetting(Map<String, Object> settings, String key) {
+            Object value = settings.get(key);
+            return value != null ? Integer.valueOf(value.toString().trim()) : null;
+        }
+
+        private static Duration durationSetting(Map<String, Object> settings, String key) {
+            Object value = settings.get(key);
+            return value != null ? DurationStyle.detectAndParse(value.toString().trim()) : null;
+        }
+    }
+}
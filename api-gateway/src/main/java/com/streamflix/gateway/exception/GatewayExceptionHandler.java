@@ -30,6 +30,7 @@ import java.nio.charset.StandardCharsets;
  * - Circuit breaker open (503)
  * - Service unavailable (503)
  * - Timeout errors (504)
+ * - Upstream connection pool exhausted (503)
  * - Not found (404)
  * - All other errors (500)
  */
@@ -76,6 +77,13 @@ public class GatewayExceptionHandler implements ErrorWebExceptionHandler {
             message = "Service is currently unavailable. Please try again later.";
             log.error("[{}] Connection failed for path: {} - {}", correlationId, path, ex.getMessage());
 
+        } else if (isPoolAcquireFailure(ex)) {
+            // Upstream connection pool full: acquire timed out or pending queue rejected
+            status = HttpStatus.SERVICE_UNAVAILABLE;
+            errorCode = "UPSTREAM_BUSY";
+            message = "Service is busy. Please try again shortly.";
+            log.warn("[{}] Upstream connection pool exhausted for path: {} - {}", correlationId, path, ex.getMessage());
+
         } else if (ex instanceof NotFoundException) {
             // Route not found
             status = HttpStatus.NOT_FOUND;
@@ -101,6 +109,14 @@ public class GatewayExceptionHandler implements ErrorWebExceptionHandler {
         return writeErrorResponse(response, status, errorCode, message, correlationId);
     }
 
+    /**
+     * Reactor Netty shades reactor-pool, so match its acquire exceptions
+     * (PoolAcquireTimeoutException, PoolAcquirePendingLimitException) by name.
+     */
+    private static boolean isPoolAcquireFailure(Throwable ex) {
+        return ex.getClass().getSimpleName().startsWith("PoolAcquire");
+    }
+
     private Mono<Void> writeErrorResponse(ServerHttpResponse response, HttpStatus status,
                                            String errorCode, String message, String correlationId) {
         response.setStatusCode(status);
@@ -2,14 +2,16 @@ package com.streamflix.gateway.filter;
 
 import com.streamflix.common.security.SecurityConstants;
 import com.streamflix.common.util.CorrelationIdGenerator;
+import io.micrometer.context.ContextRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
 import org.springframework.core.Ordered;
-import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
 
 /**
  * Global filter that ensures every request has a correlation ID.
@@ -21,45 +23,56 @@ import reactor.core.publisher.Mono;
  *
  * Flow:
  * 1. Check if request has X-Correlation-ID header
- * 2. If not, generate a new correlation ID
- * 3. Add correlation ID to request headers for downstream services
+ * 2. If not (or if it is oversized), generate a new correlation ID
+ * 3. Store it in exchange attributes and the Reactor context
  * 4. Add correlation ID to response headers for client debugging
  *
+ * The request itself is not mutated: CorrelationIdHeadersFilter adds the
+ * header to the proxied request only when the client did not send it.
+ * The "correlationId" context entry is mirrored into the logging MDC via
+ * context propagation (spring.reactor.context-propagation=auto).
+ *
  * Order: Runs first (highest priority) to ensure all subsequent filters have access.
  */
 @Slf4j
 @Component
 public class CorrelationIdFilter implements GlobalFilter, Ordered {
 
+    public static final String CORRELATION_ID_KEY = "correlationId";
+
+    // Client-supplied IDs longer than this are replaced
+    private static final int MAX_CLIENT_ID_LENGTH = 128;
+
+    static {
+        ContextRegistry.getInstance().registerThreadLocalAccessor(CORRELATION_ID_KEY,
+                () -> MDC.get(CORRELATION_ID_KEY),
+                value -> MDC.put(CORRELATION_ID_KEY, value),
+                () -> MDC.remove(CORRELATION_ID_KEY));
+    }
+
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
         // Get or generate correlation ID
         String correlationId = exchange.getRequest().getHeaders()
                 .getFirst(SecurityConstants.CORRELATION_ID_HEADER);
 
-        if (correlationId == null || correlationId.isEmpty()) {
+        if (correlationId == null || correlationId.isEmpty()
+                || correlationId.length() > MAX_CLIENT_ID_LENGTH) {
             correlationId = CorrelationIdGenerator.generate();
             log.debug("Generated new correlation ID: {}", correlationId);
         } else {
             log.debug("Using existing correlation ID: {}", correlationId);
         }
 
-        // Add correlation ID to request for downstream services
-        final String finalCorrelationId = correlationId;
-        ServerHttpRequest modifiedRequest = exchange.getRequest().mutate()
-                .header(SecurityConstants.CORRELATION_ID_HEADER, finalCorrelationId)
-                .build();
-
         // Add correlation ID to response for client
         exchange.getResponse().getHeaders()
-                .add(SecurityConstants.CORRELATION_ID_HEADER, finalCorrelationId);
+                .set(SecurityConstants.CORRELATION_ID_HEADER, correlationId);
 
-        // Store in exchange attributes for other filters
-        exchange.getAttributes().put("correlationId", finalCorrelationId);
+        // Store in exchange attributes for other filters and the headers filter
+        exchange.getAttributes().put(CORRELATION_ID_KEY, correlationId);
 
-        // Continue filter chain with modified request
-        return chain.filter(exchange.mutate().request(modifiedRequest).build())
-                .contextWrite(ctx -> ctx.put("correlationId", finalCorrelationId));
+        return chain.filter(exchange)
+                .contextWrite(Context.of(CORRELATION_ID_KEY, correlationId));
     }
 
     @Override
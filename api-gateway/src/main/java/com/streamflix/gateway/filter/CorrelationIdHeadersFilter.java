@@ -0,0 +1,37 @@
+package com.streamflix.gateway.filter;
+
+import com.streamflix.common.security.SecurityConstants;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * Adds the correlation ID to proxied requests.
+ *
+ * Runs while the routing filter builds the downstream request headers, so
+ * CorrelationIdFilter does not need to rebuild the request. Requests that
+ * already carry the chosen ID pass through untouched.
+ */
+@Component
+public class CorrelationIdHeadersFilter implements HttpHeadersFilter, Ordered {
+
+    @Override
+    public HttpHeaders filter(HttpHeaders input, ServerWebExchange exchange) {
+        String correlationId = exchange.getAttribute(CorrelationIdFilter.CORRELATION_ID_KEY);
+        if (correlationId == null
+                || correlationId.equals(input.getFirst(SecurityConstants.CORRELATION_ID_HEADER))) {
+            return input;
+        }
+        HttpHeaders filtered = new HttpHeaders();
+        filtered.putAll(input);
+        filtered.set(SecurityConstants.CORRELATION_ID_HEADER, correlationId);
+        return filtered;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+}
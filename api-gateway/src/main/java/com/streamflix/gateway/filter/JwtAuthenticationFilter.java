@@ -1,23 +1,21 @@
 package com.streamflix.gateway.filter;
 
 import com.streamflix.common.security.SecurityConstants;
+import com.streamflix.common.security.UserContextCodec;
+import com.streamflix.gateway.exception.ErrorResponseWriter;
 import com.streamflix.gateway.security.JwtTokenValidator;
+import com.streamflix.gateway.security.PublicPathMatcher;
 import io.jsonwebtoken.Claims;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.http.server.reactive.ServerHttpRequest;
-import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
-import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -32,27 +30,71 @@ import java.util.List;
  * 4. Extract claims and add as headers for downstream services
  *
  * Headers Propagated:
- * - X-User-ID: The authenticated user's ID
- * - X-Profile-ID: The selected profile (if present in token)
- * - X-User-Roles: Comma-separated list of roles
+ * - X-User-Context: user, profile, email, device and roles in one compact
+ *   MAC-protected value (UserContextCodec), verified downstream by
+ *   UserContextFilter without parsing the JWT
+ * - X-User-ID: The authenticated user's ID (legacy, gateway.user-context.legacy-headers)
+ * - X-Profile-ID: The selected profile (if present in token, legacy)
+ * - X-User-Roles: Comma-separated list of roles (legacy)
  *
- * Public paths (configured in SecurityConstants) bypass authentication.
+ * Client-supplied values of these headers are removed from every
+ * authenticated request.
+ *
+ * Public paths (configured in SecurityConstants and gateway.security.public-paths)
+ * bypass authentication. They are matched with a precompiled PublicPathMatcher.
+ *
+ * Rejections are written from pre-encoded ErrorResponseWriter templates.
+ * Token parser messages are only logged, not echoed to the client.
  */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class JwtAuthenticationFilter extends AbstractGatewayFilterFactory<JwtAuthenticationFilter.Config> {
 
+    private static final ErrorResponseWriter.Template MISSING_TOKEN = ErrorResponseWriter.template(
+            HttpStatus.UNAUTHORIZED, "UNAUTHORIZED", "Missing or invalid Authorization header");
+    private static final ErrorResponseWriter.Template INVALID_TOKEN_TYPE = ErrorResponseWriter.template(
+            HttpStatus.UNAUTHORIZED, "UNAUTHORIZED", "Invalid token type");
+    private static final ErrorResponseWriter.Template TOKEN_EXPIRED = ErrorResponseWriter.template(
+            HttpStatus.UNAUTHORIZED, "TOKEN_EXPIRED", "Your session has expired. Please log in again.");
+    private static final ErrorResponseWriter.Template TOKEN_REVOKED = ErrorResponseWriter.template(
+            HttpStatus.UNAUTHORIZED, "TOKEN_REVOKED", "Your session has been terminated. Please log in again.");
+    private static final ErrorResponseWriter.Template INVALID_TOKEN = ErrorResponseWriter.template(
+            HttpStatus.UNAUTHORIZED, "INVALID_TOKEN", "The access token is invalid.");
+
+    // Set only by this filter; never forwarded from the client
+    private static final List<String> IDENTITY_HEADERS = List.of(
+            SecurityConstants.USER_CONTEXT_HEADER,
+            SecurityConstants.USER_ID_HEADER,
+            SecurityConstants.PROFILE_ID_HEADER,
+            SecurityConstants.ROLES_HEADER);
+
     private final JwtTokenValidator jwtTokenValidator;
+    private final PublicPathMatcher publicPathMatcher;
+    private final UserContextCodec userContextCodec;
+    private final boolean legacyHeaders;
 
     public JwtAuthenticationFilter() {
-        super(Config.class);
-        this.jwtTokenValidator = new JwtTokenValidator();
+        this(new JwtTokenValidator());
     }
 
     public JwtAuthenticationFilter(JwtTokenValidator jwtTokenValidator) {
+        this(jwtTokenValidator, new PublicPathMatcher(SecurityConstants.PUBLIC_PATHS));
+    }
+
+    public JwtAuthenticationFilter(JwtTokenValidator jwtTokenValidator,
+                                   PublicPathMatcher publicPathMatcher) {
+        this(jwtTokenValidator, publicPathMatcher, null, true);
+    }
+
+    public JwtAuthenticationFilter(JwtTokenValidator jwtTokenValidator,
+                                   PublicPathMatcher publicPathMatcher,
+                                   UserContextCodec userContextCodec,
+                                   boolean legacyHeaders) {
         super(Config.class);
         this.jwtTokenValidator = jwtTokenValidator;
+        this.publicPathMatcher = publicPathMatcher;
+        this.userContextCodec = userContextCodec;
+        this.legacyHeaders = legacyHeaders || userContextCodec == null;
     }
 
     @Override
@@ -62,7 +104,7 @@ public class JwtAuthenticationFilter extends AbstractGatewayFilterFactory<JwtAut
             String path = request.getPath().value();
 
             // Skip authentication for public paths
-            if (isPublicPath(path)) {
+            if (publicPathMatcher.isPublic(path)) {
                 log.debug("Skipping authentication for public path: {}", path);
                 return chain.filter(exchange);
             }
@@ -71,7 +113,7 @@ public class JwtAuthenticationFilter extends AbstractGatewayFilterFactory<JwtAut
             String authHeader = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
             if (authHeader == null || !authHeader.startsWith(SecurityConstants.BEARER_PREFIX)) {
                 log.debug("No valid Authorization header found for path: {}", path);
-                return onUnauthorized(exchange, "Missing or invalid Authorization header");
+                return MISSING_TOKEN.write(exchange);
             }
 
             String token = authHeader.substring(SecurityConstants.BEARER_PREFIX.length());
@@ -89,7 +131,7 @@ public class JwtAuthenticationFilter extends AbstractGatewayFilterFactory<JwtAut
 
                         // Verify it's an access token, not refresh
                         if (!jwtTokenValidator.isAccessToken(claims)) {
-                            return onUnauthorized(exchange, "Invalid token type");
+                            return INVALID_TOKEN_TYPE.write(exchange);
                         }
 
                         String userId = jwtTokenValidator.extractUserId(claims);
@@ -99,16 +141,27 @@ public class JwtAuthenticationFilter extends AbstractGatewayFilterFactory<JwtAut
                         log.debug("Authenticated user: {}, profile: {}, roles: {}",
                                 userId, profileId, roles);
 
-                        // Build modified request with user context headers
-                        ServerHttpRequest.Builder requestBuilder = request.mutate();
-                        requestBuilder.header(SecurityConstants.USER_ID_HEADER, userId);
-
-                        if (profileId != null && !profileId.isEmpty()) {
-                            requestBuilder.header(SecurityConstants.PROFILE_ID_HEADER, profileId);
+                        // Build modified request with user context headers. Client-supplied
+                        // identity headers are always removed, so only values set here reach
+                        // downstream services, whether or not legacy headers are enabled
+                        ServerHttpRequest.Builder requestBuilder = request.mutate()
+                                .headers(headers -> IDENTITY_HEADERS.forEach(headers::remove));
+                        if (userContextCodec != null) {
+                            requestBuilder.header(SecurityConstants.USER_CONTEXT_HEADER, userContextCodec.encode(
+                                    userId, profileId, jwtTokenValidator.extractEmail(claims),
+                                    claims.get(SecurityConstants.CLAIM_DEVICE_ID, String.class), roles));
                         }
 
-                        if (!roles.isEmpty()) {
-                            requestBuilder.header(SecurityConstants.ROLES_HEADER, String.join(",", roles));
+                        if (legacyHeaders) {
+                            requestBuilder.header(SecurityConstants.USER_ID_HEADER, userId);
+
+                            if (profileId != null && !profileId.isEmpty()) {
+                                requestBuilder.header(SecurityConstants.PROFILE_ID_HEADER, profileId);
+                            }
+
+                            if (!roles.isEmpty()) {
+                                requestBuilder.header(SecurityConstants.ROLES_HEADER, String.join(",", roles));
+                            }
                         }
 
                         // Store in exchange attributes for other filters
@@ -123,49 +176,15 @@ public class JwtAuthenticationFilter extends AbstractGatewayFilterFactory<JwtAut
         };
     }
 
-    private boolean isPublicPath(String path) {
-        return Arrays.stream(SecurityConstants.PUBLIC_PATHS)
-                .anyMatch(publicPath -> {
-                    if (publicPath.endsWith("/**")) {
-                        String prefix = publicPath.substring(0, publicPath.length() - 3);
-                        return path.startsWith(prefix);
-                    }
-                    return path.equals(publicPath);
-                });
-    }
-
-    private Mono<Void> onUnauthorized(ServerWebExchange exchange, String message) {
-        return writeErrorResponse(exchange, HttpStatus.UNAUTHORIZED, "UNAUTHORIZED", message);
-    }
-
     private Mono<Void> onTokenError(ServerWebExchange exchange,
                                      JwtTokenValidator.TokenValidationResult result) {
         return switch (result.getErrorType()) {
-            case EXPIRED -> writeErrorResponse(exchange, HttpStatus.UNAUTHORIZED,
-                    "TOKEN_EXPIRED", "Your session has expired. Please log in again.");
-            case REVOKED -> writeErrorResponse(exchange, HttpStatus.UNAUTHORIZED,
-                    "TOKEN_REVOKED", "Your session has been terminated. Please log in again.");
-            default -> writeErrorResponse(exchange, HttpStatus.UNAUTHORIZED,
-                    "INVALID_TOKEN", result.getError());
+            case EXPIRED -> TOKEN_EXPIRED.write(exchange);
+            case REVOKED -> TOKEN_REVOKED.write(exchange);
+            default -> INVALID_TOKEN.write(exchange);
         };
     }
 
-    private Mono<Void> writeErrorResponse(ServerWebExchange exchange, HttpStatus status,
-                                           String errorCode, String message) {
-        ServerHttpResponse response = exchange.getResponse();
-        response.setStatusCode(status);
-        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
-
-        String correlationId = exchange.getAttribute("correlationId");
-        String json = String.format(
-                "{\"success\":false,\"error\":{\"code\":\"%s\",\"message\":\"%s\"},\"correlationId\":\"%s\"}",
-                errorCode, message, correlationId != null ? correlationId : ""
-        );
-
-        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
-        return response.writeWith(Mono.just(response.bufferFactory().wrap(bytes)));
-    }
-
     @Override
     public String name() {
         return "JwtAuthentication";
@@ -1,118 +1,115 @@
 package com.streamflix.gateway.filter;
 
-import com.streamflix.common.security.SecurityConstants;
+import com.streamflix.gateway.logging.AccessLogWriter;
+import com.streamflix.gateway.metrics.RouteLatencyTracker;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
 import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.server.reactive.ServerHttpRequest;
-import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
-import java.time.Duration;
-import java.time.Instant;
-
 /**
- * Global filter for request/response logging.
+ * Global filter for request/response access logging.
  *
- * Logs:
- * - Incoming requests with method, path, and client info
+ * Logs (asynchronously, via AccessLogWriter):
+ * - Method, path, route and client info
  * - Response status codes and latency
- * - Slow requests (configurable threshold)
+ * - Slow and failed requests always; successful requests are sampled.
+ *   "Slow" is relative to the route's own p99, not a fixed threshold
+ *
+ * Every routed request is also recorded in RouteLatencyTracker.
+ *
+ * The request path only copies references into a preallocated ring-buffer
+ * slot. Formatting, client IP resolution and I/O happen on the writer thread.
  *
- * Security: Sensitive headers are redacted in logs.
+ * Security: Sensitive headers are never logged.
  */
 @Slf4j
 @Component
 public class LoggingFilter implements GlobalFilter, Ordered {
 
-    private static final long SLOW_REQUEST_THRESHOLD_MS = 3000;
-
-    @Override
-    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
-        Instant startTime = Instant.now();
-        ServerHttpRequest request = exchange.getRequest();
-
-        String correlationId = exchange.getAttribute("correlationId");
-        String method = request.getMethod().name();
-        String path = request.getPath().value();
-        String clientIp = getClientIp(request);
+    private static final String FORWARDED_FOR_HEADER = "X-Forwarded-For";
+    private static final String REAL_IP_HEADER = "X-Real-IP";
 
-        // Log incoming request
-        log.info("[{}] -> {} {} from {}",
-                correlationId, method, path, clientIp);
+    private final AccessLogWriter accessLogWriter;
+    private final RouteLatencyTracker routeLatencyTracker;
 
-        return chain.filter(exchange)
-                .doOnSuccess(aVoid -> logResponse(exchange, startTime, correlationId))
-                .doOnError(error -> logError(exchange, startTime, correlationId, error));
+    public LoggingFilter(AccessLogWriter accessLogWriter, RouteLatencyTracker routeLatencyTracker) {
+        this.accessLogWriter = accessLogWriter;
+        this.routeLatencyTracker = routeLatencyTracker;
     }
 
-    private void logResponse(ServerWebExchange exchange, Instant startTime, String correlationId) {
-        Duration duration = Duration.between(startTime, Instant.now());
-        long latencyMs = duration.toMillis();
-        ServerHttpResponse response = exchange.getResponse();
-        HttpStatusCode statusCode = response.getStatusCode();
-
-        String path = exchange.getRequest().getPath().value();
-        String method = exchange.getRequest().getMethod().name();
-
-        if (latencyMs > SLOW_REQUEST_THRESHOLD_MS) {
-            log.warn("[{}] <- {} {} {} (SLOW: {}ms)",
-                    correlationId, method, path,
-                    statusCode != null ? statusCode.value() : "?",
-                    latencyMs);
-        } else {
-            log.info("[{}] <- {} {} {} ({}ms)",
-                    correlationId, method, path,
-                    statusCode != null ? statusCode.value() : "?",
-                    latencyMs);
-        }
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        long startNanos = System.nanoTime();
 
-        // Log at DEBUG level for detailed request info
         if (log.isDebugEnabled()) {
-            String userId = exchange.getAttribute("userId");
-            String profileId = exchange.getAttribute("profileId");
-            log.debug("[{}] User: {}, Profile: {}, Route: {}",
-                    correlationId,
-                    userId != null ? userId : "anonymous",
-                    profileId != null ? profileId : "none",
-                    exchange.getAttribute("org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR"));
+            ServerHttpRequest request = exchange.getRequest();
+            log.debug("[{}] -> {} {}", exchange.getAttribute("correlationId"),
+                    request.getMethod().name(), request.getPath().value());
         }
-    }
 
-    private void logError(ServerWebExchange exchange, Instant startTime, String correlationId, Throwable error) {
-        Duration duration = Duration.between(startTime, Instant.now());
-        String path = exchange.getRequest().getPath().value();
-        String method = exchange.getRequest().getMethod().name();
-
-        log.error("[{}] <- {} {} ERROR ({}ms): {}",
-                correlationId, method, path,
-                duration.toMillis(),
-                error.getMessage());
+        return chain.filter(exchange)
+                .doOnSuccess(aVoid -> record(exchange, startNanos, null))
+                .doOnError(error -> record(exchange, startNanos, error));
     }
 
-    private String getClientIp(ServerHttpRequest request) {
-        // Check for forwarded headers (when behind load balancer)
-        String forwardedFor = request.getHeaders().getFirst("X-Forwarded-For");
-        if (forwardedFor != null && !forwardedFor.isEmpty()) {
-            // X-Forwarded-For can contain multiple IPs, take the first (original client)
-            return forwardedFor.split(",")[0].trim();
+    private void record(ServerWebExchange exchange, long startNanos, Throwable error) {
+        long latencyNanos = System.nanoTime() - startNanos;
+        HttpStatusCode statusCode = exchange.getResponse().getStatusCode();
+        int status = statusCode != null ? statusCode.value() : 0;
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        String routeId = route != null ? route.getId() : null;
+
+        if (routeId != null) {
+            routeLatencyTracker.record(routeId, status, isCanary(exchange, route), error != null, latencyNanos);
         }
 
-        String realIp = request.getHeaders().getFirst("X-Real-IP");
-        if (realIp != null && !realIp.isEmpty()) {
-            return realIp;
+        boolean slow = latencyNanos > routeLatencyTracker.slowThresholdNanos(routeId);
+        if (!accessLogWriter.shouldLog(status, slow, error != null)) {
+            return;
         }
 
-        // Fall back to remote address
-        if (request.getRemoteAddress() != null) {
-            return request.getRemoteAddress().getAddress().getHostAddress();
+        AccessLogWriter.AccessLogRecord record = accessLogWriter.claim();
+        if (record == null) {
+            // Buffer full - counted and reported by the writer
+            return;
         }
 
-        return "unknown";
+        ServerHttpRequest request = exchange.getRequest();
+        HttpHeaders headers = request.getHeaders();
+
+        record.timestampMillis = System.currentTimeMillis();
+        record.correlationId = exchange.getAttribute("correlationId");
+        record.method = request.getMethod().name();
+        record.path = request.getPath().value();
+        record.status = status;
+        record.latencyNanos = latencyNanos;
+        record.slow = slow;
+        record.routeId = routeId;
+        record.userId = exchange.getAttribute("userId");
+        record.profileId = exchange.getAttribute("profileId");
+        record.forwardedFor = headers.getFirst(FORWARDED_FOR_HEADER);
+        record.realIp = headers.getFirst(REAL_IP_HEADER);
+        record.remoteAddress = request.getRemoteAddress();
+        record.error = error;
+
+        accessLogWriter.publish(record);
+    }
+
+    /**
+     * Canary traffic is flagged by CanaryRouting or by canary route metadata.
+     */
+    private static boolean isCanary(ServerWebExchange exchange, Route route) {
+        return Boolean.TRUE.equals(exchange.getAttribute("canary"))
+                || Boolean.parseBoolean(String.valueOf(route.getMetadata().get("canary")));
     }
 
     @Override
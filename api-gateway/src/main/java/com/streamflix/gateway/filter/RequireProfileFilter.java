@@ -1,17 +1,13 @@
 package com.streamflix.gateway.filter;
 
 import com.streamflix.common.security.SecurityConstants;
+import com.streamflix.gateway.exception.ErrorResponseWriter;
+import com.streamflix.gateway.security.PublicPathMatcher;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
-import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.stereotype.Component;
-import org.springframework.web.server.ServerWebExchange;
-import reactor.core.publisher.Mono;
-
-import java.nio.charset.StandardCharsets;
 
 /**
  * Filter that requires a profile to be selected.
@@ -20,19 +16,33 @@ import java.nio.charset.StandardCharsets;
  * because they are personalized per profile within an account.
  *
  * This filter checks for the X-Profile-ID header (set by JWT auth filter)
- * and returns 400 Bad Request if not present.
+ * and returns 400 Bad Request if not present. Public paths are passed through.
  */
 @Slf4j
 @Component
 public class RequireProfileFilter extends AbstractGatewayFilterFactory<RequireProfileFilter.Config> {
 
+    private static final ErrorResponseWriter.Template PROFILE_REQUIRED = ErrorResponseWriter.template(
+            HttpStatus.BAD_REQUEST, "PROFILE_REQUIRED", "Please select a profile to continue.");
+
+    private final PublicPathMatcher publicPathMatcher;
+
     public RequireProfileFilter() {
+        this(new PublicPathMatcher(SecurityConstants.PUBLIC_PATHS));
+    }
+
+    public RequireProfileFilter(PublicPathMatcher publicPathMatcher) {
         super(Config.class);
+        this.publicPathMatcher = publicPathMatcher;
     }
 
     @Override
     public GatewayFilter apply(Config config) {
         return (exchange, chain) -> {
+            if (publicPathMatcher.isPublic(exchange.getRequest().getPath().value())) {
+                return chain.filter(exchange);
+            }
+
             String profileId = exchange.getRequest().getHeaders()
                     .getFirst(SecurityConstants.PROFILE_ID_HEADER);
 
@@ -44,7 +54,7 @@ public class RequireProfileFilter extends AbstractGatewayFilterFactory<RequirePr
             if (profileId == null || profileId.isEmpty()) {
                 log.debug("Profile not selected for request: {}",
                         exchange.getRequest().getPath());
-                return writeErrorResponse(exchange);
+                return PROFILE_REQUIRED.write(exchange);
             }
 
             log.debug("Profile {} selected, proceeding", profileId);
@@ -52,21 +62,6 @@ public class RequireProfileFilter extends AbstractGatewayFilterFactory<RequirePr
         };
     }
 
-    private Mono<Void> writeErrorResponse(ServerWebExchange exchange) {
-        ServerHttpResponse response = exchange.getResponse();
-        response.setStatusCode(HttpStatus.BAD_REQUEST);
-        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
-
-        String correlationId = exchange.getAttribute("correlationId");
-        String json = String.format(
-                "{\"success\":false,\"error\":{\"code\":\"PROFILE_REQUIRED\",\"message\":\"Please select a profile to continue.\"},\"correlationId\":\"%s\"}",
-                correlationId != null ? correlationId : ""
-        );
-
-        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
-        return response.writeWith(Mono.just(response.bufferFactory().wrap(bytes)));
-    }
-
     @Override
     public String name() {
         return "RequireProfile";
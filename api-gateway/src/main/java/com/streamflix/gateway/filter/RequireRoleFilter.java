@@ -1,17 +1,15 @@
 package com.streamflix.gateway.filter;
 
 import com.streamflix.common.security.SecurityConstants;
+import com.streamflix.gateway.exception.ErrorResponseWriter;
+import com.streamflix.gateway.security.PublicPathMatcher;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
-import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
-import reactor.core.publisher.Mono;
 
-import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -24,18 +22,35 @@ import java.util.List;
  *     - RequireRole=ROLE_ADMIN,ROLE_ANALYTICS_VIEWER
  *
  * User must have at least one of the specified roles to access the route.
+ * Public paths are passed through.
  */
 @Slf4j
 @Component
 public class RequireRoleFilter extends AbstractGatewayFilterFactory<RequireRoleFilter.Config> {
 
+    private final PublicPathMatcher publicPathMatcher;
+
     public RequireRoleFilter() {
+        this(new PublicPathMatcher(SecurityConstants.PUBLIC_PATHS));
+    }
+
+    public RequireRoleFilter(PublicPathMatcher publicPathMatcher) {
         super(Config.class);
+        this.publicPathMatcher = publicPathMatcher;
     }
 
     @Override
     public GatewayFilter apply(Config config) {
+        ErrorResponseWriter.Template accessDenied = ErrorResponseWriter.template(
+                HttpStatus.FORBIDDEN, "ACCESS_DENIED",
+                "You do not have permission to access this resource. Required roles: "
+                        + String.join(", ", config.getRoles()));
+
         return (exchange, chain) -> {
+            if (publicPathMatcher.isPublic(exchange.getRequest().getPath().value())) {
+                return chain.filter(exchange);
+            }
+
             List<String> userRoles = getUserRoles(exchange);
             List<String> requiredRoles = config.getRoles();
 
@@ -48,7 +63,7 @@ public class RequireRoleFilter extends AbstractGatewayFilterFactory<RequireRoleF
             if (!hasRequiredRole) {
                 log.warn("Access denied. User roles {} do not include any of required roles {}",
                         userRoles, requiredRoles);
-                return writeErrorResponse(exchange, requiredRoles);
+                return accessDenied.write(exchange);
             }
 
             return chain.filter(exchange);
@@ -73,22 +88,6 @@ public class RequireRoleFilter extends AbstractGatewayFilterFactory<RequireRoleF
         return Collections.emptyList();
     }
 
-    private Mono<Void> writeErrorResponse(ServerWebExchange exchange, List<String> requiredRoles) {
-        ServerHttpResponse response = exchange.getResponse();
-        response.setStatusCode(HttpStatus.FORBIDDEN);
-        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
-
-        String correlationId = exchange.getAttribute("correlationId");
-        String json = String.format(
-                "{\"success\":false,\"error\":{\"code\":\"ACCESS_DENIED\",\"message\":\"You do not have permission to access this resource. Required roles: %s\"},\"correlationId\":\"%s\"}",
-                String.join(", ", requiredRoles),
-                correlationId != null ? correlationId : ""
-        );
-
-        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
-        return response.writeWith(Mono.just(response.bufferFactory().wrap(bytes)));
-    }
-
     @Override
     public String name() {
         return "RequireRole";
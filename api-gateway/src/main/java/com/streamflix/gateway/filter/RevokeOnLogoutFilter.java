@@ -0,0 +1,97 @@
+package com.streamflix.gateway.filter;
+
+import com.streamflix.common.security.SecurityConstants;
+import com.streamflix.gateway.security.JwtTokenValidator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Filter that revokes the caller's access token on logout.
+ *
+ * Logging out revokes the refresh token in auth-service, but the access
+ * token would stay usable until it expires. When a logout request succeeds,
+ * this filter blacklists the bearer token (see JwtTokenValidator) before the
+ * response is sent, and every gateway node learns of it through the
+ * revocation channel.
+ *
+ * Usage in route config:
+ *   filters:
+ *     - name: RevokeOnLogout
+ *       args:
+ *         paths: /api/v1/auth/logout, /api/v1/auth/logout-all
+ */
+@Slf4j
+@Component
+public class RevokeOnLogoutFilter extends AbstractGatewayFilterFactory<RevokeOnLogoutFilter.Config> {
+
+    private final JwtTokenValidator jwtTokenValidator;
+
+    public RevokeOnLogoutFilter(JwtTokenValidator jwtTokenValidator) {
+        super(Config.class);
+        this.jwtTokenValidator = jwtTokenValidator;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return (exchange, chain) -> {
+            if (!config.getPaths().contains(exchange.getRequest().getPath().value())) {
+                return chain.filter(exchange);
+            }
+            String authHeader = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+            if (authHeader == null || !authHeader.startsWith(SecurityConstants.BEARER_PREFIX)) {
+                return chain.filter(exchange);
+            }
+            String token = authHeader.substring(SecurityConstants.BEARER_PREFIX.length());
+
+            exchange.getResponse().beforeCommit(() -> {
+                HttpStatusCode status = exchange.getResponse().getStatusCode();
+                if (status == null || !status.is2xxSuccessful()) {
+                    return Mono.empty();
+                }
+                return jwtTokenValidator.blacklistToken(token)
+                        .doOnNext(revoked -> {
+                            if (!revoked) {
+                                log.debug("Access token not revoked on logout (invalid or expired)");
+                            }
+                        })
+                        .onErrorResume(e -> {
+                            log.warn("Failed to revoke access token on logout: {}", e.getMessage());
+                            return Mono.just(false);
+                        })
+                        .then();
+            });
+            return chain.filter(exchange);
+        };
+    }
+
+    @Override
+    public String name() {
+        return "RevokeOnLogout";
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return Collections.singletonList("paths");
+    }
+
+    public static class Config {
+        private List<String> paths = Arrays.asList("/api/v1/auth/logout", "/api/v1/auth/logout-all");
+
+        public List<String> getPaths() {
+            return paths;
+        }
+
+        public void setPaths(List<String> paths) {
+            this.paths = paths;
+        }
+    }
+}
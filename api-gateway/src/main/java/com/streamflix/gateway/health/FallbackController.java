@@ -1,10 +1,8 @@
 package com.streamflix.gateway.health;
 
-import com.streamflix.common.dto.ApiResponse;
+import com.streamflix.gateway.exception.ErrorResponseWriter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ServerWebExchange;
@@ -13,130 +11,78 @@ import reactor.core.publisher.Mono;
 /**
  * Fallback controller for circuit breaker scenarios.
  *
- * When a circuit breaker is open, requests are routed here
- * instead of failing immediately.
+ * When a circuit breaker is open, or the adaptive concurrency limit
+ * sheds a request, requests are routed here instead of failing
+ * immediately. Mapped for all methods, since shed requests keep
+ * their original method.
  *
  * Provides:
  * - Graceful degradation messages
  * - Service-specific fallback responses
  * - Metrics for fallback usage
+ *
+ * Bodies are pre-encoded ErrorResponseWriter templates, so fallbacks stay
+ * cheap when a whole service is shedding or its breaker is open. For the
+ * same reason each fallback is only logged at DEBUG; breaker state changes
+ * are logged by Resilience4jConfig.
  */
 @Slf4j
 @RestController
 @RequestMapping("/fallback")
 public class FallbackController {
 
-    @GetMapping
-    public Mono<ResponseEntity<ApiResponse<Void>>> defaultFallback(ServerWebExchange exchange) {
-        String correlationId = exchange.getAttribute("correlationId");
-        log.warn("[{}] Default fallback triggered", correlationId);
-
-        ApiResponse<Void> response = ApiResponse.<Void>builder()
-                .success(false)
-                .error(ApiResponse.ErrorInfo.builder()
-                        .code("SERVICE_UNAVAILABLE")
-                        .message("The service is temporarily unavailable. Please try again in a few moments.")
-                        .traceId(correlationId)
-                        .build())
-                .correlationId(correlationId)
-                .timestamp(java.time.Instant.now())
-                .build();
-
-        return Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response));
+    private static final ErrorResponseWriter.Template DEFAULT_UNAVAILABLE = ErrorResponseWriter.template(
+            HttpStatus.SERVICE_UNAVAILABLE, "SERVICE_UNAVAILABLE",
+            "The service is temporarily unavailable. Please try again in a few moments.");
+    private static final ErrorResponseWriter.Template AUTH_UNAVAILABLE = ErrorResponseWriter.template(
+            HttpStatus.SERVICE_UNAVAILABLE, "AUTH_SERVICE_UNAVAILABLE",
+            "Authentication service is temporarily unavailable. Please try again shortly.");
+    private static final ErrorResponseWriter.Template CONTENT_UNAVAILABLE = ErrorResponseWriter.template(
+            HttpStatus.SERVICE_UNAVAILABLE, "CONTENT_SERVICE_UNAVAILABLE",
+            "Content catalog is temporarily unavailable. Please try again shortly.");
+    private static final ErrorResponseWriter.Template PLAYBACK_UNAVAILABLE = ErrorResponseWriter.template(
+            HttpStatus.SERVICE_UNAVAILABLE, "PLAYBACK_SERVICE_UNAVAILABLE",
+            "Playback service is temporarily unavailable. Please try again shortly.");
+    private static final ErrorResponseWriter.Template RECOMMENDATIONS_UNAVAILABLE = ErrorResponseWriter.template(
+            HttpStatus.SERVICE_UNAVAILABLE, "RECOMMENDATIONS_UNAVAILABLE",
+            "Personalized recommendations are temporarily unavailable.");
+    private static final ErrorResponseWriter.Template SEARCH_UNAVAILABLE = ErrorResponseWriter.template(
+            HttpStatus.SERVICE_UNAVAILABLE, "SEARCH_SERVICE_UNAVAILABLE",
+            "Search is temporarily unavailable. Please try again shortly.");
+
+    @RequestMapping
+    public Mono<Void> defaultFallback(ServerWebExchange exchange) {
+        log.debug("[{}] Default fallback triggered", exchange.getAttribute("correlationId"));
+        return DEFAULT_UNAVAILABLE.write(exchange);
     }
 
-    @GetMapping("/auth")
-    public Mono<ResponseEntity<ApiResponse<Void>>> authFallback(ServerWebExchange exchange) {
-        String correlationId = exchange.getAttribute("correlationId");
-        log.warn("[{}] Auth service fallback triggered", correlationId);
-
-        ApiResponse<Void> response = ApiResponse.<Void>builder()
-                .success(false)
-                .error(ApiResponse.ErrorInfo.builder()
-                        .code("AUTH_SERVICE_UNAVAILABLE")
-                        .message("Authentication service is temporarily unavailable. Please try again shortly.")
-                        .traceId(correlationId)
-                        .build())
-                .correlationId(correlationId)
-                .timestamp(java.time.Instant.now())
-                .build();
-
-        return Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response));
+    @RequestMapping("/auth")
+    public Mono<Void> authFallback(ServerWebExchange exchange) {
+        log.debug("[{}] Auth service fallback triggered", exchange.getAttribute("correlationId"));
+        return AUTH_UNAVAILABLE.write(exchange);
     }
 
-    @GetMapping("/content")
-    public Mono<ResponseEntity<ApiResponse<Void>>> contentFallback(ServerWebExchange exchange) {
-        String correlationId = exchange.getAttribute("correlationId");
-        log.warn("[{}] Content service fallback triggered", correlationId);
-
-        ApiResponse<Void> response = ApiResponse.<Void>builder()
-                .success(false)
-                .error(ApiResponse.ErrorInfo.builder()
-                        .code("CONTENT_SERVICE_UNAVAILABLE")
-                        .message("Content catalog is temporarily unavailable. Please try again shortly.")
-                        .traceId(correlationId)
-                        .build())
-                .correlationId(correlationId)
-                .timestamp(java.time.Instant.now())
-                .build();
-
-        return Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response));
+    @RequestMapping("/content")
+    public Mono<Void> contentFallback(ServerWebExchange exchange) {
+        log.debug("[{}] Content service fallback triggered", exchange.getAttribute("correlationId"));
+        return CONTENT_UNAVAILABLE.write(exchange);
     }
 
-    @GetMapping("/playback")
-    public Mono<ResponseEntity<ApiResponse<Void>>> playbackFallback(ServerWebExchange exchange) {
-        String correlationId = exchange.getAttribute("correlationId");
-        log.warn("[{}] Playback service fallback triggered", correlationId);
-
-        ApiResponse<Void> response = ApiResponse.<Void>builder()
-                .success(false)
-                .error(ApiResponse.ErrorInfo.builder()
-                        .code("PLAYBACK_SERVICE_UNAVAILABLE")
-                        .message("Playback service is temporarily unavailable. Please try again shortly.")
-                        .traceId(correlationId)
-                        .build())
-                .correlationId(correlationId)
-                .timestamp(java.time.Instant.now())
-                .build();
-
-        return Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response));
+    @RequestMapping("/playback")
+    public Mono<Void> playbackFallback(ServerWebExchange exchange) {
+        log.debug("[{}] Playback service fallback triggered", exchange.getAttribute("correlationId"));
+        return PLAYBACK_UNAVAILABLE.write(exchange);
     }
 
-    @GetMapping("/recommendations")
-    public Mono<ResponseEntity<ApiResponse<Void>>> recommendationsFallback(ServerWebExchange exchange) {
-        String correlationId = exchange.getAttribute("correlationId");
-        log.warn("[{}] Recommendations service fallback triggered", correlationId);
-
-        ApiResponse<Void> response = ApiResponse.<Void>builder()
-                .success(false)
-                .error(ApiResponse.ErrorInfo.builder()
-                        .code("RECOMMENDATIONS_UNAVAILABLE")
-                        .message("Personalized recommendations are temporarily unavailable.")
-                        .traceId(correlationId)
-                        .build())
-                .correlationId(correlationId)
-                .timestamp(java.time.Instant.now())
-                .build();
-
-        return Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response));
+    @RequestMapping("/recommendations")
+    public Mono<Void> recommendationsFallback(ServerWebExchange exchange) {
+        log.debug("[{}] Recommendations service fallback triggered", exchange.getAttribute("correlationId"));
+        return RECOMMENDATIONS_UNAVAILABLE.write(exchange);
     }
 
-    @GetMapping("/search")
-    public Mono<ResponseEntity<ApiResponse<Void>>> searchFallback(ServerWebExchange exchange) {
-        String correlationId = exchange.getAttribute("correlationId");
-        log.warn("[{}] Search service fallback triggered", correlationId);
-
-        ApiResponse<Void> response = ApiResponse.<Void>builder()
-                .success(false)
-                .error(ApiResponse.ErrorInfo.builder()
-                        .code("SEARCH_SERVICE_UNAVAILABLE")
-                        .message("Search is temporarily unavailable. Please try again shortly.")
-                        .traceId(correlationId)
-                        .build())
-                .correlationId(correlationId)
-                .timestamp(java.time.Instant.now())
-                .build();
-
-        return Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response));
+    @RequestMapping("/search")
+    public Mono<Void> searchFallback(ServerWebExchange exchange) {
+        log.debug("[{}] Search service fallback triggered", exchange.getAttribute("correlationId"));
+        return SEARCH_UNAVAILABLE.write(exchange);
     }
 }
@@ -1,6 +1,7 @@
 package com.streamflix.gateway.health;
 
 import com.streamflix.gateway.config.Resilience4jConfig;
+import com.streamflix.gateway.metrics.RouteLatencyTracker;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -10,6 +11,7 @@ import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Mono;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -22,6 +24,7 @@ public class GatewayHealthController {
 
     private final CircuitBreakerRegistry circuitBreakerRegistry;
     private final Resilience4jConfig.CircuitBreakerHealthInfo circuitBreakerHealthInfo;
+    private final RouteLatencyTracker routeLatencyTracker;
 
     /**
      * Get circuit breaker status for all downstream services.
@@ -34,6 +37,23 @@ public class GatewayHealthController {
         return Mono.just(ResponseEntity.ok(response));
     }
 
+    /**
+     * Get per-route latency percentiles (p50/p99/p999 by status class and
+     * canary flag, last minute) and SLO error-budget burn rates.
+     */
+    @GetMapping("/latency")
+    public Mono<ResponseEntity<Map<String, Object>>> getLatency() {
+        Map<String, Object> slo = new LinkedHashMap<>();
+        slo.put("target", routeLatencyTracker.getSloTarget());
+        slo.put("latencyThresholdMs", routeLatencyTracker.getSloLatencyMillis());
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("slo", slo);
+        response.put("routes", routeLatencyTracker.report());
+        response.put("timestamp", java.time.Instant.now().toString());
+        return Mono.just(ResponseEntity.ok(response));
+    }
+
     /**
      * Get gateway health summary.
      */
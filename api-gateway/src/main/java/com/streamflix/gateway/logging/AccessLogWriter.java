@@ -0,0 +1,263 @@
+package com.streamflix.gateway.logging;
+
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous access-log pipeline for the gateway.
+ *
+ * Request threads claim a slot in a preallocated ring buffer, copy
+ * references into it and publish it. A single background thread drains
+ * the buffer and writes batches of JSON lines to the "streamflix.access"
+ * logger, so formatting and log I/O never run on Netty event loop threads.
+ *
+ * Policy:
+ * - Failed (error or 5xx) and slow requests are always logged; "slow" is
+ *   decided by the caller, per route (see RouteLatencyTracker)
+ * - Other requests are sampled at the configured rate
+ * - If the buffer is full the record is dropped and counted; the drop count
+ *   is reported by the writer thread
+ *
+ * logback-spring.xml gives the access logger its own appender with a bare
+ * "%msg%n" pattern (and no additivity), so each batch renders as plain
+ * JSON lines rather than one prefixed multi-line console event.
+ */
+@Slf4j
+public class AccessLogWriter implements AutoCloseable {
+
+    private static final Logger ACCESS_LOG = LoggerFactory.getLogger("streamflix.access");
+
+    private final AccessLogRecord[] ring;
+    private final int mask;
+    private final double sampleRate;
+    private final long flushIntervalNanos;
+    private final int maxBatchSize;
+
+    // Next sequence to claim (producers) and next sequence to drain (writer)
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final StringBuilder batch = new StringBuilder(64 * 1024);
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public AccessLogWriter(int bufferSize, double sampleRate, long flushIntervalMs, int maxBatchSize) {
+        int capacity = Integer.highestOneBit(Math.max(2, bufferSize - 1)) << 1;
+        this.ring = new AccessLogRecord[capacity];
+        for (int i = 0; i < capacity; i++) {
+            ring[i] = new AccessLogRecord();
+            ring[i].published = i - capacity;
+        }
+        this.mask = capacity - 1;
+        this.sampleRate = sampleRate;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public void start() {
+        running = true;
+        writerThread = new Thread(this::runWriter, "access-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        if (writerThread != null) {
+            LockSupport.unpark(writerThread);
+            try {
+                writerThread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Decide whether a completed request should be logged.
+     */
+    public boolean shouldLog(int status, boolean slow, boolean failed) {
+        if (failed || status >= 500 || slow) {
+            return true;
+        }
+        return sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    /**
+     * Claim the next free slot, or return null if the buffer is full.
+     * The caller must fill the record and then call {@link #publish}.
+     */
+    public AccessLogRecord claim() {
+        long sequence;
+        do {
+            sequence = head.get();
+            if (sequence - tail.get() >= ring.length) {
+                dropped.incrementAndGet();
+                return null;
+            }
+        } while (!head.compareAndSet(sequence, sequence + 1));
+
+        AccessLogRecord record = ring[(int) (sequence & mask)];
+        record.sequence = sequence;
+        return record;
+    }
+
+    /**
+     * Make a filled record visible to the writer thread.
+     */
+    public void publish(AccessLogRecord record) {
+        record.published = record.sequence;
+    }
+
+    private void runWriter() {
+        while (running) {
+            if (drain() == 0) {
+                LockSupport.parkNanos(flushIntervalNanos);
+            }
+        }
+        // Final flush on shutdown
+        while (drain() > 0) {
+            // keep draining until the buffer is empty
+        }
+    }
+
+    private int drain() {
+        long next = tail.get();
+        int count = 0;
+        batch.setLength(0);
+
+        while (count < maxBatchSize) {
+            AccessLogRecord record = ring[(int) (next & mask)];
+            if (record.published != next) {
+                break;
+            }
+            if (count > 0) {
+                batch.append('\n');
+            }
+            record.appendJson(batch);
+            record.clear();
+            next++;
+            count++;
+            // Hand the slot back to producers
+            tail.set(next);
+        }
+
+        if (count > 0) {
+            ACCESS_LOG.info(batch.toString());
+        }
+
+        long droppedCount = dropped.getAndSet(0);
+        if (droppedCount > 0) {
+            log.warn("Access log buffer full, dropped {} records", droppedCount);
+        }
+        return count;
+    }
+
+    /**
+     * Mutable, reusable access-log record. Request threads only copy
+     * references and primitives; all formatting happens on the writer thread.
+     */
+    public static final class AccessLogRecord {
+
+        private long sequence;
+        private volatile long published;
+
+        public long timestampMillis;
+        public String correlationId;
+        public String method;
+        public String path;
+        public int status;
+        public long latencyNanos;
+        public boolean slow;
+        public String routeId;
+        public String userId;
+        public String profileId;
+        public String forwardedFor;
+        public String realIp;
+        public InetSocketAddress remoteAddress;
+        public Throwable error;
+
+        void appendJson(StringBuilder sb) {
+            sb.append("{\"ts\":").append(timestampMillis);
+            appendField(sb, "correlationId", correlationId);
+            appendField(sb, "method", method);
+            appendField(sb, "path", path);
+            sb.append(",\"status\":").append(status);
+            sb.append(",\"latencyMs\":").append(TimeUnit.NANOSECONDS.toMillis(latencyNanos));
+            if (slow) {
+                sb.append(",\"slow\":true");
+            }
+            appendField(sb, "clientIp", resolveClientIp());
+            appendField(sb, "route", routeId);
+            appendField(sb, "userId", userId);
+            appendField(sb, "profileId", profileId);
+            if (error != null) {
+                appendField(sb, "error", error.getMessage() != null
+                        ? error.getMessage() : error.getClass().getName());
+            }
+            sb.append('}');
+        }
+
+        private String resolveClientIp() {
+            if (forwardedFor != null && !forwardedFor.isEmpty()) {
+                // X-Forwarded-For can contain multiple IPs, take the first (original client)
+                int comma = forwardedFor.indexOf(',');
+                return (comma < 0 ? forwardedFor : forwardedFor.substring(0, comma)).trim();
+            }
+            if (realIp != null && !realIp.isEmpty()) {
+                return realIp;
+            }
+            if (remoteAddress != null && remoteAddress.getAddress() != null) {
+                return remoteAddress.getAddress().getHostAddress();
+            }
+            return "unknown";
+        }
+
+        void clear() {
+            correlationId = null;
+            method = null;
+            path = null;
+            routeId = null;
+            userId = null;
+            profileId = null;
+            forwardedFor = null;
+            realIp = null;
+            remoteAddress = null;
+            error = null;
+        }
+
+        private static void appendField(StringBuilder sb, String name, String value) {
+            if (value == null) {
+                return;
+            }
+            sb.append(",\"").append(name).append("\":\"");
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"' -> sb.append("\\\"");
+                    case '\\' -> sb.append("\\\\");
+                    case '\n' -> sb.append("\\n");
+                    case '\r' -> sb.append("\\r");
+                    case '\t' -> sb.append("\\t");
+                    default -> {
+                        if (c < 0x20) {
+                            sb.append(String.format("\\u%04x", (int) c));
+                        } else {
+                            sb.append(c);
+                        }
+                    }
+                }
+            }
+            sb.append('"');
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.streamflix.gateway.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Per-route latency histograms and SLO error-budget tracking.
+ *
+ * Features:
+ * - One timer per route, status class and canary flag, with client-side
+ *   p50/p99/p999 (Micrometer keeps these in rotating HdrHistogram buffers,
+ *   so they cover roughly the last minute) plus a percentile histogram
+ *   for server-side aggregation in Prometheus
+ * - Error-budget burn rate per route over rolling 5m and 1h windows; a
+ *   request is "bad" if it failed, returned 5xx or exceeded the SLO latency
+ * - Per-route slow-request threshold for the access log: the route's
+ *   current 2xx p99 (never below the configured floor), falling back to the
+ *   configured default until the route has traffic
+ *
+ * Metrics:
+ * - gateway.route.latency{route, status, canary}
+ */
+@Component
+public class RouteLatencyTracker {
+
+    private static final String METER_NAME = "gateway.route.latency";
+    private static final double[] PERCENTILES = {0.5, 0.99, 0.999};
+    private static final long THRESHOLD_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(5);
+    private static final long MIN_THRESHOLD_SAMPLES = 100;
+    private static final String[] STATUS_CLASSES = {"1xx", "2xx", "3xx", "4xx", "5xx"};
+
+    // Burn-rate windows: 10s buckets covering the longest window
+    private static final long BUCKET_MILLIS = 10_000;
+    private static final int BUCKETS = 360;
+    private static final Map<String, Integer> BURN_WINDOWS = new LinkedHashMap<>();
+
+    static {
+        BURN_WINDOWS.put("5m", 30);
+        BURN_WINDOWS.put("1h", 360);
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final double sloTarget;
+    private final long sloLatencyNanos;
+    private final long defaultSlowNanos;
+    private final long slowFloorNanos;
+
+    private final Map<String, RouteStats> routes = new ConcurrentHashMap<>();
+
+    public RouteLatencyTracker(MeterRegistry meterRegistry,
+                               @Value("${gateway.latency.slo.target:0.999}") double sloTarget,
+                               @Value("${gateway.latency.slo.latency-threshold-ms:1000}") long sloLatencyMs,
+                               @Value("${gateway.access-log.slow-threshold-ms:3000}") long defaultSlowMs,
+                               @Value("${gateway.latency.slow-floor-ms:250}") long slowFloorMs) {
+        this.meterRegistry = meterRegistry;
+        this.sloTarget = sloTarget;
+        this.sloLatencyNanos = TimeUnit.MILLISECONDS.toNanos(sloLatencyMs);
+        this.defaultSlowNanos = TimeUnit.MILLISECONDS.toNanos(defaultSlowMs);
+        this.slowFloorNanos = TimeUnit.MILLISECONDS.toNanos(slowFloorMs);
+    }
+
+    /**
+     * Record a completed request. Status 0 (no response written) counts as 5xx.
+     */
+    public void record(String routeId, int status, boolean canary, boolean failed, long latencyNanos) {
+        RouteStats stats = routes.computeIfAbsent(routeId, RouteStats::new);
+        int statusClass = failed || status < 100 || status > 599 ? 4 : status / 100 - 1;
+        stats.timer(statusClass, canary).record(latencyNanos, TimeUnit.NANOSECONDS);
+        boolean bad = failed || status >= 500 || status == 0 || latencyNanos > sloLatencyNanos;
+        stats.budget.record(bad, System.currentTimeMillis());
+    }
+
+    /**
+     * Latency above which a request on this route is logged as slow.
+     */
+    public long slowThresholdNanos(String routeId) {
+        RouteStats stats = routeId != null ? routes.get(routeId) : null;
+        return stats != null ? stats.slowThresholdNanos() : defaultSlowNanos;
+    }
+
+    /**
+     * Snapshot of all routes for the /gateway/latency endpoint.
+     */
+    public Map<String, Object> report() {
+        long now = System.currentTimeMillis();
+        Map<String, Object> report = new TreeMap<>();
+        routes.forEach((routeId, stats) -> report.put(routeId, stats.report(now)));
+        return report;
+    }
+
+    public double getSloTarget() {
+        return sloTarget;
+    }
+
+    public long getSloLatencyMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(sloLatencyNanos);
+    }
+
+    private final class RouteStats {
+        private final String routeId;
+        // [statusClass * 2 + canary], registered on first use
+        private final AtomicReferenceArray<Timer> timers = new AtomicReferenceArray<>(STATUS_CLASSES.length * 2);
+        private final ErrorBudgetWindow budget = new ErrorBudgetWindow();
+        private final AtomicLong nextRefreshNanos = new AtomicLong(System.nanoTime());
+        private volatile long slowNanos = defaultSlowNanos;
+
+        RouteStats(String routeId) {
+            this.routeId = routeId;
+        }
+
+        Timer timer(int statusClass, boolean canary) {
+            int index = statusClass * 2 + (canary ? 1 : 0);
+            Timer timer = timers.get(index);
+            if (timer == null) {
+                // Registration is idempotent, so a racing duplicate gets the same timer
+                timer = Timer.builder(METER_NAME)
+                        .description("Gateway request latency per route, status class and canary flag")
+                        .tag("route", routeId)
+                        .tag("status", STATUS_CLASSES[statusClass])
+                        .tag("canary", String.valueOf(canary))
+                        .publishPercentiles(PERCENTILES)
+                        .percentilePrecision(2)
+                        .publishPercentileHistogram()
+                        .minimumExpectedValue(Duration.ofMillis(1))
+                        .maximumExpectedValue(Duration.ofSeconds(30))
+                        .distributionStatisticExpiry(Duration.ofMinutes(1))
+                        .distributionStatisticBufferLength(3)
+                        .register(meterRegistry);
+                timers.set(index, timer);
+            }
+            return timer;
+        }
+
+        long slowThresholdNanos() {
+            long now = System.nanoTime();
+            long next = nextRefreshNanos.get();
+            if (now - next >= 0 && nextRefreshNanos.compareAndSet(next, now + THRESHOLD_REFRESH_NANOS)) {
+                slowNanos = computeSlowThreshold();
+            }
+            return slowNanos;
+        }
+
+        private long computeSlowThreshold() {
+            long samples = 0;
+            double p99 = 0;
+            for (int canary = 0; canary < 2; canary++) {
+                Timer timer = timers.get(2 + canary);
+                if (timer == null) {
+                    continue;
+                }
+                HistogramSnapshot snapshot = timer.takeSnapshot();
+                samples += snapshot.count();
+                p99 = Math.max(p99, percentile(snapshot, 0.99));
+            }
+            if (samples < MIN_THRESHOLD_SAMPLES || p99 <= 0) {
+                return defaultSlowNanos;
+            }
+            return Math.max(slowFloorNanos, (long) p99);
+        }
+
+        Map<String, Object> report(long nowMillis) {
+            List<Map<String, Object>> series = new ArrayList<>();
+            for (int i = 0; i < timers.length(); i++) {
+                Timer timer = timers.get(i);
+                if (timer == null) {
+                    continue;
+                }
+                HistogramSnapshot snapshot = timer.takeSnapshot();
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("status", STATUS_CLASSES[i / 2]);
+                entry.put("canary", i % 2 == 1);
+                entry.put("count", snapshot.count());
+                entry.put("p50Ms", toMillis(percentile(snapshot, 0.5)));
+                entry.put("p99Ms", toMillis(percentile(snapshot, 0.99)));
+                entry.put("p999Ms", toMillis(percentile(snapshot, 0.999)));
+                entry.put("maxMs", toMillis(snapshot.max(TimeUnit.NANOSECONDS)));
+                series.add(entry);
+            }
+
+            Map<String, Object> burn = new LinkedHashMap<>();
+            BURN_WINDOWS.forEach((window, buckets) -> burn.put(window, budget.burnRate(nowMillis, buckets)));
+
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("series", series);
+            report.put("burnRate", burn);
+            report.put("slowThresholdMs", TimeUnit.NANOSECONDS.toMillis(slowNanos));
+            return report;
+        }
+    }
+
+    /**
+     * Ring of 10-second buckets counting total and bad requests.
+     * A bucket is reset when it is first reused for a new interval; a
+     * request racing with that reset may be lost, which is acceptable
+     * for a burn-rate estimate.
+     */
+    private final class ErrorBudgetWindow {
+        private final AtomicLongArray epochs = new AtomicLongArray(BUCKETS);
+        private final AtomicLongArray totals = new AtomicLongArray(BUCKETS);
+        private final AtomicLongArray bads = new AtomicLongArray(BUCKETS);
+
+        void record(boolean bad, long nowMillis) {
+            long epoch = nowMillis / BUCKET_MILLIS;
+            int i = (int) (epoch % BUCKETS);
+            long seen = epochs.get(i);
+            if (seen != epoch && epochs.compareAndSet(i, seen, epoch)) {
+                totals.set(i, 0);
+                bads.set(i, 0);
+            }
+            totals.incrementAndGet(i);
+            if (bad) {
+                bads.incrementAndGet(i);
+            }
+        }
+
+        /**
+         * Observed bad-request ratio divided by the allowed ratio (1 - target).
+         * 1.0 means the budget is being spent exactly at the sustainable rate.
+         */
+        double burnRate(long nowMillis, int buckets) {
+            long current = nowMillis / BUCKET_MILLIS;
+            long total = 0;
+            long bad = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                long epoch = epochs.get(i);
+                if (current - epoch < buckets) {
+                    total += totals.get(i);
+                    bad += bads.get(i);
+                }
+            }
+            if (total == 0) {
+                return 0.0;
+            }
+            double allowed = 1.0 - sloTarget;
+            double burn = allowed > 0 ? ((double) bad / total) / allowed : 0.0;
+            return Math.round(burn * 100.0) / 100.0;
+        }
+    }
+
+    private static double percentile(HistogramSnapshot snapshot, double percentile) {
+        for (ValueAtPercentile value : snapshot.percentileValues()) {
+            if (Math.abs(value.percentile() - percentile) < 1e-6) {
+                return value.value(TimeUnit.NANOSECONDS);
+            }
+        }
+        return 0;
+    }
+
+    private static double toMillis(double nanos) {
+        return Math.round(nanos / 10_000.0) / 100.0;
+    }
+}
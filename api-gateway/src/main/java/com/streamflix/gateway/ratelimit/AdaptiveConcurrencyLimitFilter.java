@@ -0,0 +1,200 @@
+package com.streamflix.gateway.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.DispatcherHandler;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-route adaptive concurrency limit.
+ *
+ * Caps in-flight requests to a downstream service with an AIMD limit that
+ * follows the service's observed latency (see AdaptiveConcurrencyLimiter).
+ * Requests over the limit are not queued: they are dispatched straight to
+ * the route's FallbackController endpoint for a fast 503, before any retry
+ * or circuit breaker work is done.
+ *
+ * Latency is measured around the rest of the filter chain, so retries
+ * count against the permit of the request that triggered them.
+ *
+ * Usage in route config (place before CircuitBreaker and Retry):
+ *   filters:
+ *     - name: AdaptiveConcurrencyLimit
+ *       args:
+ *         initialLimit: 100
+ *         minLimit: 10
+ *         maxLimit: 500
+ *         latencyThreshold: 500ms
+ *         fallbackPath: /fallback/content
+ *
+ * Metrics:
+ * - gateway.concurrency.limit{route}
+ * - gateway.concurrency.inflight{route}
+ * - gateway.concurrency.rejected{route}
+ */
+@Slf4j
+@Component
+public class AdaptiveConcurrencyLimitFilter extends AbstractGatewayFilterFactory<AdaptiveConcurrencyLimitFilter.Config> {
+
+    private final ObjectProvider<DispatcherHandler> dispatcherHandler;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+    public AdaptiveConcurrencyLimitFilter(ObjectProvider<DispatcherHandler> dispatcherHandler,
+                                          MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.dispatcherHandler = dispatcherHandler;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        String routeId = config.getRouteId() != null ? config.getRouteId() : "unknown";
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+                config.getInitialLimit(), config.getMinLimit(), config.getMaxLimit(),
+                config.getBackoffRatio(), config.getLatencyThreshold().toNanos());
+
+        // Gauges read through the map, so a route refresh swaps in the new limiter
+        if (limiters.put(routeId, limiter) == null) {
+            Gauge.builder("gateway.concurrency.limit", limiters, m -> m.get(routeId).getLimit())
+                    .description("Current adaptive concurrency limit")
+                    .tag("route", routeId)
+                    .register(meterRegistry);
+            Gauge.builder("gateway.concurrency.inflight", limiters, m -> m.get(routeId).getInFlight())
+                    .description("Requests currently holding a concurrency permit")
+                    .tag("route", routeId)
+                    .register(meterRegistry);
+        }
+        Counter rejected = Counter.builder("gateway.concurrency.rejected")
+                .description("Requests shed by the adaptive concurrency limit")
+                .tag("route", routeId)
+                .register(meterRegistry);
+
+        return (exchange, chain) -> {
+            if (!limiter.tryAcquire()) {
+                rejected.increment();
+                log.debug("Shedding request on route {} (limit {})", routeId, limiter.getLimit());
+                return fallback(exchange, config.getFallbackPath());
+            }
+
+            long start = System.nanoTime();
+            return chain.filter(exchange)
+                    .doFinally(signal -> {
+                        if (signal == SignalType.CANCEL) {
+                            limiter.releaseWithoutSample();
+                            return;
+                        }
+                        HttpStatusCode status = exchange.getResponse().getStatusCode();
+                        boolean dropped = signal == SignalType.ON_ERROR
+                                || (status != null && status.is5xxServerError());
+                        limiter.release(System.nanoTime() - start, dropped);
+                    });
+        };
+    }
+
+    /**
+     * Hand the request to FallbackController, the same way the
+     * CircuitBreaker filter handles forward: fallback URIs.
+     */
+    private Mono<Void> fallback(ServerWebExchange exchange, String fallbackPath) {
+        ServerHttpRequest request = exchange.getRequest().mutate()
+                .path(fallbackPath)
+                .build();
+        return dispatcherHandler.getObject().handle(exchange.mutate().request(request).build());
+    }
+
+    @Override
+    public String name() {
+        return "AdaptiveConcurrencyLimit";
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return Arrays.asList("initialLimit", "maxLimit", "fallbackPath");
+    }
+
+    public static class Config implements HasRouteId {
+        private int initialLimit = 100;
+        private int minLimit = 10;
+        private int maxLimit = 500;
+        private double backoffRatio = 0.9;
+        private Duration latencyThreshold = Duration.ofMillis(500);
+        private String fallbackPath = "/fallback";
+        private String routeId;
+
+        public int getInitialLimit() {
+            return initialLimit;
+        }
+
+        public void setInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+        }
+
+        public int getMinLimit() {
+            return minLimit;
+        }
+
+        public void setMinLimit(int minLimit) {
+            this.minLimit = Math.max(1, minLimit);
+        }
+
+        public int getMaxLimit() {
+            return maxLimit;
+        }
+
+        public void setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+        }
+
+        public double getBackoffRatio() {
+            return backoffRatio;
+        }
+
+        public void setBackoffRatio(double backoffRatio) {
+            this.backoffRatio = backoffRatio;
+        }
+
+        public Duration getLatencyThreshold() {
+            return latencyThreshold;
+        }
+
+        public void setLatencyThreshold(Duration latencyThreshold) {
+            this.latencyThreshold = latencyThreshold;
+        }
+
+        public String getFallbackPath() {
+            return fallbackPath;
+        }
+
+        public void setFallbackPath(String fallbackPath) {
+            this.fallbackPath = fallbackPath;
+        }
+
+        @Override
+        public String getRouteId() {
+            return routeId;
+        }
+
+        @Override
+        public void setRouteId(String routeId) {
+            this.routeId = routeId;
+        }
+    }
+}
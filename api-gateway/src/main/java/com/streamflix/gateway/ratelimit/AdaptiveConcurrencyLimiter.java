@@ -0,0 +1,99 @@
+package com.streamflix.gateway.ratelimit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Adaptive concurrency limit using AIMD (additive increase, multiplicative decrease).
+ *
+ * - Each request takes a permit if in-flight requests are below the current limit
+ * - A fast, successful response while the limit is being used grows the limit
+ *   by 1/limit, i.e. by about 1 per limit's worth of completed requests
+ * - A slow response (above latencyThresholdNanos) or a failure shrinks the limit
+ *   by backoffRatio, at most once per latency threshold window so one burst of
+ *   slow responses does not collapse the limit to the minimum
+ *
+ * Growth is per sample and the decrease per window, so the increase has to be
+ * fractional: at +1 per fast response, a busy route would add hundreds per
+ * window and outweigh the single cut even when a large share is slow.
+ *
+ * Under a downstream slowdown the limit drops quickly, so excess requests are
+ * shed at the gateway instead of queueing (and retrying) against a service
+ * that is already saturated.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long latencyThresholdNanos;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+    private long lastDecreaseNanos = System.nanoTime();
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+                                      double backoffRatio, long latencyThresholdNanos) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyThresholdNanos = latencyThresholdNanos;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * Try to take a permit. Every successful acquire must be paired with
+     * {@link #release}.
+     */
+    public boolean tryAcquire() {
+        int current = inFlight.incrementAndGet();
+        if (current > (int) limit) {
+            inFlight.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Return a permit and feed the observed outcome into the limit.
+     *
+     * @param latencyNanos time the request held the permit
+     * @param dropped      whether the request failed or timed out
+     */
+    public void release(long latencyNanos, boolean dropped) {
+        int current = inFlight.getAndDecrement();
+        if (dropped || latencyNanos > latencyThresholdNanos) {
+            decrease();
+        } else if (current * 2 >= limit) {
+            // Only grow while the limit is actually being used
+            increase();
+        }
+    }
+
+    /**
+     * Return a permit without adjusting the limit (e.g. on cancellation).
+     */
+    public void releaseWithoutSample() {
+        inFlight.decrementAndGet();
+    }
+
+    private synchronized void increase() {
+        limit = Math.min(maxLimit, limit + 1.0 / limit);
+    }
+
+    private synchronized void decrease() {
+        long now = System.nanoTime();
+        if (now - lastDecreaseNanos < latencyThresholdNanos) {
+            return;
+        }
+        lastDecreaseNanos = now;
+        limit = Math.max(minLimit, limit * backoffRatio);
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,131 @@
+package com.streamflix.gateway.ratelimit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cloud.gateway.filter.ratelimit.RedisRateLimiter;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Redis-backed rate limiter that charges a variable cost per request.
+ *
+ * Modes:
+ * - TOKEN_BUCKET: the gateway's request_rate_limiter.lua with
+ *   requestedTokens set to the request cost
+ * - SLIDING_LOG: a sorted-set log of admitted requests and their costs,
+ *   with a running total kept alongside it; admits a request only if the
+ *   total cost within the trailing window stays under the limit (no
+ *   bucket-boundary bursts)
+ *
+ * Keys are namespaced separately from RequestRateLimiter buckets, so cost
+ * limits are enforced in addition to the global per-user limit.
+ */
+@Slf4j
+@Component
+public class CostBasedRateLimiter {
+
+    private static final String TOKEN_BUCKET_PREFIX = "cost_rate_limiter.{";
+    private static final String SLIDING_LOG_PREFIX = "cost_rate_limiter_log.{";
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final RedisScript<List<Long>> tokenBucketScript;
+    private final RedisScript<List<Long>> slidingLogScript;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public CostBasedRateLimiter(
+            ReactiveStringRedisTemplate redisTemplate,
+            @Qualifier(RedisRateLimiter.REDIS_SCRIPT_NAME) RedisScript<List<Long>> tokenBucketScript) {
+        this.redisTemplate = redisTemplate;
+        this.tokenBucketScript = tokenBucketScript;
+        this.slidingLogScript = (RedisScript) RedisScript.of(
+                new ClassPathResource("scripts/sliding_log_rate_limiter.lua"), List.class);
+    }
+
+    public enum Mode {
+        TOKEN_BUCKET,
+        SLIDING_LOG
+    }
+
+    /**
+     * Try to consume {@code cost} units of the key's budget.
+     *
+     * Fails open (allowed, remaining -1) if Redis is unavailable,
+     * consistent with RedisRateLimiter.
+     */
+    public Mono<Result> tryConsume(String key, long cost, Mode mode, int replenishRate,
+                                   int burstCapacity, Duration window, int windowLimit) {
+        Mono<List<Long>> response = mode == Mode.SLIDING_LOG
+                ? slidingLog(key, cost, window, windowLimit)
+                : tokenBucket(key, cost, replenishRate, burstCapacity);
+
+        return response
+                .map(results -> new Result(results.get(0) == 1L, results.get(1)))
+                .onErrorResume(e -> {
+                    log.error("Error during cost-based rate limiting for {}: {}", key, e.getMessage());
+                    return Mono.just(new Result(true, -1));
+                });
+    }
+
+    private Mono<List<Long>> tokenBucket(String key, long cost, int replenishRate, int burstCapacity) {
+        List<String> keys = Arrays.asList(
+                TOKEN_BUCKET_PREFIX + key + "}.tokens",
+                TOKEN_BUCKET_PREFIX + key + "}.timestamp");
+        List<String> args = Arrays.asList(
+                String.valueOf(replenishRate),
+                String.valueOf(burstCapacity),
+                "",
+                String.valueOf(cost));
+        return execute(tokenBucketScript, keys, args);
+    }
+
+    private Mono<List<Long>> slidingLog(String key, long cost, Duration window, int windowLimit) {
+        // Same hash tag, so both keys live in one cluster slot
+        List<String> keys = Arrays.asList(
+                SLIDING_LOG_PREFIX + key + "}.log",
+                SLIDING_LOG_PREFIX + key + "}.total");
+        List<String> args = Arrays.asList(
+                String.valueOf(window.toMillis()),
+                String.valueOf(windowLimit),
+                String.valueOf(cost),
+                Long.toHexString(ThreadLocalRandom.current().nextLong()));
+        return execute(slidingLogScript, keys, args);
+    }
+
+    private Mono<List<Long>> execute(RedisScript<List<Long>> script, List<String> keys, List<String> args) {
+        return redisTemplate.execute(script, keys, args)
+                .<List<Long>>reduce(new ArrayList<>(), (all, part) -> {
+                    all.addAll(part);
+                    return all;
+                });
+    }
+
+    /**
+     * Outcome of a consume attempt.
+     */
+    public static class Result {
+        private final boolean allowed;
+        private final long remaining;
+
+        public Result(boolean allowed, long remaining) {
+            this.allowed = allowed;
+            this.remaining = remaining;
+        }
+
+        public boolean isAllowed() {
+            return allowed;
+        }
+
+        public long getRemaining() {
+            return remaining;
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.streamflix.gateway.ratelimit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Rate limiting filter that charges each request by its expected cost.
+ *
+ * RequestRateLimiter charges one token per request, so a 100-result search
+ * and a 10-suggestion autocomplete cost the same. This filter computes a
+ * per-request cost and charges it against a per-user budget:
+ *
+ *   cost = baseCost + ceil(requestedItems / itemsPerToken)   (capped at maxCost)
+ *
+ * where requestedItems is read from the first present sizeParams query
+ * parameter (e.g. size, limit). Paths listed in flatCostPaths always cost 1.
+ *
+ * Usage in route config:
+ *   filters:
+ *     - name: CostRateLimiter
+ *       args:
+ *         mode: TOKEN_BUCKET          # or SLIDING_LOG
+ *         replenishRate: 50
+ *         burstCapacity: 100
+ *         baseCost: 2
+ *         itemsPerToken: 20
+ *         sizeParams: size,limit
+ *         flatCostPaths: /api/v1/search/autocomplete
+ *
+ * Keys come from UserKeyResolver, so limits follow the user across devices.
+ */
+@Slf4j
+@Component
+public class CostRateLimiterFilter extends AbstractGatewayFilterFactory<CostRateLimiterFilter.Config> {
+
+    private static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+    private static final String COST_HEADER = "X-RateLimit-Cost";
+
+    private final CostBasedRateLimiter rateLimiter;
+    private final KeyResolver keyResolver;
+
+    public CostRateLimiterFilter(CostBasedRateLimiter rateLimiter,
+                                 @Qualifier("userKeyResolver") KeyResolver keyResolver) {
+        super(Config.class);
+        this.rateLimiter = rateLimiter;
+        this.keyResolver = keyResolver;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return (exchange, chain) -> {
+            long cost = computeCost(exchange.getRequest(), config);
+            Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+            String routeId = route != null ? route.getId() : "default";
+
+            return keyResolver.resolve(exchange)
+                    .flatMap(key -> rateLimiter.tryConsume(routeId + ":" + key, cost, config.getMode(),
+                            config.getReplenishRate(), config.getBurstCapacity(),
+                            config.getWindow(), config.getWindowLimit()))
+                    .flatMap(result -> {
+                        exchange.getResponse().getHeaders()
+                                .set(REMAINING_HEADER, String.valueOf(result.getRemaining()));
+                        exchange.getResponse().getHeaders()
+                                .set(COST_HEADER, String.valueOf(cost));
+
+                        if (!result.isAllowed()) {
+                            log.debug("Cost rate limit exceeded on route {} (cost {})", routeId, cost);
+                            return onRateLimited(exchange);
+                        }
+                        return chain.filter(exchange);
+                    });
+        };
+    }
+
+    private Mono<Void> onRateLimited(ServerWebExchange exchange) {
+        exchange.getResponse().setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        return exchange.getResponse().setComplete();
+    }
+
+    /**
+     * Cost of a request under config, between 1 and the smaller of maxCost
+     * and the bucket size. Package-private for tests.
+     */
+    static long computeCost(ServerHttpRequest request, Config config) {
+        String path = request.getPath().value();
+        for (String flatPath : config.getFlatCostPaths()) {
+            if (path.equals(flatPath)) {
+                return 1;
+            }
+        }
+
+        long cost = config.getBaseCost();
+        long itemsPerToken = config.getItemsPerToken();
+        if (itemsPerToken > 0) {
+            for (String param : config.getSizeParams()) {
+                String value = request.getQueryParams().getFirst(param);
+                if (value != null) {
+                    // Anything beyond maxCost tokens' worth costs the same; clamping first
+                    // keeps a huge size (e.g. Long.MAX_VALUE) from overflowing below
+                    long maxItems = saturatedMultiply(config.getMaxCost(), itemsPerToken);
+                    long items = Math.min(parseItems(value), maxItems);
+                    long itemCost = items / itemsPerToken + (items % itemsPerToken == 0 ? 0 : 1);
+                    cost = saturatedAdd(cost, itemCost);
+                    break;
+                }
+            }
+        }
+
+        // A cost above the bucket size could never be admitted
+        long ceiling = config.getMode() == CostBasedRateLimiter.Mode.SLIDING_LOG
+                ? config.getWindowLimit()
+                : config.getBurstCapacity();
+        return Math.max(1, Math.min(cost, Math.min(config.getMaxCost(), ceiling)));
+    }
+
+    private static long parseItems(String value) {
+        try {
+            return Math.max(0, Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static long saturatedAdd(long a, long b) {
+        try {
+            return Math.addExact(a, b);
+        } catch (ArithmeticException e) {
+            return b > 0 ? Long.MAX_VALUE : Long.MIN_VALUE;
+        }
+    }
+
+    private static long saturatedMultiply(long a, long b) {
+        try {
+            return Math.max(0, Math.multiplyExact(a, b));
+        } catch (ArithmeticException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    @Override
+    public String name() {
+        return "CostRateLimiter";
+    }
+
+    public static class Config {
+        private CostBasedRateLimiter.Mode mode = CostBasedRateLimiter.Mode.TOKEN_BUCKET;
+
+        // Token bucket settings
+        private int replenishRate = 50;
+        private int burstCapacity = 100;
+
+        // Sliding log settings
+        private Duration window = Duration.ofSeconds(60);
+        private int windowLimit = 600;
+
+        // Cost model
+        private long baseCost = 1;
+        private long itemsPerToken = 0;
+        private long maxCost = 20;
+        private List<String> sizeParams = Arrays.asList("size", "limit");
+        private List<String> flatCostPaths = Collections.emptyList();
+
+        public CostBasedRateLimiter.Mode getMode() {
+            return mode;
+        }
+
+        public void setMode(CostBasedRateLimiter.Mode mode) {
+            this.mode = mode;
+        }
+
+        public int getReplenishRate() {
+            return replenishRate;
+        }
+
+        public void setReplenishRate(int replenishRate) {
+            this.replenishRate = replenishRate;
+        }
+
+        public int getBurstCapacity() {
+            return burstCapacity;
+        }
+
+        public void setBurstCapacity(int burstCapacity) {
+            this.burstCapacity = burstCapacity;
+        }
+
+        public Duration getWindow() {
+            return window;
+        }
+
+        public void setWindow(Duration window) {
+            this.window = window;
+        }
+
+        public int getWindowLimit() {
+            return windowLimit;
+        }
+
+        public void setWindowLimit(int windowLimit) {
+            this.windowLimit = windowLimit;
+        }
+
+        public long getBaseCost() {
+            return baseCost;
+        }
+
+        public void setBaseCost(long baseCost) {
+            this.baseCost = baseCost;
+        }
+
+        public long getItemsPerToken() {
+            return itemsPerToken;
+        }
+
+        public void setItemsPerToken(long itemsPerToken) {
+            this.itemsPerToken = itemsPerToken;
+        }
+
+        public long getMaxCost() {
+            return maxCost;
+        }
+
+        public void setMaxCost(long maxCost) {
+            this.maxCost = maxCost;
+        }
+
+        public List<String> getSizeParams() {
+            return sizeParams;
+        }
+
+        public void setSizeParams(List<String> sizeParams) {
+            this.sizeParams = sizeParams;
+        }
+
+        public List<String> getFlatCostPaths() {
+            return flatCostPaths;
+        }
+
+        public void setFlatCostPaths(List<String> flatCostPaths) {
+            this.flatCostPaths = flatCostPaths;
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.streamflix.gateway.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeansException;
+import org.springframework.cloud.gateway.event.FilterArgsEvent;
+import org.springframework.cloud.gateway.filter.ratelimit.RateLimiter;
+import org.springframework.cloud.gateway.filter.ratelimit.RedisRateLimiter;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.ApplicationListener;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Two-tier rate limiter: node-local token leases in front of Redis.
+ *
+ * Instead of one Redis round-trip per request, each node leases a chunk of
+ * tokens from the shared Redis bucket and spends them locally with a CAS on
+ * an AtomicLong. Redis is only called when the local lease runs out or expires.
+ *
+ * - Buckets, keys and the Lua script are the ones RedisRateLimiter uses,
+ *   so the global budget per UserKeyResolver key is unchanged
+ * - Per-route replenishRate/burstCapacity/requestedTokens are bound from the
+ *   same "redis-rate-limiter" route args
+ * - Lease size = replenishRate * leaseFraction (at least requestedTokens,
+ *   at most burstCapacity); for small limits such as auth this is 1,
+ *   so every request still goes to Redis
+ * - Unspent leased tokens are forfeited when the lease expires, so a node
+ *   can only under-admit, never exceed the global budget
+ * - Near the limit, a denied lease falls back to requesting just
+ *   requestedTokens, matching RedisRateLimiter exactly
+ * - Lease refreshes are single-flight per key: requests arriving while the
+ *   lease is empty share one Redis call instead of each leasing a chunk
+ * - X-RateLimit-Remaining is the global budget as of this node's last Redis
+ *   call: the bucket's tokens left then, plus the tokens this node still
+ *   holds. Spending from another node's lease shows up at the next refresh
+ */
+@Slf4j
+public class HybridRateLimiter implements RateLimiter<RedisRateLimiter.Config>,
+        ApplicationContextAware, ApplicationListener<FilterArgsEvent> {
+
+    private final RedisRateLimiter delegate;
+    private final RedisRateLimiter.Config defaultConfig;
+    private final double leaseFraction;
+    private final long leaseTtlNanos;
+    private final Cache<String, LocalLease> leases;
+
+    private ReactiveStringRedisTemplate redisTemplate;
+    private RedisScript<List<Long>> script;
+
+    public HybridRateLimiter(int replenishRate, int burstCapacity, int requestedTokens,
+                             double leaseFraction, long leaseTtlMs, long maxKeys) {
+        this.delegate = new RedisRateLimiter(replenishRate, burstCapacity, requestedTokens);
+        this.defaultConfig = new RedisRateLimiter.Config()
+                .setReplenishRate(replenishRate)
+                .setBurstCapacity(burstCapacity)
+                .setRequestedTokens(requestedTokens);
+        this.leaseFraction = leaseFraction;
+        this.leaseTtlNanos = TimeUnit.MILLISECONDS.toNanos(leaseTtlMs);
+        this.leases = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(Duration.ofMillis(leaseTtlMs * 10))
+                .build();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void setApplicationContext(ApplicationContext context) throws BeansException {
+        delegate.setApplicationContext(context);
+        this.redisTemplate = context.getBean(ReactiveStringRedisTemplate.class);
+        this.script = context.getBean(RedisRateLimiter.REDIS_SCRIPT_NAME, RedisScript.class);
+    }
+
+    @Override
+    public void onApplicationEvent(FilterArgsEvent event) {
+        // Route args are bound into the delegate's per-route config map
+        delegate.onApplicationEvent(event);
+    }
+
+    @Override
+    public Map<String, RedisRateLimiter.Config> getConfig() {
+        return delegate.getConfig();
+    }
+
+    @Override
+    public Class<RedisRateLimiter.Config> getConfigClass() {
+        return RedisRateLimiter.Config.class;
+    }
+
+    @Override
+    public RedisRateLimiter.Config newConfig() {
+        return delegate.newConfig();
+    }
+
+    @Override
+    public Mono<Response> isAllowed(String routeId, String id) {
+        RedisRateLimiter.Config config = getConfig().getOrDefault(routeId, defaultConfig);
+        int requested = config.getRequestedTokens();
+
+        LocalLease lease = leases.get(routeId + ':' + id, k -> new LocalLease());
+        long now = System.nanoTime();
+        if (lease.tryAcquire(requested, now)) {
+            return Mono.just(new Response(true, headers(config, lease.globalRemaining())));
+        }
+
+        // One lease request per key at a time; concurrent callers wait for it
+        long leaseSize = leaseSize(config);
+        return lease.refresh(() -> requestTokens(id, config, leaseSize, lease)
+                        .doOnNext(granted -> {
+                            if (granted) {
+                                lease.grant(leaseSize, System.nanoTime() + leaseTtlNanos);
+                            }
+                        }))
+                .flatMap(granted -> {
+                    if (lease.tryAcquire(requested, System.nanoTime())) {
+                        return Mono.just(true);
+                    }
+                    if (!granted && leaseSize == requested) {
+                        return Mono.just(false);
+                    }
+                    // Lease denied (not enough budget) or already spent by the
+                    // other waiters; try for just this request
+                    return requestTokens(id, config, requested, lease);
+                })
+                .map(allowed -> new Response(allowed, headers(config, lease.globalRemaining())))
+                .onErrorResume(e -> {
+                    // Fail open, as RedisRateLimiter does
+                    log.error("Error acquiring rate limit lease for {}: {}", id, e.getMessage());
+                    return Mono.just(new Response(true, headers(config, -1)));
+                });
+    }
+
+    private long leaseSize(RedisRateLimiter.Config config) {
+        long size = (long) (config.getReplenishRate() * leaseFraction);
+        size = Math.min(size, config.getBurstCapacity());
+        return Math.max(size, config.getRequestedTokens());
+    }
+
+    /**
+     * Take tokens from the shared Redis bucket using the gateway's own
+     * request_rate_limiter.lua script and key layout. The bucket's tokens
+     * left are recorded on the lease for the remaining-tokens header.
+     */
+    private Mono<Boolean> requestTokens(String id, RedisRateLimiter.Config config, long tokens,
+                                        LocalLease lease) {
+        String prefix = "request_rate_limiter.{" + id;
+        List<String> keys = Arrays.asList(prefix + "}.tokens", prefix + "}.timestamp");
+        List<String> args = Arrays.asList(
+                String.valueOf(config.getReplenishRate()),
+                String.valueOf(config.getBurstCapacity()),
+                "",
+                String.valueOf(tokens));
+
+        return redisTemplate.execute(script, keys, args)
+                .reduce(new ArrayList<Long>(), (all, part) -> {
+                    all.addAll(part);
+                    return all;
+                })
+                .doOnNext(results -> {
+                    if (results.size() > 1) {
+                        lease.bucketRemaining(results.get(1));
+                    }
+                })
+                .map(results -> !results.isEmpty() && results.get(0) == 1L);
+    }
+
+    private Map<String, String> headers(RedisRateLimiter.Config config, long remaining) {
+        if (!delegate.isIncludeHeaders()) {
+            return Map.of();
+        }
+        Map<String, String> headers = new HashMap<>(8);
+        headers.put(delegate.getRemainingHeader(), String.valueOf(remaining));
+        headers.put(delegate.getReplenishRateHeader(), String.valueOf(config.getReplenishRate()));
+        headers.put(delegate.getBurstCapacityHeader(), String.valueOf(config.getBurstCapacity()));
+        headers.put(delegate.getRequestedTokensHeader(), String.valueOf(config.getRequestedTokens()));
+        return headers;
+    }
+
+    /**
+     * Tokens leased to this node for one key.
+     */
+    static final class LocalLease {
+        private final AtomicLong tokens = new AtomicLong();
+        private final AtomicReference<Mono<Boolean>> refresh = new AtomicReference<>();
+        private volatile long expiresAtNanos = System.nanoTime();
+        private volatile long bucketRemaining;
+
+        /**
+         * Join the in-flight lease request, or start one with fetch.
+         */
+        Mono<Boolean> refresh(Supplier<Mono<Boolean>> fetch) {
+            while (true) {
+                Mono<Boolean> inFlight = refresh.get();
+                if (inFlight != null) {
+                    return inFlight;
+                }
+                Sinks.One<Boolean> result = Sinks.one();
+                Mono<Boolean> started = result.asMono();
+                if (refresh.compareAndSet(null, started)) {
+                    fetch.get()
+                            .doOnTerminate(() -> refresh.compareAndSet(started, null))
+                            .subscribe(result::tryEmitValue, result::tryEmitError, result::tryEmitEmpty);
+                    return started;
+                }
+            }
+        }
+
+        boolean tryAcquire(long requested, long now) {
+            if (now - expiresAtNanos >= 0) {
+                return false;
+            }
+            long current;
+            do {
+                current = tokens.get();
+                if (current < requested) {
+                    return false;
+                }
+            } while (!tokens.compareAndSet(current, current - requested));
+            return true;
+        }
+
+        void grant(long extraTokens, long expiresAt) {
+            if (System.nanoTime() - expiresAtNanos >= 0) {
+                // Previous lease lapsed; unspent tokens are forfeited
+                tokens.set(extraTokens);
+            } else {
+                tokens.addAndGet(extraTokens);
+            }
+            expiresAtNanos = expiresAt;
+        }
+
+        void bucketRemaining(long remaining) {
+            bucketRemaining = remaining;
+        }
+
+        /**
+         * Shared bucket's tokens left at the last Redis call plus the leased
+         * tokens this node has not spent yet (none once the lease has lapsed).
+         */
+        long globalRemaining() {
+            if (System.nanoTime() - expiresAtNanos >= 0) {
+                return bucketRemaining;
+            }
+            return bucketRemaining + tokens.get();
+        }
+    }
+}
@@ -1,7 +1,7 @@
 package com.streamflix.gateway.ratelimit;
 
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cloud.gateway.filter.ratelimit.RedisRateLimiter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
@@ -9,7 +9,9 @@ import org.springframework.context.annotation.Primary;
 /**
  * Rate limiting configuration.
  *
- * Uses Redis-backed rate limiter with the token bucket algorithm.
+ * Uses a two-tier limiter (HybridRateLimiter): node-local token leases in
+ * front of the Redis-backed token bucket. Redis remains the source of truth
+ * for each key's budget, but is only called when a node's lease runs out.
  *
  * Token Bucket Algorithm:
  * - replenishRate: Tokens added per second (sustained rate)
@@ -25,13 +27,22 @@ import org.springframework.context.annotation.Primary;
 @Configuration
 public class RateLimitConfig {
 
+    @Value("${gateway.rate-limit.local.lease-fraction:0.1}")
+    private double leaseFraction;
+
+    @Value("${gateway.rate-limit.local.lease-ttl-ms:1000}")
+    private long leaseTtlMs;
+
+    @Value("${gateway.rate-limit.local.max-keys:100000}")
+    private long maxKeys;
+
     /**
      * Default rate limiter for general API endpoints.
      */
     @Bean
     @Primary
-    public RedisRateLimiter defaultRateLimiter() {
-        return new RedisRateLimiter(100, 200, 1);
+    public HybridRateLimiter defaultRateLimiter() {
+        return rateLimiter(100, 200, 1);
     }
 
     /**
@@ -39,24 +50,24 @@ public class RateLimitConfig {
      * Prevents brute force attacks.
      */
     @Bean
-    public RedisRateLimiter authRateLimiter() {
-        return new RedisRateLimiter(5, 10, 1);
+    public HybridRateLimiter authRateLimiter() {
+        return rateLimiter(5, 10, 1);
     }
 
     /**
      * Relaxed rate limiter for read-heavy endpoints.
      */
     @Bean
-    public RedisRateLimiter contentRateLimiter() {
-        return new RedisRateLimiter(200, 400, 1);
+    public HybridRateLimiter contentRateLimiter() {
+        return rateLimiter(200, 400, 1);
     }
 
     /**
      * Rate limiter for search endpoints.
      */
     @Bean
-    public RedisRateLimiter searchRateLimiter() {
-        return new RedisRateLimiter(50, 100, 1);
+    public HybridRateLimiter searchRateLimiter() {
+        return rateLimiter(50, 100, 1);
     }
 
     /**
@@ -64,7 +75,12 @@ public class RateLimitConfig {
      * Higher limit since these are frequent.
      */
     @Bean
-    public RedisRateLimiter playbackRateLimiter() {
-        return new RedisRateLimiter(300, 500, 1);
+    public HybridRateLimiter playbackRateLimiter() {
+        return rateLimiter(300, 500, 1);
+    }
+
+    private HybridRateLimiter rateLimiter(int replenishRate, int burstCapacity, int requestedTokens) {
+        return new HybridRateLimiter(replenishRate, burstCapacity, requestedTokens,
+                leaseFraction, leaseTtlMs, maxKeys);
     }
 }
@@ -1,12 +1,23 @@
 package com.streamflix.gateway.routing;
 
+import com.streamflix.common.util.HashUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.cloud.gateway.support.HasRouteId;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
 
-import java.util.Random;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Canary routing support for gradual rollouts.
@@ -16,12 +27,20 @@ import java.util.Random;
  * Features:
  * - Header-based canary selection (X-Canary: true forces canary)
  * - Cookie-based sticky canary (for consistent user experience)
- * - Percentage-based random routing
- * - Metrics for canary vs stable traffic
+ * - Deterministic hash-based bucketing on the UserKeyResolver key
+ *   (user ID, or IP for anonymous traffic), so a user lands in the
+ *   same variant on every device and every gateway node
+ * - Per-route salt, so the same users are not always the canary cohort
+ * - Request counts and latency timers for canary vs stable traffic
  *
  * Usage in route config:
  *   filters:
- *     - CanaryRouting=10   # 10% to canary
+ *     - CanaryRouting=10             # 10% to canary, salted with the route ID
+ *     - CanaryRouting=10,content-v2  # 10% to canary, explicit salt
+ *
+ * Metrics:
+ * - gateway.canary.requests{route, variant, reason}
+ * - gateway.canary.latency{route, variant} with percentile histogram
  */
 @Slf4j
 @Component
@@ -29,66 +48,153 @@ public class CanaryRoutingConfig extends AbstractGatewayFilterFactory<CanaryRout
 
     private static final String CANARY_HEADER = "X-Canary";
     private static final String CANARY_COOKIE = "streamflix-canary";
-    private static final Random RANDOM = new Random();
+    private static final int BUCKETS = 100;
+
+    private final KeyResolver keyResolver;
+    private final MeterRegistry meterRegistry;
 
-    public CanaryRoutingConfig() {
+    public CanaryRoutingConfig(@Qualifier("userKeyResolver") KeyResolver keyResolver,
+                               MeterRegistry meterRegistry) {
         super(Config.class);
+        this.keyResolver = keyResolver;
+        this.meterRegistry = meterRegistry;
     }
 
     @Override
     public GatewayFilter apply(Config config) {
+        String routeId = config.getRouteId() != null ? config.getRouteId() : "unknown";
+        String salt = config.getSalt() != null ? config.getSalt() : routeId;
+        VariantMeters canaryMeters = new VariantMeters(meterRegistry, routeId, true);
+        VariantMeters stableMeters = new VariantMeters(meterRegistry, routeId, false);
+
         return (exchange, chain) -> {
             ServerHttpRequest request = exchange.getRequest();
-            boolean useCanary = false;
-            String reason = "random";
-
-            // Check explicit canary header
-            String canaryHeader = request.getHeaders().getFirst(CANARY_HEADER);
-            if ("true".equalsIgnoreCase(canaryHeader)) {
-                useCanary = true;
-                reason = "header";
-            } else if ("false".equalsIgnoreCase(canaryHeader)) {
-                useCanary = false;
-                reason = "header-opt-out";
-            } else {
-                // Check canary cookie for sticky routing
-                String canaryCookie = request.getCookies().getFirst(CANARY_COOKIE) != null
-                        ? request.getCookies().getFirst(CANARY_COOKIE).getValue()
-                        : null;
-
-                if (canaryCookie != null) {
-                    useCanary = "true".equals(canaryCookie);
-                    reason = "cookie";
-                } else {
-                    // Random percentage-based routing
-                    int roll = RANDOM.nextInt(100);
-                    useCanary = roll < config.getPercentage();
-                    reason = "random-" + roll;
-                }
-            }
 
-            log.debug("Canary routing decision: {} (reason: {}, config: {}%)",
-                    useCanary, reason, config.getPercentage());
+            return resolveDecision(exchange, salt, config.getPercentage())
+                    .flatMap(decision -> {
+                        boolean useCanary = decision.canary;
+                        VariantMeters meters = useCanary ? canaryMeters : stableMeters;
+                        meters.count(decision);
+
+                        log.debug("Canary routing decision: {} (reason: {}, config: {}%)",
+                                useCanary, decision.reason, config.getPercentage());
 
-            // Add canary indicator header for downstream services
-            ServerHttpRequest modifiedRequest = request.mutate()
-                    .header(CANARY_HEADER, String.valueOf(useCanary))
-                    .build();
+                        // Add canary indicator header for downstream services
+                        ServerHttpRequest modifiedRequest = request.mutate()
+                                .header(CANARY_HEADER, String.valueOf(useCanary))
+                                .build();
 
-            // Store in exchange for metrics
-            exchange.getAttributes().put("canary", useCanary);
+                        // Store in exchange for metrics
+                        exchange.getAttributes().put("canary", useCanary);
 
-            return chain.filter(exchange.mutate().request(modifiedRequest).build());
+                        long start = System.nanoTime();
+                        return chain.filter(exchange.mutate().request(modifiedRequest).build())
+                                .doFinally(signal -> meters.latency.record(
+                                        System.nanoTime() - start, TimeUnit.NANOSECONDS));
+                    });
         };
     }
 
+    private Mono<Decision> resolveDecision(ServerWebExchange exchange, String salt, int percentage) {
+        ServerHttpRequest request = exchange.getRequest();
+
+        // Check explicit canary header
+        String canaryHeader = request.getHeaders().getFirst(CANARY_HEADER);
+        if ("true".equalsIgnoreCase(canaryHeader)) {
+            return Mono.just(Decision.CANARY_HEADER);
+        }
+        if ("false".equalsIgnoreCase(canaryHeader)) {
+            return Mono.just(Decision.STABLE_HEADER);
+        }
+
+        // Check canary cookie for sticky routing
+        if (request.getCookies().getFirst(CANARY_COOKIE) != null) {
+            boolean cookieCanary = "true".equals(request.getCookies().getFirst(CANARY_COOKIE).getValue());
+            return Mono.just(cookieCanary ? Decision.CANARY_COOKIE : Decision.STABLE_COOKIE);
+        }
+
+        if (percentage <= 0) {
+            return Mono.just(Decision.STABLE_HASH);
+        }
+
+        // Deterministic bucketing on the rate-limit key (user ID or client IP)
+        return keyResolver.resolve(exchange)
+                .defaultIfEmpty("anonymous")
+                .map(key -> bucket(salt, key) < percentage ? Decision.CANARY_HASH : Decision.STABLE_HASH);
+    }
+
+    /**
+     * Map a key to a stable bucket in [0, 100). Uses HashUtils, so every
+     * gateway node agrees on it.
+     */
+    static int bucket(String salt, String key) {
+        return (int) Math.floorMod(HashUtils.hash64(salt, key), (long) BUCKETS);
+    }
+
     @Override
     public String name() {
         return "CanaryRouting";
     }
 
-    public static class Config {
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return Arrays.asList("percentage", "salt");
+    }
+
+    private enum Decision {
+        CANARY_HEADER(true, "header"),
+        STABLE_HEADER(false, "header-opt-out"),
+        CANARY_COOKIE(true, "cookie"),
+        STABLE_COOKIE(false, "cookie"),
+        CANARY_HASH(true, "hash"),
+        STABLE_HASH(false, "hash");
+
+        private final boolean canary;
+        private final String reason;
+
+        Decision(boolean canary, String reason) {
+            this.canary = canary;
+            this.reason = reason;
+        }
+    }
+
+    /**
+     * Meters for one variant of one route, registered once per route.
+     */
+    private static final class VariantMeters {
+        private final Counter[] requests = new Counter[Decision.values().length];
+        private final Timer latency;
+
+        VariantMeters(MeterRegistry registry, String routeId, boolean canary) {
+            String variant = canary ? "canary" : "stable";
+            for (Decision decision : Decision.values()) {
+                if (decision.canary != canary) {
+                    continue;
+                }
+                requests[decision.ordinal()] = Counter.builder("gateway.canary.requests")
+                        .description("Requests routed per canary variant")
+                        .tag("route", routeId)
+                        .tag("variant", variant)
+                        .tag("reason", decision.reason)
+                        .register(registry);
+            }
+            this.latency = Timer.builder("gateway.canary.latency")
+                    .description("Request latency per canary variant")
+                    .tag("route", routeId)
+                    .tag("variant", variant)
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+
+        void count(Decision decision) {
+            requests[decision.ordinal()].increment();
+        }
+    }
+
+    public static class Config implements HasRouteId {
         private int percentage = 0;  // 0-100
+        private String salt;
+        private String routeId;
 
         public int getPercentage() {
             return percentage;
@@ -99,5 +205,23 @@ public class CanaryRoutingConfig extends AbstractGatewayFilterFactory<CanaryRout
             if (percentage > 100) percentage = 100;
             this.percentage = percentage;
         }
+
+        public String getSalt() {
+            return salt;
+        }
+
+        public void setSalt(String salt) {
+            this.salt = salt;
+        }
+
+        @Override
+        public String getRouteId() {
+            return routeId;
+        }
+
+        @Override
+        public void setRouteId(String routeId) {
+            this.routeId = routeId;
+        }
     }
 }
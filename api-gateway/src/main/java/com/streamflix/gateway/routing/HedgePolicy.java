@@ -0,0 +1,136 @@
+package com.streamflix.gateway.routing;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-route hedging state: the hedge delay and the hedge budget.
+ *
+ * Delay: the configured percentile of successful GET latency from the
+ * gateway's own spring.cloud.gateway.requests timers (percentiles must be
+ * enabled for that meter), refreshed every few seconds, never below
+ * minDelay. Hedging stays off until the timers have minSamples requests.
+ *
+ * Budget: every request earns maxHedgeRatio of a token, up to maxBurst
+ * tokens; a hedge spends one. Hedges can therefore never exceed
+ * maxHedgeRatio of the route's traffic plus a small burst.
+ */
+public class HedgePolicy {
+
+    private static final String GATEWAY_REQUESTS_METER = "spring.cloud.gateway.requests";
+    private static final long REFRESH_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+    private static final long MILLI_TOKENS = 1000;
+
+    private final String routeId;
+    private final MeterRegistry meterRegistry;
+    private final double percentile;
+    private final long minDelayNanos;
+    private final long minSamples;
+    private final long earnPerRequest;
+    private final long maxBudget;
+    private final Duration timeout;
+
+    private final AtomicLong budget = new AtomicLong();
+    private final AtomicLong nextRefreshNanos = new AtomicLong(System.nanoTime());
+    private volatile long delayNanos = -1;
+
+    final Counter primaries;
+    final Counter hedgesSent;
+    final Counter hedgesWon;
+    final Counter budgetExhausted;
+
+    public HedgePolicy(String routeId, MeterRegistry meterRegistry, double percentile, Duration minDelay,
+                       long minSamples, double maxHedgeRatio, int maxBurst, Duration timeout) {
+        this.routeId = routeId;
+        this.meterRegistry = meterRegistry;
+        this.percentile = percentile;
+        this.minDelayNanos = minDelay.toNanos();
+        this.minSamples = minSamples;
+        this.earnPerRequest = (long) (maxHedgeRatio * MILLI_TOKENS);
+        this.maxBudget = maxBurst * MILLI_TOKENS;
+        this.timeout = timeout;
+        this.primaries = counter("primary");
+        this.hedgesSent = counter("hedge_sent");
+        this.hedgesWon = counter("hedge_won");
+        this.budgetExhausted = counter("budget_exhausted");
+    }
+
+    /**
+     * Record a primary request; earns a fraction of a hedge token.
+     */
+    void onRequest() {
+        primaries.increment();
+        budget.accumulateAndGet(earnPerRequest, (current, earned) -> Math.min(maxBudget, current + earned));
+    }
+
+    /**
+     * Spend one hedge token, if available.
+     */
+    boolean tryAcquireHedge() {
+        long current;
+        do {
+            current = budget.get();
+            if (current < MILLI_TOKENS) {
+                budgetExhausted.increment();
+                return false;
+            }
+        } while (!budget.compareAndSet(current, current - MILLI_TOKENS));
+        return true;
+    }
+
+    /**
+     * Current hedge delay in nanoseconds, or -1 while there is not enough data.
+     */
+    long hedgeDelayNanos() {
+        long now = System.nanoTime();
+        long next = nextRefreshNanos.get();
+        if (now - next >= 0 && nextRefreshNanos.compareAndSet(next, now + REFRESH_INTERVAL_NANOS)) {
+            delayNanos = computeDelay();
+        }
+        return delayNanos;
+    }
+
+    private long computeDelay() {
+        long samples = 0;
+        double latency = 0;
+        for (Timer timer : meterRegistry.find(GATEWAY_REQUESTS_METER)
+                .tag("routeId", routeId)
+                .tag("httpMethod", "GET")
+                .tag("outcome", "SUCCESSFUL")
+                .timers()) {
+            HistogramSnapshot snapshot = timer.takeSnapshot();
+            samples += snapshot.count();
+            for (ValueAtPercentile value : snapshot.percentileValues()) {
+                if (Math.abs(value.percentile() - percentile) < 1e-6) {
+                    latency = Math.max(latency, value.value(TimeUnit.NANOSECONDS));
+                }
+            }
+        }
+        if (samples < minSamples || latency <= 0) {
+            return -1;
+        }
+        return Math.max(minDelayNanos, (long) latency);
+    }
+
+    /**
+     * Response timeout configured on the Hedging filter, or null to use the route's.
+     */
+    Duration getTimeout() {
+        return timeout;
+    }
+
+    private Counter counter(String result) {
+        return Counter.builder("gateway.hedging.requests")
+                .description("Hedged GET requests by outcome")
+                .tag("route", routeId)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
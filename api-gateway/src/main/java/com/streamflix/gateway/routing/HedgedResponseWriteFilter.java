@@ -0,0 +1,39 @@
+package com.streamflix.gateway.routing;
+
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Writes the body of a hedged response after the filter chain has finished.
+ *
+ * The counterpart of NettyWriteResponseFilter for requests routed by
+ * HedgingRoutingFilter: writing only after the chain completes keeps the
+ * response uncommitted while route filters (Retry, CircuitBreaker) decide
+ * what to do with it. Only the last attempt's body is written.
+ */
+@Component
+public class HedgedResponseWriteFilter implements GlobalFilter, Ordered {
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        return chain.filter(exchange).then(Mono.defer(() -> {
+            HedgingRoutingFilter.HedgedResponse hedged =
+                    exchange.getAttribute(HedgingRoutingFilter.HEDGED_RESPONSE_ATTR);
+            if (hedged == null) {
+                return Mono.empty();
+            }
+            exchange.getAttributes().remove(HedgingRoutingFilter.HEDGED_RESPONSE_ATTR);
+            return hedged.write();
+        }));
+    }
+
+    @Override
+    public int getOrder() {
+        return NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER;
+    }
+}
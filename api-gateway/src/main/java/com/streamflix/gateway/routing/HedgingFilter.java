@@ -0,0 +1,140 @@
+package com.streamflix.gateway.routing;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Enables hedged requests for idempotent GETs on a route.
+ *
+ * If a GET has not been answered after the route's latency percentile,
+ * a duplicate request is sent and whichever response arrives first wins;
+ * the other is cancelled. The request itself is executed by
+ * HedgingRoutingFilter in place of the Netty routing filter; this factory
+ * only attaches the route's HedgePolicy to the exchange.
+ *
+ * Usage in route config:
+ *   filters:
+ *     - name: Hedging
+ *       args:
+ *         percentile: 0.95        # must be listed in management.metrics.distribution.percentiles
+ *         minDelay: 50ms
+ *         maxHedgeRatio: 0.05     # at most 5% extra requests (plus maxBurst)
+ *         timeout: 2s             # optional; defaults to the route's response-timeout
+ *
+ * The percentile is read from spring.cloud.gateway.requests, so the delay
+ * tracks the same latency that is exported to Prometheus.
+ */
+@Component
+public class HedgingFilter extends AbstractGatewayFilterFactory<HedgingFilter.Config> {
+
+    public static final String HEDGE_POLICY_ATTR = HedgingFilter.class.getName() + ".policy";
+
+    private final MeterRegistry meterRegistry;
+
+    public HedgingFilter(MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        String routeId = config.getRouteId() != null ? config.getRouteId() : "unknown";
+        HedgePolicy policy = new HedgePolicy(routeId, meterRegistry, config.getPercentile(),
+                config.getMinDelay(), config.getMinSamples(), config.getMaxHedgeRatio(),
+                config.getMaxBurst(), config.getTimeout());
+
+        return (exchange, chain) -> {
+            if (exchange.getRequest().getMethod() == HttpMethod.GET) {
+                exchange.getAttributes().put(HEDGE_POLICY_ATTR, policy);
+            }
+            return chain.filter(exchange);
+        };
+    }
+
+    @Override
+    public String name() {
+        return "Hedging";
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return Arrays.asList("percentile", "maxHedgeRatio");
+    }
+
+    public static class Config implements HasRouteId {
+        private double percentile = 0.95;
+        private Duration minDelay = Duration.ofMillis(50);
+        private long minSamples = 200;
+        private double maxHedgeRatio = 0.05;
+        private int maxBurst = 10;
+        // null: use the route's response-timeout, as NettyRoutingFilter does
+        private Duration timeout;
+        private String routeId;
+
+        public double getPercentile() {
+            return percentile;
+        }
+
+        public void setPercentile(double percentile) {
+            this.percentile = percentile;
+        }
+
+        public Duration getMinDelay() {
+            return minDelay;
+        }
+
+        public void setMinDelay(Duration minDelay) {
+            this.minDelay = minDelay;
+        }
+
+        public long getMinSamples() {
+            return minSamples;
+        }
+
+        public void setMinSamples(long minSamples) {
+            this.minSamples = minSamples;
+        }
+
+        public double getMaxHedgeRatio() {
+            return maxHedgeRatio;
+        }
+
+        public void setMaxHedgeRatio(double maxHedgeRatio) {
+            this.maxHedgeRatio = maxHedgeRatio;
+        }
+
+        public int getMaxBurst() {
+            return maxBurst;
+        }
+
+        public void setMaxBurst(int maxBurst) {
+            this.maxBurst = maxBurst;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+
+        @Override
+        public String getRouteId() {
+            return routeId;
+        }
+
+        @Override
+        public void setRouteId(String routeId) {
+            this.routeId = routeId;
+        }
+    }
+}
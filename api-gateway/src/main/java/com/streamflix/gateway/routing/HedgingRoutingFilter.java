@@ -0,0 +1,254 @@
+package com.streamflix.gateway.routing;
+
+import io.netty.channel.ChannelOption;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.timeout.ReadTimeoutException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyRoutingFilter;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.TimeoutException;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import static org.springframework.cloud.gateway.support.RouteMetadataUtils.CONNECT_TIMEOUT_ATTR;
+import static org.springframework.cloud.gateway.support.RouteMetadataUtils.RESPONSE_TIMEOUT_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.PRESERVE_HOST_HEADER_ATTRIBUTE;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.isAlreadyRouted;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.setAlreadyRouted;
+
+/**
+ * Routing filter that executes hedged GETs for routes with a HedgePolicy.
+ *
+ * Runs just before NettyRoutingFilter. For hedged requests it sends the
+ * primary request itself and, if no response has arrived after the hedge
+ * delay and the budget allows, a duplicate on a separate pooled connection
+ * (which the service's load balancer can place on another instance).
+ * The first response wins and the other request is cancelled.
+ *
+ * Timeouts follow NettyRoutingFilter: the route's connect-timeout and
+ * response-timeout metadata, falling back to spring.cloud.gateway.httpclient;
+ * a timeout set on the Hedging filter overrides the response timeout.
+ *
+ * Like NettyRoutingFilter, this filter only sets the status and headers; the
+ * buffered body is left in an exchange attribute and written by
+ * HedgedResponseWriteFilter once the chain has finished, so outer filters
+ * such as Retry can still act on (and discard) a hedged 5xx. Buffering is
+ * fine for the JSON read endpoints hedging is meant for. Requests without a policy, or while
+ * the policy has too little latency data, go through NettyRoutingFilter.
+ */
+@Slf4j
+@Component
+public class HedgingRoutingFilter implements GlobalFilter, Ordered {
+
+    /**
+     * Buffered body of the winning response, see HedgedResponseWriteFilter.
+     */
+    public static final String HEDGED_RESPONSE_ATTR = HedgingRoutingFilter.class.getName() + ".response";
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final HttpClient httpClient;
+    private final HttpClientProperties properties;
+    private final ObjectProvider<List<HttpHeadersFilter>> headersFiltersProvider;
+    private volatile List<HttpHeadersFilter> headersFilters;
+
+    public HedgingRoutingFilter(HttpClient httpClient, HttpClientProperties properties,
+                                ObjectProvider<List<HttpHeadersFilter>> headersFiltersProvider) {
+        this.httpClient = httpClient;
+        this.properties = properties;
+        this.headersFiltersProvider = headersFiltersProvider;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        // Drop the body of an earlier attempt (Retry runs the chain again)
+        exchange.getAttributes().remove(HEDGED_RESPONSE_ATTR);
+
+        HedgePolicy policy = exchange.getAttribute(HedgingFilter.HEDGE_POLICY_ATTR);
+        URI requestUrl = exchange.getAttribute(GATEWAY_REQUEST_URL_ATTR);
+        if (policy == null || requestUrl == null || isAlreadyRouted(exchange)
+                || !("http".equals(requestUrl.getScheme()) || "https".equals(requestUrl.getScheme()))) {
+            return chain.filter(exchange);
+        }
+
+        policy.onRequest();
+        long delayNanos = policy.hedgeDelayNanos();
+        if (delayNanos < 0) {
+            return chain.filter(exchange);
+        }
+        setAlreadyRouted(exchange);
+
+        DefaultHttpHeaders headers = requestHeaders(exchange);
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        HttpClient client = httpClient(route);
+        Duration timeout = policy.getTimeout() != null ? policy.getTimeout() : responseTimeout(route);
+
+        Mono<UpstreamResponse> primary = send(client, requestUrl, headers, timeout);
+        Mono<UpstreamResponse> hedge = Mono.delay(Duration.ofNanos(delayNanos))
+                .filter(tick -> policy.tryAcquireHedge())
+                .flatMap(tick -> {
+                    policy.hedgesSent.increment();
+                    log.debug("Hedging GET {} after {}ms", requestUrl.getPath(), delayNanos / 1_000_000);
+                    return send(client, requestUrl, headers, timeout)
+                            .doOnNext(response -> policy.hedgesWon.increment());
+                });
+
+        return Mono.firstWithValue(primary, hedge)
+                .onErrorMap(NoSuchElementException.class, HedgingRoutingFilter::unwrap)
+                .doOnNext(upstream -> setResponse(exchange, upstream))
+                .then();
+    }
+
+    private Mono<UpstreamResponse> send(HttpClient client, URI url, DefaultHttpHeaders headers,
+                                        Duration timeout) {
+        HttpClient configured = client.headers(h -> h.set(headers));
+        if (timeout != null) {
+            configured = configured.responseTimeout(timeout);
+        }
+        return configured
+                .get()
+                .uri(url)
+                .responseSingle((response, body) -> body.asByteArray()
+                        .defaultIfEmpty(EMPTY)
+                        .map(bytes -> new UpstreamResponse(response.status().code(),
+                                response.responseHeaders(), bytes)))
+                .onErrorMap(ReadTimeoutException.class,
+                        e -> new TimeoutException("Response took longer than timeout: " + timeout));
+    }
+
+    /**
+     * The route's connect-timeout, as NettyRoutingFilter applies it.
+     */
+    private HttpClient httpClient(Route route) {
+        Object connectTimeout = route != null ? route.getMetadata().get(CONNECT_TIMEOUT_ATTR) : null;
+        if (connectTimeout == null) {
+            return httpClient;
+        }
+        int millis = connectTimeout instanceof Number number
+                ? number.intValue()
+                : Integer.parseInt(connectTimeout.toString());
+        return httpClient.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, millis);
+    }
+
+    /**
+     * The route's response-timeout (negative disables it), otherwise the
+     * global spring.cloud.gateway.httpclient.response-timeout; null means none.
+     */
+    private Duration responseTimeout(Route route) {
+        Object responseTimeout = route != null ? route.getMetadata().get(RESPONSE_TIMEOUT_ATTR) : null;
+        if (responseTimeout instanceof Number number) {
+            long millis = number.longValue();
+            return millis >= 0 ? Duration.ofMillis(millis) : null;
+        }
+        return properties.getResponseTimeout();
+    }
+
+    private DefaultHttpHeaders requestHeaders(ServerWebExchange exchange) {
+        HttpHeaders filtered = HttpHeadersFilter.filterRequest(getHeadersFilters(), exchange);
+        DefaultHttpHeaders headers = new DefaultHttpHeaders();
+        filtered.forEach((name, values) -> {
+            if (!HttpHeaders.HOST.equalsIgnoreCase(name)) {
+                headers.set(name, values);
+            }
+        });
+        if (exchange.getAttributeOrDefault(PRESERVE_HOST_HEADER_ATTRIBUTE, false)) {
+            String host = exchange.getRequest().getHeaders().getFirst(HttpHeaders.HOST);
+            if (host != null) {
+                headers.set(HttpHeaders.HOST, host);
+            }
+        }
+        return headers;
+    }
+
+    private void setResponse(ServerWebExchange exchange, UpstreamResponse upstream) {
+        HttpHeaders headers = new HttpHeaders();
+        for (Map.Entry<String, String> header : upstream.headers) {
+            headers.add(header.getKey(), header.getValue());
+        }
+        HttpHeaders filtered = HttpHeadersFilter.filter(getHeadersFilters(), headers, exchange,
+                HttpHeadersFilter.Type.RESPONSE);
+
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatusCode.valueOf(upstream.status));
+        response.getHeaders().putAll(filtered);
+        response.getHeaders().remove(HttpHeaders.TRANSFER_ENCODING);
+        response.getHeaders().setContentLength(upstream.body.length);
+        exchange.getAttributes().put(HEDGED_RESPONSE_ATTR, new HedgedResponse(response, upstream.body));
+    }
+
+    private List<HttpHeadersFilter> getHeadersFilters() {
+        if (headersFilters == null) {
+            headersFilters = headersFiltersProvider.getIfAvailable(Collections::emptyList);
+        }
+        return headersFilters;
+    }
+
+    /**
+     * Both attempts failed (or the hedge was never sent): surface the
+     * first real error so GatewayExceptionHandler maps it as usual.
+     */
+    private static Throwable unwrap(NoSuchElementException e) {
+        if (e.getCause() != null) {
+            List<Throwable> errors = Exceptions.unwrapMultiple(e.getCause());
+            if (!errors.isEmpty()) {
+                return errors.get(0);
+            }
+        }
+        return e.getSuppressed().length > 0 ? e.getSuppressed()[0] : e;
+    }
+
+    @Override
+    public int getOrder() {
+        return NettyRoutingFilter.ORDER - 1;
+    }
+
+    /**
+     * Body to write, and the response (as decorated at routing time) to write it to.
+     */
+    static final class HedgedResponse {
+        private final ServerHttpResponse response;
+        private final byte[] body;
+
+        HedgedResponse(ServerHttpResponse response, byte[] body) {
+            this.response = response;
+            this.body = body;
+        }
+
+        Mono<Void> write() {
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+        }
+    }
+
+    private static final class UpstreamResponse {
+        private final int status;
+        private final io.netty.handler.codec.http.HttpHeaders headers;
+        private final byte[] body;
+
+        UpstreamResponse(int status, io.netty.handler.codec.http.HttpHeaders headers, byte[] body) {
+            this.status = status;
+            this.headers = headers;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.streamflix.gateway.security;
+
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.JwkSet;
+import io.jsonwebtoken.security.Jwks;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.security.Key;
+import java.security.PublicKey;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Node-local cache of the auth service's JWT verification keys, by kid.
+ *
+ * The key set is fetched from jwt.jwks.uri at startup and refreshed ahead
+ * of need on a fixed schedule, so token verification only ever reads the
+ * local map. An unknown kid does not block the request: it is rejected and
+ * an early background refresh is triggered (at most once per
+ * jwt.jwks.min-refresh-interval). The auth service publishes new keys
+ * before signing with them, so this only happens on misconfiguration.
+ *
+ * A failed refresh keeps the previous key set.
+ */
+@Slf4j
+@Component
+public class JwksKeyCache {
+
+    private static final Duration FETCH_TIMEOUT = Duration.ofSeconds(5);
+
+    private final WebClient webClient;
+    private final String jwksUri;
+    private final long minRefreshIntervalNanos;
+
+    private volatile Map<String, PublicKey> keys = Collections.emptyMap();
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private final AtomicLong lastRefreshNanos = new AtomicLong(System.nanoTime());
+
+    public JwksKeyCache(
+            WebClient.Builder webClientBuilder,
+            @Value("${jwt.jwks.uri:}") String jwksUri,
+            @Value("${jwt.jwks.min-refresh-interval:30s}") Duration minRefreshInterval) {
+        this.webClient = webClientBuilder.build();
+        this.jwksUri = jwksUri;
+        this.minRefreshIntervalNanos = minRefreshInterval.toNanos();
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!isEnabled()) {
+            log.info("jwt.jwks.uri not set, only legacy HS256 tokens can be verified");
+            return;
+        }
+        // Startup only: give the first fetch a chance before traffic arrives
+        refresh().block(FETCH_TIMEOUT.plusSeconds(1));
+    }
+
+    @Scheduled(fixedRateString = "${jwt.jwks.refresh-interval-ms:300000}",
+            initialDelayString = "${jwt.jwks.refresh-interval-ms:300000}")
+    public void scheduledRefresh() {
+        if (isEnabled()) {
+            refresh().subscribe();
+        }
+    }
+
+    /**
+     * Verification key for a kid, or null if unknown (which schedules an early refresh).
+     */
+    public PublicKey getKey(String kid) {
+        PublicKey key = keys.get(kid);
+        if (key == null && isEnabled()
+                && System.nanoTime() - lastRefreshNanos.get() >= minRefreshIntervalNanos) {
+            log.info("Unknown JWT key ID {}, refreshing key set", kid);
+            refresh().subscribe();
+        }
+        return key;
+    }
+
+    public boolean isEnabled() {
+        return jwksUri != null && !jwksUri.isBlank();
+    }
+
+    private Mono<Void> refresh() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return Mono.empty();
+        }
+        lastRefreshNanos.set(System.nanoTime());
+        return webClient.get()
+                .uri(jwksUri)
+                .retrieve()
+                .bodyToMono(String.class)
+                .timeout(FETCH_TIMEOUT)
+                .map(JwksKeyCache::parse)
+                .doOnNext(parsed -> {
+                    if (parsed.isEmpty()) {
+                        log.warn("JWKS at {} contained no usable keys, keeping {} cached keys",
+                                jwksUri, keys.size());
+                        return;
+                    }
+                    if (!parsed.keySet().equals(keys.keySet())) {
+                        log.info("JWT verification keys updated: {}", parsed.keySet());
+                    }
+                    keys = parsed;
+                })
+                .onErrorResume(e -> {
+                    log.warn("JWKS refresh from {} failed, keeping {} cached keys: {}",
+                            jwksUri, keys.size(), e.getMessage());
+                    return Mono.empty();
+                })
+                .doFinally(signal -> refreshing.set(false))
+                .then();
+    }
+
+    private static Map<String, PublicKey> parse(String json) {
+        JwkSet jwkSet = Jwks.setParser().build().parse(json);
+        Map<String, PublicKey> parsed = new HashMap<>();
+        for (Jwk<?> jwk : jwkSet.getKeys()) {
+            Key key = jwk.toKey();
+            if (jwk.getId() != null && key instanceof PublicKey publicKey) {
+                parsed.put(jwk.getId(), publicKey);
+            }
+        }
+        return Collections.unmodifiableMap(parsed);
+    }
+}
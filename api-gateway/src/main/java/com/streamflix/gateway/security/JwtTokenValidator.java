@@ -1,10 +1,17 @@
 package com.streamflix.gateway.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.streamflix.common.security.SecurityConstants;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwsHeader;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.security.Keys;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -14,9 +21,15 @@ import reactor.core.publisher.Mono;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.util.Base64;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * JWT Token Validator for the API Gateway.
@@ -27,32 +40,129 @@ import java.util.List;
  * - Extract claims for downstream propagation
  *
  * Security Considerations:
- * - Uses HS256 with 256-bit secret (production should use RS256)
+ * - Verifies EdDSA/RS256 tokens against the auth service's published keys,
+ *   looked up by kid in the node-local JwksKeyCache (never fetched inline)
+ * - Legacy HS256 tokens without a kid are accepted with the shared secret
+ *   while jwt.legacy-hs256-verification is on
  * - Blacklist stored in Redis with TTL matching token expiration
+ * - Each node fronts the blacklist with a local revocation filter
+ *   (see RevokedTokenRegistry); Redis is only consulted on a filter hit
  * - Clock skew tolerance of 60 seconds
+ *
+ * Performance:
+ * - A single prebuilt parser is shared across requests (parsers are immutable)
+ * - Verified claims are cached by SHA-256 digest of the token until the token's
+ *   own expiration, so repeat requests with the same token skip signature checks
+ * - Raw tokens are never held in memory as cache keys
  */
 @Slf4j
 @Component
 public class JwtTokenValidator {
 
-    private final SecretKey secretKey;
+    private final SecretKey legacySecretKey;
+    private final JwksKeyCache jwksKeyCache;
+    private final JwtParser jwtParser;
+    private final Cache<String, Claims> claimsCache;
     private final ReactiveRedisTemplate<String, String> redisTemplate;
+    private final RevokedTokenRegistry revokedTokenRegistry;
 
-    private static final String BLACKLIST_PREFIX = "jwt:blacklist:";
+    private static final String BLACKLIST_PREFIX = RevokedTokenRegistry.BLACKLIST_PREFIX;
+    private static final long CLOCK_SKEW_SECONDS = 60;
+    private static final long DEFAULT_CACHE_MAX_SIZE = 100_000;
 
     public JwtTokenValidator(
             @Value("${jwt.secret}") String secret,
-            ReactiveRedisTemplate<String, String> redisTemplate) {
-        this.secretKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+            @Value("${jwt.verification-cache.max-size:100000}") long cacheMaxSize,
+            @Value("${jwt.legacy-hs256-verification:true}") boolean legacyVerification,
+            JwksKeyCache jwksKeyCache,
+            ReactiveRedisTemplate<String, String> redisTemplate,
+            RevokedTokenRegistry revokedTokenRegistry) {
+        this.legacySecretKey = legacyVerification
+                ? Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8))
+                : null;
+        this.jwksKeyCache = jwksKeyCache;
+        this.jwtParser = buildParser();
+        this.claimsCache = buildClaimsCache(cacheMaxSize);
         this.redisTemplate = redisTemplate;
+        this.revokedTokenRegistry = revokedTokenRegistry;
     }
 
     // Constructor for testing without Redis
     public JwtTokenValidator() {
-        this.secretKey = Keys.hmacShaKeyFor(
+        this.legacySecretKey = Keys.hmacShaKeyFor(
                 "your-256-bit-secret-key-for-development-only-change-in-production"
                         .getBytes(StandardCharsets.UTF_8));
+        this.jwksKeyCache = null;
+        this.jwtParser = buildParser();
+        this.claimsCache = buildClaimsCache(DEFAULT_CACHE_MAX_SIZE);
         this.redisTemplate = null;
+        this.revokedTokenRegistry = null;
+    }
+
+    private JwtParser buildParser() {
+        return Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(JwsHeader header) {
+                        return verificationKey(header);
+                    }
+                })
+                .clockSkewSeconds(CLOCK_SKEW_SECONDS)  // Allow 60 seconds clock skew
+                .build();
+    }
+
+    /**
+     * Cached public key for the token's kid; the legacy HMAC secret for
+     * HS256 tokens without a kid (if still enabled).
+     */
+    private Key verificationKey(JwsHeader header) {
+        String kid = header.getKeyId();
+        if (kid != null) {
+            PublicKey key = jwksKeyCache != null ? jwksKeyCache.getKey(kid) : null;
+            if (key == null) {
+                throw new UnsupportedJwtException("Unknown signing key: " + kid);
+            }
+            return key;
+        }
+        String algorithm = header.getAlgorithm();
+        if (legacySecretKey != null && algorithm != null && algorithm.startsWith("HS")) {
+            return legacySecretKey;
+        }
+        throw new UnsupportedJwtException("Token has no key ID");
+    }
+
+    /**
+     * Bounded cache of verified claims. Each entry lives until its token's
+     * {@code exp} claim, so an expired token is always re-parsed (and rejected)
+     * instead of being served from the cache.
+     */
+    private static Cache<String, Claims> buildClaimsCache(long maxSize) {
+        return Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, Claims>() {
+                    @Override
+                    public long expireAfterCreate(String key, Claims claims, long currentTime) {
+                        Date expiration = claims.getExpiration();
+                        if (expiration == null) {
+                            return 0;
+                        }
+                        long ttlMillis = expiration.getTime() - System.currentTimeMillis();
+                        return ttlMillis > 0 ? TimeUnit.MILLISECONDS.toNanos(ttlMillis) : 0;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Claims claims,
+                                                  long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, claims, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Claims claims,
+                                                long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
     }
 
     /**
@@ -78,6 +188,12 @@ public class JwtTokenValidator {
         if (redisTemplate != null) {
             String jti = claims.getId();
             if (jti != null) {
+                // Local revocation filter: a miss is definitive, no Redis round-trip needed
+                if (revokedTokenRegistry != null && !revokedTokenRegistry.mightBeRevoked(jti)) {
+                    return Mono.just(TokenValidationResult.valid(claims));
+                }
+                boolean localFilterHit = revokedTokenRegistry != null && revokedTokenRegistry.isSynced();
+
                 return redisTemplate.hasKey(BLACKLIST_PREFIX + jti)
                         .flatMap(isBlacklisted -> {
                             if (Boolean.TRUE.equals(isBlacklisted)) {
@@ -87,8 +203,14 @@ public class JwtTokenValidator {
                             return Mono.just(TokenValidationResult.valid(claims));
                         })
                         .onErrorResume(e -> {
+                            if (localFilterHit) {
+                                // Fail closed - the local filter says this token was probably revoked
+                                log.warn("Redis error confirming revocation of token {}, rejecting: {}",
+                                        jti, e.getMessage());
+                                return Mono.just(TokenValidationResult.revoked());
+                            }
                             log.warn("Redis error during blacklist check, allowing token: {}", e.getMessage());
-                            // Fail open - if Redis is down, allow the token
+                            // Fail open - if Redis is down and no local state, allow the token
                             return Mono.just(TokenValidationResult.valid(claims));
                         });
             }
@@ -100,15 +222,34 @@ public class JwtTokenValidator {
     /**
      * Parse a JWT token and extract claims.
      *
+     * Previously verified tokens are served from the claims cache; only a
+     * cache miss pays for signature verification.
+     *
      * @throws JwtException if token is invalid
      */
     public Claims parseToken(String token) {
-        return Jwts.parser()
-                .verifyWith(secretKey)
-                .clockSkewSeconds(60)  // Allow 60 seconds clock skew
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        String cacheKey = digest(token);
+        Claims cached = claimsCache.getIfPresent(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+
+        Claims claims = jwtParser.parseSignedClaims(token).getPayload();
+        if (claims.getExpiration() != null) {
+            claimsCache.put(cacheKey, claims);
+        }
+        return claims;
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is mandated by the Java platform specification
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 
     /**
@@ -153,7 +294,7 @@ public class JwtTokenValidator {
     }
 
     /**
-     * Blacklist a token (for logout).
+     * Blacklist a token (for logout, see RevokeOnLogoutFilter).
      * Token is stored in Redis until it would naturally expire.
      */
     public Mono<Boolean> blacklistToken(String token) {
@@ -169,9 +310,17 @@ public class JwtTokenValidator {
             if (jti != null && expiration != null) {
                 long ttlSeconds = (expiration.getTime() - System.currentTimeMillis()) / 1000;
                 if (ttlSeconds > 0) {
-                    return redisTemplate.opsForValue()
+                    Mono<Boolean> stored = redisTemplate.opsForValue()
                             .set(BLACKLIST_PREFIX + jti, "revoked",
-                                    java.time.Duration.ofSeconds(ttlSeconds))
+                                    java.time.Duration.ofSeconds(ttlSeconds));
+                    if (revokedTokenRegistry == null) {
+                        return stored.thenReturn(true);
+                    }
+                    revokedTokenRegistry.recordRevocation(jti);
+                    // Publish only after the key is stored, so a node rebuilding
+                    // its filter from Redis cannot miss this revocation
+                    return stored
+                            .then(revokedTokenRegistry.publishRevocation(jti))
                             .thenReturn(true);
                 }
             }
@@ -0,0 +1,118 @@
+package com.streamflix.gateway.security;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Precompiled matcher for paths that bypass authentication.
+ *
+ * Patterns are compiled once into a character trie:
+ * - "/api/v1/auth/login" matches that exact path only
+ * - "/swagger-ui/**" matches any path starting with "/swagger-ui"
+ *
+ * Matching walks the trie one character at a time and allocates nothing,
+ * so it is safe to call on every request.
+ *
+ * Shared by JwtAuthenticationFilter, RequireProfileFilter and RequireRoleFilter
+ * so that all three agree on what is public.
+ */
+public final class PublicPathMatcher {
+
+    private static final String WILDCARD_SUFFIX = "/**";
+
+    private final Node root = new Node();
+    private final Set<String> patterns;
+
+    public PublicPathMatcher(String[] patterns) {
+        this(Arrays.asList(patterns));
+    }
+
+    public PublicPathMatcher(Collection<String> patterns) {
+        this.patterns = new LinkedHashSet<>();
+        for (String pattern : patterns) {
+            if (pattern == null || pattern.isBlank()) {
+                continue;
+            }
+            String trimmed = pattern.trim();
+            this.patterns.add(trimmed);
+            if (trimmed.endsWith(WILDCARD_SUFFIX)) {
+                insert(trimmed.substring(0, trimmed.length() - WILDCARD_SUFFIX.length()), true);
+            } else {
+                insert(trimmed, false);
+            }
+        }
+    }
+
+    /**
+     * Check whether a request path is public.
+     */
+    public boolean isPublic(String path) {
+        Node node = root;
+        int length = path.length();
+        for (int i = 0; i < length; i++) {
+            if (node.prefix) {
+                return true;
+            }
+            node = node.child(path.charAt(i));
+            if (node == null) {
+                return false;
+            }
+        }
+        return node.exact || node.prefix;
+    }
+
+    /**
+     * Source patterns this matcher was compiled from.
+     */
+    public Set<String> getPatterns() {
+        return patterns;
+    }
+
+    private void insert(String path, boolean prefix) {
+        Node node = root;
+        for (int i = 0; i < path.length(); i++) {
+            node = node.getOrCreateChild(path.charAt(i));
+        }
+        if (prefix) {
+            node.prefix = true;
+        } else {
+            node.exact = true;
+        }
+    }
+
+    /**
+     * Trie node with children kept in small parallel arrays.
+     * Public paths share long prefixes, so fan-out per node is tiny.
+     */
+    private static final class Node {
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private boolean exact;
+        private boolean prefix;
+
+        Node child(char c) {
+            char[] k = keys;
+            for (int i = 0; i < k.length; i++) {
+                if (k[i] == c) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        Node getOrCreateChild(char c) {
+            Node existing = child(c);
+            if (existing != null) {
+                return existing;
+            }
+            Node created = new Node();
+            keys = Arrays.copyOf(keys, keys.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            keys[keys.length - 1] = c;
+            children[children.length - 1] = created;
+            return created;
+        }
+    }
+}
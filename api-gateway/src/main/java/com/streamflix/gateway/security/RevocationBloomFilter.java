@@ -0,0 +1,71 @@
+package com.streamflix.gateway.security;
+
+import com.streamflix.common.util.HashUtils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free Bloom filter over revoked token IDs (JTIs).
+ *
+ * A negative answer is definitive: the JTI was never added. A positive
+ * answer only means "maybe", and must be confirmed against Redis.
+ *
+ * Sizing follows the standard formulas:
+ * - bits   m = -n * ln(p) / (ln 2)^2
+ * - hashes k = (m / n) * ln 2
+ *
+ * The k indexes are derived from the two halves of one HashUtils.hash64
+ * value (Kirsch-Mitzenmacher double hashing).
+ */
+final class RevocationBloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long numBits;
+    private final int numHashes;
+
+    RevocationBloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1, expectedInsertions);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.max(1, (m + 63) / 64);
+        this.bits = new AtomicLongArray(words);
+        this.numBits = (long) words * 64;
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / n * Math.log(2)));
+    }
+
+    void put(String jti) {
+        long hash = HashUtils.hash64(jti);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= numHashes; i++) {
+            long bit = index(h1 + i * h2);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            do {
+                current = bits.get(word);
+                if ((current & mask) != 0) {
+                    break;
+                }
+            } while (!bits.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    boolean mightContain(String jti) {
+        long hash = HashUtils.hash64(jti);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= numHashes; i++) {
+            long bit = index(h1 + i * h2);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long index(int combinedHash) {
+        // Flip negative values so every index lands in [0, numBits)
+        int positive = combinedHash < 0 ? ~combinedHash : combinedHash;
+        return positive % numBits;
+    }
+}
@@ -0,0 +1,201 @@
+package com.streamflix.gateway.security;
+
+import com.streamflix.common.security.SecurityConstants;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.ReactiveSubscription;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Node-local view of revoked JWTs, used to keep Redis off the request path.
+ *
+ * Each gateway node holds a Bloom filter of revoked JTIs. Only a filter hit
+ * requires a Redis lookup; the vast majority of tokens (never revoked) are
+ * cleared with a local bit check.
+ *
+ * Consistency:
+ * - On startup (and after any subscription loss) the filter is rebuilt from
+ *   the jwt:blacklist:* keys in Redis, after the revocation channel is live
+ * - Revocations published on the jwt:revocations channel are added as they arrive
+ * - The filter is periodically rebuilt so expired revocations age out
+ * - Only one rebuild runs at a time; a rebuild requested meanwhile (e.g. after
+ *   the feed reconnects) runs again once the current one finishes
+ * - Until the first successful sync, every lookup reports "maybe revoked",
+ *   so behaviour falls back to a plain Redis check
+ */
+@Slf4j
+@Component
+public class RevokedTokenRegistry {
+
+    public static final String REVOCATION_CHANNEL = "jwt:revocations";
+    static final String BLACKLIST_PREFIX = SecurityConstants.TOKEN_BLACKLIST_PREFIX;
+
+    private final ReactiveRedisTemplate<String, String> redisTemplate;
+    private final ReactiveRedisMessageListenerContainer listenerContainer;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+
+    private volatile RevocationBloomFilter filter;
+    private volatile boolean synced = false;
+    private volatile boolean feedLive = false;
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final AtomicBoolean rebuildRequested = new AtomicBoolean();
+
+    // Filter being rebuilt; revocations received mid-rebuild are written to both
+    private RevocationBloomFilter pending;
+    private Disposable subscription;
+
+    public RevokedTokenRegistry(
+            ReactiveRedisTemplate<String, String> redisTemplate,
+            @Value("${jwt.revocation.expected-insertions:100000}") long expectedInsertions,
+            @Value("${jwt.revocation.false-positive-rate:0.001}") double falsePositiveRate) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = new ReactiveRedisMessageListenerContainer(redisTemplate.getConnectionFactory());
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new RevocationBloomFilter(expectedInsertions, falsePositiveRate);
+    }
+
+    @PostConstruct
+    public void start() {
+        subscription = Flux.defer(() -> listenerContainer.receiveLater(ChannelTopic.of(REVOCATION_CHANNEL)))
+                // Channel is live at this point, so a rebuild cannot miss a revocation
+                .flatMap(messages -> {
+                    feedLive = true;
+                    return Flux.merge(
+                            messages.map(ReactiveSubscription.Message::getMessage)
+                                    .doOnNext(this::recordRevocation)
+                                    .then(),
+                            rebuild());
+                })
+                .concatWith(Mono.error(new IllegalStateException("Revocation channel closed")))
+                .doOnError(e -> {
+                    feedLive = false;
+                    synced = false;
+                    log.warn("Revocation feed lost, falling back to Redis lookups: {}", e.getMessage());
+                })
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                        .maxBackoff(Duration.ofSeconds(30)))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+        listenerContainer.destroy();
+    }
+
+    /**
+     * Periodic rebuild so that revocations whose tokens have expired
+     * (and whose Redis keys are gone) no longer occupy filter bits.
+     */
+    @Scheduled(fixedRateString = "${jwt.revocation.rebuild-interval-ms:600000}",
+               initialDelayString = "${jwt.revocation.rebuild-interval-ms:600000}")
+    public void scheduledRebuild() {
+        if (synced) {
+            rebuild().onErrorResume(e -> Mono.empty()).subscribe();
+        }
+    }
+
+    /**
+     * Whether the JTI may be revoked. {@code false} is definitive.
+     */
+    public boolean mightBeRevoked(String jti) {
+        return !synced || filter.mightContain(jti);
+    }
+
+    /**
+     * Whether the local filter currently reflects Redis.
+     */
+    public boolean isSynced() {
+        return synced;
+    }
+
+    /**
+     * Add a revocation to the local filter.
+     */
+    public synchronized void recordRevocation(String jti) {
+        filter.put(jti);
+        if (pending != null) {
+            pending.put(jti);
+        }
+    }
+
+    /**
+     * Notify all gateway nodes of a revocation.
+     */
+    public Mono<Long> publishRevocation(String jti) {
+        return redisTemplate.convertAndSend(REVOCATION_CHANNEL, jti);
+    }
+
+    /**
+     * Rebuild the filter from Redis, or have the running rebuild repeat once
+     * it finishes. The repeat matters after a reconnect: a scan that started
+     * while the feed was down may have missed revocations.
+     */
+    private Mono<Void> rebuild() {
+        return Mono.defer(() -> {
+            rebuildRequested.set(true);
+            if (!rebuilding.compareAndSet(false, true)) {
+                return Mono.empty();
+            }
+            return Mono.defer(this::scan)
+                    .repeat(rebuildRequested::get)
+                    .then()
+                    .doFinally(signal -> {
+                        rebuilding.set(false);
+                        // Requested between the last repeat check and the flag reset
+                        if (rebuildRequested.get()) {
+                            rebuild().onErrorResume(e -> Mono.empty()).subscribe();
+                        }
+                    });
+        });
+    }
+
+    private Mono<Void> scan() {
+        rebuildRequested.set(false);
+        RevocationBloomFilter fresh = new RevocationBloomFilter(expectedInsertions, falsePositiveRate);
+        synchronized (this) {
+            pending = fresh;
+        }
+        return redisTemplate.scan(ScanOptions.scanOptions()
+                        .match(BLACKLIST_PREFIX + "*")
+                        .count(1000)
+                        .build())
+                .doOnNext(key -> fresh.put(key.substring(BLACKLIST_PREFIX.length())))
+                .count()
+                .doOnSuccess(count -> {
+                    synchronized (this) {
+                        filter = fresh;
+                        pending = null;
+                    }
+                    // A scan that finished after the feed dropped is not a sync
+                    synced = feedLive;
+                    log.info("Revocation filter rebuilt with {} revoked tokens", count);
+                })
+                .doOnError(e -> {
+                    synchronized (this) {
+                        pending = null;
+                    }
+                    log.warn("Revocation filter rebuild failed: {}", e.getMessage());
+                })
+                .then();
+    }
+}
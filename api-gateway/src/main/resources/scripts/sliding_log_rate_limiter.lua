@@ -0,0 +1,60 @@
+-- Cost-weighted sliding-log rate limiter.
+--
+-- KEYS[1]  sorted set of admitted requests, scored by admission time (ms)
+-- KEYS[2]  running total of the cost of the requests in KEYS[1]
+-- ARGV[1]  window length in milliseconds
+-- ARGV[2]  maximum total cost admitted within the window
+-- ARGV[3]  cost of this request
+-- ARGV[4]  unique member id for this request
+--
+-- Members are stored as "<id>:<cost>". Only the entries that have just
+-- expired are read back, to subtract their cost from the running total,
+-- so each entry is scanned once rather than once per request in the window.
+--
+-- Returns {allowed (1/0), remaining cost in window}
+
+local log_key = KEYS[1]
+local total_key = KEYS[2]
+local window = tonumber(ARGV[1])
+local limit = tonumber(ARGV[2])
+local cost = tonumber(ARGV[3])
+local member = ARGV[4]
+
+local function entry_cost(entry)
+  return tonumber(string.match(entry, ':(%d+)$')) or 0
+end
+
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+local cutoff = now - window
+
+local expired = redis.call('ZRANGEBYSCORE', log_key, '-inf', cutoff)
+if #expired > 0 then
+  redis.call('ZREMRANGEBYSCORE', log_key, '-inf', cutoff)
+end
+
+local used = tonumber(redis.call('GET', total_key))
+if used == nil then
+  -- No total yet (first request, or the key was evicted): rebuild it once
+  used = 0
+  for _, entry in ipairs(redis.call('ZRANGE', log_key, 0, -1)) do
+    used = used + entry_cost(entry)
+  end
+else
+  for _, entry in ipairs(expired) do
+    used = used - entry_cost(entry)
+  end
+  if used < 0 then
+    used = 0
+  end
+end
+
+if used + cost > limit then
+  redis.call('SET', total_key, used, 'PX', window)
+  return { 0, limit - used }
+end
+
+redis.call('ZADD', log_key, now, member .. ':' .. cost)
+redis.call('PEXPIRE', log_key, window)
+redis.call('SET', total_key, used + cost, 'PX', window)
+return { 1, limit - used - cost }
@@ -0,0 +1,78 @@
+package com.streamflix.gateway.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long THRESHOLD_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long FAST_NANOS = THRESHOLD_NANOS / 10;
+    private static final long SLOW_NANOS = THRESHOLD_NANOS * 5;
+
+    /**
+     * Fill the limit, then release every permit; every slowEvery-th response is slow.
+     */
+    private static void runWindow(AdaptiveConcurrencyLimiter limiter, int slowEvery) throws InterruptedException {
+        // Let the decrease cooldown (one latency threshold) pass
+        Thread.sleep(3);
+        int acquired = 0;
+        while (limiter.tryAcquire()) {
+            acquired++;
+        }
+        for (int i = 0; i < acquired; i++) {
+            boolean slow = slowEvery > 0 && i % slowEvery == 0;
+            limiter.release(slow ? SLOW_NANOS : FAST_NANOS, false);
+        }
+    }
+
+    @Test
+    void limitGoesDownWhenSomeResponsesAreSlow() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(200, 10, 200, 0.9, THRESHOLD_NANOS);
+
+        for (int window = 0; window < 10; window++) {
+            // 10% slow, 90% fast
+            runWindow(limiter, 10);
+        }
+
+        assertThat(limiter.getLimit()).isLessThan(100);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    void limitGrowsWhileAllResponsesAreFast() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 10, 200, 0.9, THRESHOLD_NANOS);
+
+        for (int window = 0; window < 20; window++) {
+            runWindow(limiter, 0);
+        }
+
+        assertThat(limiter.getLimit()).isGreaterThan(10);
+    }
+
+    @Test
+    void failuresShrinkTheLimitAtMostOncePerWindow() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(100, 10, 200, 0.5, THRESHOLD_NANOS);
+        Thread.sleep(3);
+
+        for (int i = 0; i < 20; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+            limiter.release(FAST_NANOS, true);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(50);
+    }
+
+    @Test
+    void neverDropsBelowMinLimit() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 10, 200, 0.5, THRESHOLD_NANOS);
+
+        for (int window = 0; window < 5; window++) {
+            runWindow(limiter, 1);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(10);
+    }
+}
@@ -0,0 +1,99 @@
+package com.streamflix.gateway.ratelimit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CostRateLimiterFilterTest {
+
+    private static CostRateLimiterFilter.Config config() {
+        CostRateLimiterFilter.Config config = new CostRateLimiterFilter.Config();
+        config.setBaseCost(2);
+        config.setItemsPerToken(20);
+        config.setMaxCost(20);
+        config.setBurstCapacity(100);
+        config.setFlatCostPaths(List.of("/api/v1/search/autocomplete"));
+        return config;
+    }
+
+    private static long cost(String uri, CostRateLimiterFilter.Config config) {
+        return CostRateLimiterFilter.computeCost(MockServerHttpRequest.get(uri).build(), config);
+    }
+
+    @Test
+    void chargesBaseCostWithoutSizeParameter() {
+        assertThat(cost("/api/v1/search", config())).isEqualTo(2);
+    }
+
+    @Test
+    void roundsItemsUpToWholeTokens() {
+        assertThat(cost("/api/v1/search?size=1", config())).isEqualTo(3);
+        assertThat(cost("/api/v1/search?size=40", config())).isEqualTo(4);
+        assertThat(cost("/api/v1/search?size=45", config())).isEqualTo(5);
+    }
+
+    @Test
+    void usesFirstPresentSizeParameter() {
+        assertThat(cost("/api/v1/search?limit=100", config())).isEqualTo(7);
+        assertThat(cost("/api/v1/search?size=20&limit=100", config())).isEqualTo(3);
+    }
+
+    @Test
+    void flatCostPathsAlwaysCostOne() {
+        assertThat(cost("/api/v1/search/autocomplete?size=1000", config())).isEqualTo(1);
+    }
+
+    @Test
+    void capsCostAtMaxCost() {
+        assertThat(cost("/api/v1/search?size=100000", config())).isEqualTo(20);
+    }
+
+    @Test
+    void hugeSizesDoNotOverflow() {
+        assertThat(cost("/api/v1/search?size=" + Long.MAX_VALUE, config())).isEqualTo(20);
+        assertThat(cost("/api/v1/search?size=" + (Long.MAX_VALUE - 1), config())).isEqualTo(20);
+
+        CostRateLimiterFilter.Config unbounded = config();
+        unbounded.setMaxCost(Long.MAX_VALUE);
+        unbounded.setBurstCapacity(Integer.MAX_VALUE);
+        assertThat(cost("/api/v1/search?size=" + Long.MAX_VALUE, unbounded)).isEqualTo(Integer.MAX_VALUE);
+    }
+
+    @Test
+    void ignoresNegativeAndMalformedSizes() {
+        assertThat(cost("/api/v1/search?size=-500", config())).isEqualTo(2);
+        assertThat(cost("/api/v1/search?size=lots", config())).isEqualTo(2);
+        assertThat(cost("/api/v1/search?size=99999999999999999999999", config())).isEqualTo(2);
+    }
+
+    @Test
+    void ignoresSizeWhenItemsPerTokenIsUnset() {
+        CostRateLimiterFilter.Config config = config();
+        config.setItemsPerToken(0);
+
+        assertThat(cost("/api/v1/search?size=1000", config)).isEqualTo(2);
+    }
+
+    @Test
+    void capsCostAtBucketSize() {
+        CostRateLimiterFilter.Config tokenBucket = config();
+        tokenBucket.setBurstCapacity(5);
+        assertThat(cost("/api/v1/search?size=1000", tokenBucket)).isEqualTo(5);
+
+        CostRateLimiterFilter.Config slidingLog = config();
+        slidingLog.setMode(CostBasedRateLimiter.Mode.SLIDING_LOG);
+        slidingLog.setWindowLimit(8);
+        assertThat(cost("/api/v1/search?size=1000", slidingLog)).isEqualTo(8);
+    }
+
+    @Test
+    void neverChargesLessThanOne() {
+        CostRateLimiterFilter.Config config = config();
+        config.setBaseCost(0);
+
+        assertThat(cost("/api/v1/search", config)).isEqualTo(1);
+    }
+}
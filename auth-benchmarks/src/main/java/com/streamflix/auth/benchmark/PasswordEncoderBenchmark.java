@@ -0,0 +1,98 @@
+package com.streamflix.auth.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the password encoders auth-service can be configured with.
+ *
+ * Each encoder spec maps to the auth-service settings:
+ * - bcrypt:{strength}                          security.bcrypt.strength
+ * - argon2:{memoryKiB}:{iterations}:{parallelism} security.argon2.*
+ * - pbkdf2:{iterations}                        security.pbkdf2.iterations
+ *
+ * Sample mode reports percentiles, so the p99 of "matches" is the
+ * hashing share of the p99 login latency. Run on the production instance
+ * type, with -t set to security.hashing.threads to include contention:
+ *
+ *   java -jar auth-benchmarks/target/benchmarks.jar PasswordEncoderBenchmark -t 4
+ *   java -jar auth-benchmarks/target/benchmarks.jar PasswordEncoderBenchmark -p encoder=bcrypt:11,argon2:19456:2:1
+ *
+ * Pick the most expensive setting whose p99 fits the login latency
+ * budget, then set security.password.algorithm and its parameters;
+ * existing hashes are upgraded on the next successful login.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class PasswordEncoderBenchmark {
+
+    private static final String PASSWORD = "correct-horse-battery-staple";
+
+    @Param({
+            "bcrypt:10", "bcrypt:11", "bcrypt:12", "bcrypt:13",
+            "argon2:19456:2:1", "argon2:47104:1:1", "argon2:65536:3:1",
+            "pbkdf2:310000", "pbkdf2:600000"
+    })
+    public String encoder;
+
+    private PasswordEncoder passwordEncoder;
+    private String storedHash;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        passwordEncoder = create(encoder);
+        storedHash = passwordEncoder.encode(PASSWORD);
+    }
+
+    /**
+     * Login path: verify a password against a stored hash.
+     */
+    @Benchmark
+    public boolean matches() {
+        return passwordEncoder.matches(PASSWORD, storedHash);
+    }
+
+    /**
+     * Registration and rehash path.
+     */
+    @Benchmark
+    public String encode() {
+        return passwordEncoder.encode(PASSWORD);
+    }
+
+    static PasswordEncoder create(String spec) {
+        String[] parts = spec.split(":");
+        switch (parts[0]) {
+            case "bcrypt":
+                return new BCryptPasswordEncoder(Integer.parseInt(parts[1]));
+            case "argon2":
+                return new Argon2PasswordEncoder(16, 32,
+                        Integer.parseInt(parts[3]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+            case "pbkdf2":
+                return new Pbkdf2PasswordEncoder("", 16, Integer.parseInt(parts[1]),
+                        Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256);
+            default:
+                throw new IllegalArgumentException("Unknown encoder spec: " + spec);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.streamflix.auth;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Streamflix Authentication & Profile Service.
@@ -15,13 +16,14 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  *
  * Security Model:
  * - Passwords hashed with BCrypt (work factor 12)
- * - JWT tokens with RS256/HS256 signing
+ * - JWT tokens signed with rotating EdDSA/RS256 keys, published as JWKS
  * - Refresh token rotation for security
  * - Device tracking for suspicious activity detection
  *
  * @author Streamflix Engineering
  */
 @SpringBootApplication
+@EnableScheduling
 public class AuthServiceApplication {
 
     public static void main(String[] args) {
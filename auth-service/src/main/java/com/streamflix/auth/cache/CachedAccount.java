@@ -0,0 +1,32 @@
+package com.streamflix.auth.cache;
+
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * A user's active profiles, as held by ProfileCache.
+ *
+ * Token claims (email, roles) are deliberately not cached: they are taken
+ * from the caller's token or loaded fresh, so a role change is never
+ * served stale from here.
+ */
+@Getter
+public class CachedAccount {
+
+    private final UUID userId;
+    private final List<CachedProfile> profiles;
+
+    CachedAccount(UUID userId, List<CachedProfile> profiles) {
+        this.userId = userId;
+        this.profiles = List.copyOf(profiles);
+    }
+
+    public Optional<CachedProfile> findProfile(UUID profileId) {
+        return profiles.stream()
+                .filter(profile -> profile.getId().equals(profileId))
+                .findFirst();
+    }
+}
@@ -0,0 +1,46 @@
+package com.streamflix.auth.cache;
+
+import com.streamflix.auth.entity.Profile;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.UUID;
+
+/**
+ * Immutable copy of a profile as held by ProfileCache.
+ *
+ * Carries everything the profile picker and profile selection need,
+ * including the PIN hash, so neither has to reload the entity.
+ */
+@Getter
+@Builder
+public class CachedProfile {
+
+    private final UUID id;
+    private final String name;
+    private final String avatarUrl;
+    private final boolean kids;
+    private final Profile.MaturityRating maturityRating;
+    private final String languagePreference;
+    private final Boolean autoplayNextEpisode;
+    private final Boolean autoplayPreviews;
+    private final String pinHash;
+
+    public boolean isPinProtected() {
+        return pinHash != null && !pinHash.isEmpty();
+    }
+
+    static CachedProfile from(Profile profile) {
+        return CachedProfile.builder()
+                .id(profile.getId())
+                .name(profile.getName())
+                .avatarUrl(profile.getAvatarUrl())
+                .kids(profile.isKids())
+                .maturityRating(profile.getMaturityRating())
+                .languagePreference(profile.getLanguagePreference())
+                .autoplayNextEpisode(profile.getAutoplayNextEpisode())
+                .autoplayPreviews(profile.getAutoplayPreviews())
+                .pinHash(profile.getPinHash())
+                .build();
+    }
+}
@@ -0,0 +1,107 @@
+package com.streamflix.auth.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.streamflix.auth.repository.ProfileRepository;
+import com.streamflix.auth.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Per-node cache of each user's profiles.
+ *
+ * Serves the profile picker (ProfileService.getProfiles) and profile
+ * selection (AuthService.selectProfile) without touching Postgres.
+ * - One entry per user: active profiles with maturity ratings and PIN
+ *   hashes, loaded in one read-only transaction on miss. Roles are not
+ *   cached: no event announces role changes, so profile tokens take them
+ *   from the caller's access token instead
+ * - Changes made on this node invalidate after commit, so a concurrent
+ *   miss cannot reload the pre-commit state
+ * - Other nodes invalidate on the UserEvent the change publishes
+ *   (ProfileCacheInvalidationListener)
+ * - Entries expire after profile.cache.ttl, bounding staleness if an
+ *   event is missed
+ *
+ * Metrics: auth.profile-cache (CaffeineCacheMetrics)
+ */
+@Slf4j
+@Component
+public class ProfileCache {
+
+    private final Cache<UUID, CachedAccount> accounts;
+    private final UserRepository userRepository;
+    private final ProfileRepository profileRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public ProfileCache(
+            UserRepository userRepository,
+            ProfileRepository profileRepository,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${profile.cache.max-users:100000}") long maxUsers,
+            @Value("${profile.cache.ttl:10m}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.profileRepository = profileRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.accounts = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, accounts, "auth.profile-cache");
+    }
+
+    /**
+     * The user's account and profiles, loading them on a miss.
+     * Empty if the user does not exist or is deleted.
+     */
+    public Optional<CachedAccount> get(UUID userId) {
+        return Optional.ofNullable(accounts.get(userId, this::load));
+    }
+
+    public void invalidate(UUID userId) {
+        accounts.invalidate(userId);
+    }
+
+    /**
+     * Invalidate once the current transaction commits (immediately if there is none).
+     */
+    public void invalidateAfterCommit(UUID userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate(userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidate(userId);
+            }
+        });
+    }
+
+    private CachedAccount load(UUID userId) {
+        return readOnlyTransaction.execute(status -> {
+            if (userRepository.findLoginCredentialsById(userId).isEmpty()) {
+                return null;
+            }
+            log.debug("Loading profiles for user {} into cache", userId);
+            return new CachedAccount(userId,
+                    profileRepository.findByUserId(userId).stream()
+                            .map(CachedProfile::from)
+                            .toList());
+        });
+    }
+}
@@ -0,0 +1,41 @@
+package com.streamflix.auth.cache;
+
+import com.streamflix.common.event.UserEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Kafka consumer that invalidates ProfileCache on user and profile changes.
+ *
+ * Every auth-service node holds its own cache, so each node joins with a
+ * unique consumer group and receives every event. Only new events matter,
+ * so a fresh group starts from the latest offset. Login and logout events
+ * change nothing that is cached and are skipped.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProfileCacheInvalidationListener {
+
+    private final ProfileCache profileCache;
+
+    @KafkaListener(
+        topics = UserEvent.TOPIC,
+        groupId = "auth-service-profile-cache-${random.uuid}",
+        autoStartup = "${profile.cache.invalidation.enabled:true}",
+        properties = "auto.offset.reset=latest"
+    )
+    public void handleUserEvent(UserEvent event) {
+        if (event.getUserId() == null
+                || event.getUserEventType() == UserEvent.UserEventType.USER_LOGIN
+                || event.getUserEventType() == UserEvent.UserEventType.USER_LOGOUT) {
+            return;
+        }
+        log.debug("Received user event {} for user {}", event.getUserEventType(), event.getUserId());
+        profileCache.invalidate(UUID.fromString(event.getUserId()));
+    }
+}
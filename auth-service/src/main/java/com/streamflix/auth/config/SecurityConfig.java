@@ -1,31 +1,89 @@
 package com.streamflix.auth.config;
 
+import com.streamflix.common.security.UserContextCodec;
+import com.streamflix.common.security.UserContextFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Security configuration for the Auth Service.
  *
  * Note: JWT validation is handled at the API Gateway level.
  * This service trusts requests that have passed through the gateway
  * (indicated by X-User-ID header).
+ *
+ * The gateway's signed X-User-Context header is verified by the shared
+ * UserContextFilter, which populates UserContextHolder for profile
+ * requests.
  */
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
 
+    /**
+     * Delegating encoder: new hashes use security.password.algorithm and are
+     * stored with an {id} prefix; existing unprefixed hashes are BCrypt.
+     * upgradeEncoding() is true for hashes of another algorithm or a lower
+     * cost, and AuthService rehashes those after a successful login.
+     * Tune the costs with the auth-benchmarks JMH module.
+     */
+    @Bean
+    public PasswordEncoder passwordEncoder(
+            @Value("${security.password.algorithm:bcrypt}") String algorithm,
+            @Value("${security.bcrypt.strength:12}") int bcryptStrength,
+            @Value("${security.argon2.memory-kib:19456}") int argon2MemoryKib,
+            @Value("${security.argon2.iterations:2}") int argon2Iterations,
+            @Value("${security.argon2.parallelism:1}") int argon2Parallelism,
+            @Value("${security.pbkdf2.iterations:310000}") int pbkdf2Iterations) {
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put("bcrypt", new BCryptPasswordEncoder(bcryptStrength));
+        encoders.put("argon2", new Argon2PasswordEncoder(16, 32,
+                argon2Parallelism, argon2MemoryKib, argon2Iterations));
+        encoders.put("pbkdf2", new Pbkdf2PasswordEncoder("", 16, pbkdf2Iterations,
+                Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256));
+        if (!encoders.containsKey(algorithm)) {
+            throw new IllegalArgumentException("Unsupported security.password.algorithm: " + algorithm);
+        }
+
+        DelegatingPasswordEncoder passwordEncoder = new DelegatingPasswordEncoder(algorithm, encoders);
+        // Hashes created before the delegating encoder have no {id} prefix
+        passwordEncoder.setDefaultPasswordEncoderForMatches(encoders.get("bcrypt"));
+        return passwordEncoder;
+    }
+
+    @Bean
+    public UserContextCodec userContextCodec(
+            @Value("${streamflix.user-context.secret}") String secret,
+            @Value("${streamflix.user-context.max-age:60s}") Duration maxAge) {
+        return new UserContextCodec(secret, maxAge);
+    }
+
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        // BCrypt with strength 12 (2^12 iterations)
-        // Good balance between security and performance
-        return new BCryptPasswordEncoder(12);
+    public FilterRegistrationBean<UserContextFilter> userContextFilter(UserContextCodec userContextCodec) {
+        // Paths behind the gateway's JwtAuthentication; /api/v1/auth/* is not
+        FilterRegistrationBean<UserContextFilter> registration =
+                new FilterRegistrationBean<>(new UserContextFilter(userContextCodec, true));
+        registration.addUrlPatterns("/api/v1/profiles/*");
+        // Ahead of the Spring Security filter chain
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
     }
 
     @Bean
@@ -49,7 +107,8 @@ public class SecurityConfig {
                     "/api/v1/auth/reset-password",
                     "/actuator/health",
                     "/actuator/info",
-                    "/actuator/prometheus"
+                    "/actuator/prometheus",
+                    "/.well-known/jwks.json"
                 ).permitAll()
                 // All other endpoints require authentication
                 // (handled by API Gateway via X-User-ID header)
@@ -4,6 +4,7 @@ import com.streamflix.auth.dto.AuthRequest;
 import com.streamflix.auth.dto.AuthResponse;
 import com.streamflix.auth.service.AuthService;
 import com.streamflix.common.dto.ApiResponse;
+import com.streamflix.common.exception.AuthenticationException;
 import com.streamflix.common.security.SecurityConstants;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
@@ -14,7 +15,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
-import java.util.UUID;
 
 /**
  * REST controller for authentication operations.
@@ -90,23 +90,25 @@ public class AuthController {
      */
     @PostMapping("/logout-all")
     public ResponseEntity<ApiResponse<Void>> logoutAll(
-            @RequestHeader(SecurityConstants.USER_ID_HEADER) String userId) {
+            @RequestHeader(SecurityConstants.AUTHORIZATION_HEADER) String authorization) {
 
-        authService.logoutAllDevices(UUID.fromString(userId));
+        authService.logoutAllDevices(authService.authenticatedUserId(bearerToken(authorization)));
 
         return ResponseEntity.ok(ApiResponse.success(null));
     }
 
     /**
      * Select a profile (get new access token with profile context).
+     *
+     * The profile token is derived from the caller's access token, whose
+     * claims (user, email, roles) it carries over.
      */
     @PostMapping("/select-profile")
     public ResponseEntity<ApiResponse<AuthResponse.TokenResponse>> selectProfile(
-            @RequestHeader(SecurityConstants.USER_ID_HEADER) String userId,
+            @RequestHeader(SecurityConstants.AUTHORIZATION_HEADER) String authorization,
             @Valid @RequestBody AuthRequest.SelectProfile request) {
 
-        AuthResponse.TokenResponse response = authService.selectProfile(
-                UUID.fromString(userId), request);
+        AuthResponse.TokenResponse response = authService.selectProfile(bearerToken(authorization), request);
 
         return ResponseEntity.ok(ApiResponse.success(response));
     }
@@ -116,14 +118,26 @@ public class AuthController {
      */
     @GetMapping("/sessions")
     public ResponseEntity<ApiResponse<List<AuthResponse.SessionInfo>>> getSessions(
-            @RequestHeader(SecurityConstants.USER_ID_HEADER) String userId) {
+            @RequestHeader(SecurityConstants.AUTHORIZATION_HEADER) String authorization) {
 
         List<AuthResponse.SessionInfo> sessions = authService.getActiveSessions(
-                UUID.fromString(userId));
+                authService.authenticatedUserId(bearerToken(authorization)));
 
         return ResponseEntity.ok(ApiResponse.success(sessions));
     }
 
+    /**
+     * Token of a Bearer Authorization header. The user is always taken from
+     * the token: this route is not behind the gateway's JwtAuthentication,
+     * so X-User-ID here would be whatever the client sent.
+     */
+    private static String bearerToken(String authorization) {
+        if (!authorization.startsWith(SecurityConstants.BEARER_PREFIX)) {
+            throw AuthenticationException.invalidToken();
+        }
+        return authorization.substring(SecurityConstants.BEARER_PREFIX.length());
+    }
+
     private String getClientIp(HttpServletRequest request) {
         String forwardedFor = request.getHeader("X-Forwarded-For");
         if (forwardedFor != null && !forwardedFor.isEmpty()) {
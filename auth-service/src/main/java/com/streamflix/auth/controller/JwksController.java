@@ -0,0 +1,31 @@
+package com.streamflix.auth.controller;
+
+import com.streamflix.auth.security.SigningKeyStore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Publishes the public JWT verification keys (RFC 7517 JWK Set).
+ *
+ * Verifiers (the API Gateway, other services) cache this document and
+ * refresh it in the background; it is not on any request path.
+ */
+@RestController
+@RequiredArgsConstructor
+public class JwksController {
+
+    private final SigningKeyStore signingKeyStore;
+
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, Object>> getJwks() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(Duration.ofMinutes(5)).cachePublic())
+                .body(signingKeyStore.getJwkSet());
+    }
+}
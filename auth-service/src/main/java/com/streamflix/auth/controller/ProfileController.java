@@ -3,7 +3,7 @@ package com.streamflix.auth.controller;
 import com.streamflix.auth.dto.ProfileDto;
 import com.streamflix.auth.service.ProfileService;
 import com.streamflix.common.dto.ApiResponse;
-import com.streamflix.common.security.SecurityConstants;
+import com.streamflix.common.security.UserContextHolder;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -16,6 +16,9 @@ import java.util.UUID;
 
 /**
  * REST controller for profile management.
+ *
+ * The caller is taken from UserContextHolder, populated by UserContextFilter
+ * from the gateway's X-User-Context header.
  */
 @Slf4j
 @RestController
@@ -29,10 +32,9 @@ public class ProfileController {
      * Get all profiles for the current user.
      */
     @GetMapping
-    public ResponseEntity<ApiResponse<List<ProfileDto.Response>>> getProfiles(
-            @RequestHeader(SecurityConstants.USER_ID_HEADER) String userId) {
+    public ResponseEntity<ApiResponse<List<ProfileDto.Response>>> getProfiles() {
 
-        List<ProfileDto.Response> profiles = profileService.getProfiles(UUID.fromString(userId));
+        List<ProfileDto.Response> profiles = profileService.getProfiles(currentUserId());
 
         return ResponseEntity.ok(ApiResponse.success(profiles));
     }
@@ -42,11 +44,10 @@ public class ProfileController {
      */
     @GetMapping("/{profileId}")
     public ResponseEntity<ApiResponse<ProfileDto.Response>> getProfile(
-            @RequestHeader(SecurityConstants.USER_ID_HEADER) String userId,
             @PathVariable String profileId) {
 
         ProfileDto.Response profile = profileService.getProfile(
-                UUID.fromString(userId), UUID.fromString(profileId));
+                currentUserId(), UUID.fromString(profileId));
 
         return ResponseEntity.ok(ApiResponse.success(profile));
     }
@@ -56,11 +57,10 @@ public class ProfileController {
      */
     @PostMapping
     public ResponseEntity<ApiResponse<ProfileDto.Response>> createProfile(
-            @RequestHeader(SecurityConstants.USER_ID_HEADER) String userId,
             @Valid @RequestBody ProfileDto.CreateRequest request) {
 
         ProfileDto.Response profile = profileService.createProfile(
-                UUID.fromString(userId), request);
+                currentUserId(), request);
 
         return ResponseEntity.status(HttpStatus.CREATED)
                 .body(ApiResponse.success(profile));
@@ -71,12 +71,11 @@ public class ProfileController {
      */
     @PutMapping("/{profileId}")
     public ResponseEntity<ApiResponse<ProfileDto.Response>> updateProfile(
-            @RequestHeader(SecurityConstants.USER_ID_HEADER) String userId,
             @PathVariable String profileId,
             @Valid @RequestBody ProfileDto.UpdateRequest request) {
 
         ProfileDto.Response profile = profileService.updateProfile(
-                UUID.fromString(userId), UUID.fromString(profileId), request);
+                currentUserId(), UUID.fromString(profileId), request);
 
         return ResponseEntity.ok(ApiResponse.success(profile));
     }
@@ -86,10 +85,9 @@ public class ProfileController {
      */
     @DeleteMapping("/{profileId}")
     public ResponseEntity<ApiResponse<Void>> deleteProfile(
-            @RequestHeader(SecurityConstants.USER_ID_HEADER) String userId,
             @PathVariable String profileId) {
 
-        profileService.deleteProfile(UUID.fromString(userId), UUID.fromString(profileId));
+        profileService.deleteProfile(currentUserId(), UUID.fromString(profileId));
 
         return ResponseEntity.ok(ApiResponse.success(null));
     }
@@ -99,11 +97,10 @@ public class ProfileController {
      */
     @PostMapping("/{profileId}/pin")
     public ResponseEntity<ApiResponse<Void>> setProfilePin(
-            @RequestHeader(SecurityConstants.USER_ID_HEADER) String userId,
             @PathVariable String profileId,
             @Valid @RequestBody ProfileDto.SetPinRequest request) {
 
-        profileService.setProfilePin(UUID.fromString(userId), UUID.fromString(profileId), request);
+        profileService.setProfilePin(currentUserId(), UUID.fromString(profileId), request);
 
         return ResponseEntity.ok(ApiResponse.success(null));
     }
@@ -113,11 +110,14 @@ public class ProfileController {
      */
     @DeleteMapping("/{profileId}/pin")
     public ResponseEntity<ApiResponse<Void>> removeProfilePin(
-            @RequestHeader(SecurityConstants.USER_ID_HEADER) String userId,
             @PathVariable String profileId) {
 
-        profileService.removeProfilePin(UUID.fromString(userId), UUID.fromString(profileId));
+        profileService.removeProfilePin(currentUserId(), UUID.fromString(profileId));
 
         return ResponseEntity.ok(ApiResponse.success(null));
     }
+
+    private static UUID currentUserId() {
+        return UUID.fromString(UserContextHolder.requireContext().getUserId());
+    }
 }
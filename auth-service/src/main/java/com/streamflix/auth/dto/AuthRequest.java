@@ -38,6 +38,7 @@ public class AuthRequest {
     public static class Register {
         @NotBlank(message = "Email is required")
         @Email(message = "Invalid email format")
+        @Size(max = 255, message = "Email cannot exceed 255 characters")
         private String email;
 
         @NotBlank(message = "Password is required")
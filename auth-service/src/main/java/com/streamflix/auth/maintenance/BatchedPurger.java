@@ -0,0 +1,125 @@
+package com.streamflix.auth.maintenance;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Deletes rows older than a cutoff in bounded, keyset-paginated batches.
+ *
+ * Each batch is one autocommitted statement that deletes the next
+ * batch-size rows in (time, id) order and returns the last key deleted;
+ * the following batch starts after that key. Walking forward from the
+ * cursor means a run never rescans the dead index entries its own earlier
+ * batches left behind, and a single statement never locks more than
+ * batch-size rows. Batches are separated by a pause and a run stops after
+ * max-batches-per-run, so purging never monopolises the database; whatever
+ * is left is picked up on the next run.
+ *
+ * Whole months past retention are dropped as partitions by
+ * PartitionMaintenance, so this only trims the month at the boundary.
+ *
+ * Metrics:
+ * - auth.maintenance.purged{table} (rows deleted)
+ */
+@Slf4j
+@Component
+public class BatchedPurger {
+
+    // Before any real row: the first batch starts from the oldest row
+    private static final Timestamp START_TIME = Timestamp.from(Instant.EPOCH);
+    private static final UUID START_ID = new UUID(0L, 0L);
+
+    private static final String DELETE_BATCH =
+            "WITH batch AS ("
+            + "SELECT id, %2$s FROM %1$s WHERE %2$s < ? AND (%2$s, id) > (?, ?) ORDER BY %2$s, id LIMIT ?), "
+            + "deleted AS ("
+            + "DELETE FROM %1$s t USING batch WHERE t.id = batch.id AND t.%2$s = batch.%2$s "
+            + "RETURNING t.%2$s, t.id) "
+            + "SELECT %2$s, id, (SELECT COUNT(*) FROM deleted) FROM deleted ORDER BY %2$s DESC, id DESC LIMIT 1";
+
+    private final MeterRegistry meterRegistry;
+    private final int batchSize;
+    private final long pauseMillis;
+    private final int maxBatchesPerRun;
+
+    public BatchedPurger(
+            MeterRegistry meterRegistry,
+            @Value("${maintenance.purge.batch-size:1000}") int batchSize,
+            @Value("${maintenance.purge.pause-ms:100}") long pauseMillis,
+            @Value("${maintenance.purge.max-batches-per-run:500}") int maxBatchesPerRun) {
+        this.meterRegistry = meterRegistry;
+        this.batchSize = batchSize;
+        this.pauseMillis = pauseMillis;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+    }
+
+    /**
+     * Delete rows of the table whose time column is before the cutoff.
+     *
+     * @param jdbcTemplate template on an autocommit connection
+     * @return number of rows deleted
+     */
+    public long purge(JdbcTemplate jdbcTemplate, MaintainedTable table, Instant cutoff) {
+        String sql = String.format(DELETE_BATCH, table.getTableName(), table.getTimeColumn());
+        Timestamp cutoffTime = Timestamp.from(cutoff);
+        Timestamp lastTime = START_TIME;
+        UUID lastId = START_ID;
+        long total = 0;
+
+        for (int i = 0; i < maxBatchesPerRun; i++) {
+            List<BatchResult> results = jdbcTemplate.query(sql,
+                    (rs, rowNum) -> new BatchResult(rs.getTimestamp(1), rs.getObject(2, UUID.class), rs.getLong(3)),
+                    cutoffTime, lastTime, lastId, batchSize);
+            if (results.isEmpty()) {
+                break;
+            }
+
+            BatchResult result = results.get(0);
+            total += result.deleted;
+            lastTime = result.lastTime;
+            lastId = result.lastId;
+            if (result.deleted < batchSize) {
+                break;
+            }
+            if (!pause()) {
+                break;
+            }
+        }
+
+        if (total > 0) {
+            meterRegistry.counter("auth.maintenance.purged", "table", table.getTableName()).increment(total);
+            log.info("Purged {} rows from {} older than {}", total, table.getTableName(), cutoff);
+        }
+        return total;
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(pauseMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static final class BatchResult {
+        private final Timestamp lastTime;
+        private final UUID lastId;
+        private final long deleted;
+
+        BatchResult(Timestamp lastTime, UUID lastId, long deleted) {
+            this.lastTime = lastTime;
+            this.lastId = lastId;
+            this.deleted = deleted;
+        }
+    }
+}
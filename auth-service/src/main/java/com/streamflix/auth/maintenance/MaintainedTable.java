@@ -0,0 +1,24 @@
+package com.streamflix.auth.maintenance;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Time-partitioned tables that are purged by the maintenance job.
+ *
+ * Each is range-partitioned by month on its time column
+ * (V3__partition_tokens_and_login_history.sql).
+ */
+@Getter
+@RequiredArgsConstructor
+public enum MaintainedTable {
+
+    /** Partitioned by expiry; retention counts from expires_at. */
+    REFRESH_TOKENS("refresh_tokens", "expires_at"),
+
+    /** Partitioned by attempt time; retention counts from login_at. */
+    LOGIN_HISTORY("login_history", "login_at");
+
+    private final String tableName;
+    private final String timeColumn;
+}
@@ -0,0 +1,100 @@
+package com.streamflix.auth.maintenance;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Scheduled retention for refresh_tokens and login_history.
+ *
+ * Each run, per table: PartitionMaintenance creates upcoming partitions and
+ * drops months past retention, then BatchedPurger deletes what remains
+ * before the cutoff. Everything runs on one autocommit connection that
+ * holds a Postgres advisory lock, so with several instances only one
+ * maintains at a time and the others skip the run.
+ *
+ * Retention:
+ * - refresh_tokens: maintenance.retention.refresh-tokens after expiry
+ * - login_history: maintenance.retention.login-history after the attempt
+ *
+ * Metrics:
+ * - auth.maintenance.run (run time)
+ */
+@Slf4j
+@Component
+public class MaintenanceScheduler {
+
+    // Arbitrary, fixed key for pg_try_advisory_lock
+    private static final long ADVISORY_LOCK_KEY = 0x5354524d41494e4cL;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PartitionMaintenance partitionMaintenance;
+    private final BatchedPurger batchedPurger;
+    private final Map<MaintainedTable, Duration> retention;
+    private final Timer runTimer;
+
+    public MaintenanceScheduler(
+            JdbcTemplate jdbcTemplate,
+            PartitionMaintenance partitionMaintenance,
+            BatchedPurger batchedPurger,
+            MeterRegistry meterRegistry,
+            @Value("${maintenance.retention.refresh-tokens:30d}") Duration refreshTokenRetention,
+            @Value("${maintenance.retention.login-history:90d}") Duration loginHistoryRetention) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.partitionMaintenance = partitionMaintenance;
+        this.batchedPurger = batchedPurger;
+        this.retention = Map.of(
+                MaintainedTable.REFRESH_TOKENS, refreshTokenRetention,
+                MaintainedTable.LOGIN_HISTORY, loginHistoryRetention);
+        this.runTimer = meterRegistry.timer("auth.maintenance.run");
+    }
+
+    @Scheduled(fixedDelayString = "${maintenance.interval-ms:600000}",
+            initialDelayString = "${maintenance.initial-delay-ms:60000}")
+    public void run() {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(true);
+            JdbcTemplate session = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+            try {
+                Boolean locked = session.queryForObject("SELECT pg_try_advisory_lock(?)", Boolean.class,
+                        ADVISORY_LOCK_KEY);
+                if (!Boolean.TRUE.equals(locked)) {
+                    log.debug("Maintenance already running on another instance");
+                    return null;
+                }
+                try {
+                    runTimer.record(() -> maintainAll(session));
+                } finally {
+                    session.queryForObject("SELECT pg_advisory_unlock(?)", Boolean.class, ADVISORY_LOCK_KEY);
+                }
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+            return null;
+        });
+    }
+
+    private void maintainAll(JdbcTemplate session) {
+        Instant now = Instant.now();
+        for (MaintainedTable table : MaintainedTable.values()) {
+            Instant cutoff = now.minus(retention.get(table));
+            try {
+                partitionMaintenance.maintain(session, table, cutoff);
+                batchedPurger.purge(session, table, cutoff);
+            } catch (RuntimeException e) {
+                log.error("Maintenance of {} failed: {}", table.getTableName(), e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.streamflix.auth.maintenance;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Creates and retires the monthly partitions of the maintained tables.
+ *
+ * Partitions are named {table}_pYYYYMM and cover one UTC calendar month.
+ * - The current month and the next premake-months are created ahead of
+ *   time (there is no default partition, so an insert with no partition
+ *   fails)
+ * - If the next month has no partition when a run starts, earlier runs
+ *   have been failing and inserts are about to fail: that is logged at
+ *   ERROR, and the months-ahead gauge lets alerts fire well before then
+ * - A partition whose whole month is before the retention cutoff is
+ *   detached CONCURRENTLY, which does not block reads or writes on the
+ *   parent, and then dropped; no rows are deleted one by one
+ * - A detach left pending by an interrupted run is finalized first
+ *
+ * Metrics:
+ * - auth.maintenance.partitions.created{table}
+ * - auth.maintenance.partitions.dropped{table}
+ * - auth.maintenance.partitions.months_ahead{table} (full months after the
+ *   current one that have a partition, as of the last run on this
+ *   instance; NaN until it has run here, so alert on the max across
+ *   instances)
+ */
+@Slf4j
+@Component
+public class PartitionMaintenance {
+
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final String LIST_PARTITIONS =
+            "SELECT c.relname, i.inhdetachpending FROM pg_inherits i "
+            + "JOIN pg_class c ON c.oid = i.inhrelid "
+            + "JOIN pg_class p ON p.oid = i.inhparent "
+            + "WHERE p.relname = ?";
+
+    private final MeterRegistry meterRegistry;
+    private final int premakeMonths;
+    private final Map<MaintainedTable, YearMonth> coveredThrough = new ConcurrentHashMap<>();
+
+    public PartitionMaintenance(
+            MeterRegistry meterRegistry,
+            @Value("${maintenance.partitions.premake-months:3}") int premakeMonths) {
+        this.meterRegistry = meterRegistry;
+        this.premakeMonths = premakeMonths;
+
+        for (MaintainedTable table : MaintainedTable.values()) {
+            Gauge.builder("auth.maintenance.partitions.months_ahead", () -> monthsAhead(table))
+                    .tag("table", table.getTableName())
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Create missing partitions and drop those entirely before the cutoff.
+     *
+     * @param jdbcTemplate template on an autocommit connection (DETACH
+     *                     CONCURRENTLY cannot run inside a transaction)
+     */
+    public void maintain(JdbcTemplate jdbcTemplate, MaintainedTable table, Instant cutoff) {
+        String parent = table.getTableName();
+        Pattern namePattern = Pattern.compile(Pattern.quote(parent) + "_p(\\d{6})");
+        List<Partition> partitions = jdbcTemplate.query(LIST_PARTITIONS,
+                (rs, rowNum) -> new Partition(rs.getString(1), rs.getBoolean(2)), parent);
+
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        if (!hasPartition(partitions, parent, current.plusMonths(1))) {
+            log.error("Partition runway of {} exhausted: no partition for {}, earlier maintenance runs have failed",
+                    parent, current.plusMonths(1));
+        }
+        for (int i = 0; i <= premakeMonths; i++) {
+            YearMonth month = current.plusMonths(i);
+            if (!hasPartition(partitions, parent, month)) {
+                // LocalDate binds as a plain date, independent of the JVM time zone
+                String name = jdbcTemplate.queryForObject("SELECT create_monthly_partition(?, ?)", String.class,
+                        parent, month.atDay(1));
+                meterRegistry.counter("auth.maintenance.partitions.created", "table", parent).increment();
+                log.info("Created partition {}", name);
+            }
+        }
+        coveredThrough.put(table, current.plusMonths(premakeMonths));
+
+        for (Partition partition : partitions) {
+            Matcher matcher = namePattern.matcher(partition.name);
+            if (!matcher.matches()) {
+                continue;
+            }
+            Instant monthEnd = YearMonth.parse(matcher.group(1), SUFFIX).plusMonths(1)
+                    .atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+            if (monthEnd.isAfter(cutoff)) {
+                continue;
+            }
+
+            // Names are matched against the pattern above, so they are safe to inline
+            if (partition.detachPending) {
+                jdbcTemplate.execute("ALTER TABLE " + parent + " DETACH PARTITION " + partition.name + " FINALIZE");
+            } else {
+                jdbcTemplate.execute("ALTER TABLE " + parent + " DETACH PARTITION " + partition.name + " CONCURRENTLY");
+            }
+            jdbcTemplate.execute("DROP TABLE " + partition.name);
+            meterRegistry.counter("auth.maintenance.partitions.dropped", "table", parent).increment();
+            log.info("Dropped partition {} (rows before {})", partition.name, monthEnd);
+        }
+    }
+
+    private static boolean hasPartition(List<Partition> partitions, String parent, YearMonth month) {
+        String name = parent + "_p" + month.format(SUFFIX);
+        return partitions.stream().anyMatch(p -> p.name.equals(name));
+    }
+
+    private double monthsAhead(MaintainedTable table) {
+        YearMonth covered = coveredThrough.get(table);
+        if (covered == null) {
+            return Double.NaN;
+        }
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        return current.until(covered, ChronoUnit.MONTHS);
+    }
+
+    private static final class Partition {
+        private final String name;
+        private final boolean detachPending;
+
+        Partition(String name, boolean detachPending) {
+            this.name = name;
+            this.detachPending = detachPending;
+        }
+    }
+}
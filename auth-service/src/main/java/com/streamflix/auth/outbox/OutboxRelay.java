@@ -0,0 +1,323 @@
+package com.streamflix.auth.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.streamflix.common.event.DomainEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.errors.InvalidTopicException;
+import org.apache.kafka.common.errors.RecordTooLargeException;
+import org.apache.kafka.common.errors.SerializationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Publishes event_outbox rows to Kafka.
+ *
+ * Each batch runs in one transaction:
+ * - claim up to batch-size rows in id order with FOR UPDATE SKIP LOCKED,
+ *   so several instances relay disjoint batches without waiting on each
+ *   other
+ * - send them and wait for the acknowledgements, all within send-timeout
+ *   (spring.kafka.producer max.block.ms must not exceed it, or a send
+ *   waiting for metadata blocks past the deadline)
+ * - stop sending at the first transport failure: while Kafka is down the
+ *   rest of the batch would only fail the same way, holding the row locks
+ *   and the transaction open meanwhile; unsent rows are deferred
+ * - delete the acknowledged rows; the rest get their error recorded and
+ *   next_attempt_at pushed back (exponential backoff up to max-backoff)
+ *
+ * Failures are classified before they are counted:
+ * - transport failures (broker unreachable, no acknowledgement in time)
+ *   say nothing about the row and are retried for as long as it takes;
+ *   while Kafka is down events simply accumulate and are delivered once
+ *   it is reachable again
+ * - poison failures (payload that does not deserialize, record Kafka
+ *   rejects outright) count towards max-attempts; a row reaching it is
+ *   moved to event_outbox_dead_letter and logged at ERROR
+ *
+ * Delivery is at least once: a crash between the acknowledgement and the
+ * commit publishes those events again, and consumers dedupe on eventId.
+ *
+ * Metrics:
+ * - auth.outbox.published
+ * - auth.outbox.failed{reason=transport|poison}
+ * - auth.outbox.dead_lettered
+ * - auth.outbox.lag (time from the change's transaction to acknowledgement)
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+
+    private static final String CLAIM_BATCH =
+            "SELECT id, topic, event_key, payload, created_at, attempts, transport_failures FROM event_outbox "
+            + "WHERE next_attempt_at <= CURRENT_TIMESTAMP ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    private static final String DELETE_EVENT = "DELETE FROM event_outbox WHERE id = ?";
+
+    private static final String RECORD_TRANSPORT_FAILURE =
+            "UPDATE event_outbox SET transport_failures = transport_failures + 1, last_error = ?, "
+            + "next_attempt_at = CURRENT_TIMESTAMP + ? * INTERVAL '1 millisecond' WHERE id = ?";
+
+    private static final String RECORD_POISON_FAILURE =
+            "UPDATE event_outbox SET attempts = attempts + 1, last_error = ?, "
+            + "next_attempt_at = CURRENT_TIMESTAMP + ? * INTERVAL '1 millisecond' WHERE id = ?";
+
+    private static final String DEFER_EVENT =
+            "UPDATE event_outbox SET next_attempt_at = CURRENT_TIMESTAMP + ? * INTERVAL '1 millisecond' WHERE id = ?";
+
+    private static final String DEAD_LETTER_EVENT =
+            "INSERT INTO event_outbox_dead_letter (id, topic, event_key, payload, created_at, attempts, last_error) "
+            + "SELECT id, topic, event_key, payload, created_at, attempts + 1, ? FROM event_outbox WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final int maxBatchesPerPoll;
+    private final int maxAttempts;
+    private final Duration sendTimeout;
+    private final Duration backoff;
+    private final Duration maxBackoff;
+
+    private final Counter publishedCounter;
+    private final Counter transportFailedCounter;
+    private final Counter poisonFailedCounter;
+    private final Counter deadLetteredCounter;
+    private final Timer lagTimer;
+
+    public OutboxRelay(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            KafkaTemplate<String, Object> kafkaTemplate,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${outbox.relay.batch-size:500}") int batchSize,
+            @Value("${outbox.relay.max-batches-per-poll:20}") int maxBatchesPerPoll,
+            @Value("${outbox.relay.max-attempts:20}") int maxAttempts,
+            @Value("${outbox.relay.send-timeout:10s}") Duration sendTimeout,
+            @Value("${outbox.relay.backoff:1s}") Duration backoff,
+            @Value("${outbox.relay.max-backoff:1m}") Duration maxBackoff) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.maxBatchesPerPoll = maxBatchesPerPoll;
+        this.maxAttempts = maxAttempts;
+        this.sendTimeout = sendTimeout;
+        this.backoff = backoff;
+        this.maxBackoff = maxBackoff;
+
+        this.publishedCounter = meterRegistry.counter("auth.outbox.published");
+        this.transportFailedCounter = meterRegistry.counter("auth.outbox.failed", "reason", "transport");
+        this.poisonFailedCounter = meterRegistry.counter("auth.outbox.failed", "reason", "poison");
+        this.deadLetteredCounter = meterRegistry.counter("auth.outbox.dead_lettered");
+        this.lagTimer = meterRegistry.timer("auth.outbox.lag");
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.poll-interval-ms:200}")
+    public void relay() {
+        // Keep draining while batches come back full and fully published
+        for (int i = 0; i < maxBatchesPerPoll; i++) {
+            Integer published = transactionTemplate.execute(status -> relayBatch());
+            if (published == null || published < batchSize) {
+                break;
+            }
+        }
+    }
+
+    private int relayBatch() {
+        List<OutboxRecord> records = jdbcTemplate.query(CLAIM_BATCH, (rs, rowNum) -> new OutboxRecord(
+                rs.getLong("id"),
+                rs.getString("topic"),
+                rs.getString("event_key"),
+                rs.getString("payload"),
+                rs.getTimestamp("created_at").toInstant(),
+                rs.getInt("attempts"),
+                rs.getInt("transport_failures")), batchSize);
+        if (records.isEmpty()) {
+            return 0;
+        }
+
+        long deadline = System.nanoTime() + sendTimeout.toNanos();
+        List<CompletableFuture<?>> sends = new ArrayList<>(records.size());
+        for (OutboxRecord record : records) {
+            CompletableFuture<?> send = send(record);
+            sends.add(send);
+            if (isTransportFailure(send) || System.nanoTime() - deadline >= 0) {
+                break;
+            }
+        }
+        // Acknowledgements are awaited below; no flush, which could block past the deadline
+        List<OutboxRecord> deferred = records.subList(sends.size(), records.size());
+
+        List<OutboxRecord> published = new ArrayList<>(records.size());
+        List<OutboxRecord> transportFailed = new ArrayList<>();
+        List<OutboxRecord> poisoned = new ArrayList<>();
+        List<OutboxRecord> deadLettered = new ArrayList<>();
+        for (int i = 0; i < sends.size(); i++) {
+            OutboxRecord record = records.get(i);
+            try {
+                sends.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                published.add(record);
+            } catch (ExecutionException e) {
+                record.error = String.valueOf(e.getCause().getMessage());
+                if (!isPoison(e.getCause())) {
+                    transportFailed.add(record);
+                } else if (record.attempts + 1 >= maxAttempts) {
+                    deadLettered.add(record);
+                } else {
+                    poisoned.add(record);
+                }
+            } catch (TimeoutException e) {
+                record.error = "No acknowledgement within " + sendTimeout;
+                transportFailed.add(record);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                record.error = "Interrupted";
+                transportFailed.add(record);
+            }
+        }
+
+        if (!published.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_EVENT, published, published.size(),
+                    (ps, record) -> ps.setLong(1, record.id));
+            Instant now = Instant.now();
+            published.forEach(record -> lagTimer.record(Duration.between(record.createdAt, now)));
+            publishedCounter.increment(published.size());
+        }
+        if (!transportFailed.isEmpty()) {
+            jdbcTemplate.batchUpdate(RECORD_TRANSPORT_FAILURE, transportFailed, transportFailed.size(), (ps, record) -> {
+                ps.setString(1, truncate(record.error, 1000));
+                ps.setLong(2, backoffMillis(record.transportFailures));
+                ps.setLong(3, record.id);
+            });
+            transportFailedCounter.increment(transportFailed.size());
+            log.warn("Failed to reach Kafka for {} of {} outbox events, retrying with backoff: {}",
+                    transportFailed.size(), records.size(), transportFailed.get(0).error);
+        }
+        if (!deferred.isEmpty()) {
+            // Not sent; retry with the backoff of the failure that stopped the batch
+            long delay = backoffMillis(transportFailed.isEmpty() ? 0 : transportFailed.get(0).transportFailures);
+            jdbcTemplate.batchUpdate(DEFER_EVENT, deferred, deferred.size(), (ps, record) -> {
+                ps.setLong(1, delay);
+                ps.setLong(2, record.id);
+            });
+            log.debug("Deferred {} unsent outbox events by {}ms", deferred.size(), delay);
+        }
+        if (!poisoned.isEmpty()) {
+            jdbcTemplate.batchUpdate(RECORD_POISON_FAILURE, poisoned, poisoned.size(), (ps, record) -> {
+                ps.setString(1, truncate(record.error, 1000));
+                ps.setLong(2, backoffMillis(record.attempts));
+                ps.setLong(3, record.id);
+            });
+            poisonFailedCounter.increment(poisoned.size());
+            log.warn("Failed to publish {} outbox events, first id {}: {}",
+                    poisoned.size(), poisoned.get(0).id, poisoned.get(0).error);
+        }
+        if (!deadLettered.isEmpty()) {
+            jdbcTemplate.batchUpdate(DEAD_LETTER_EVENT, deadLettered, deadLettered.size(), (ps, record) -> {
+                ps.setString(1, truncate(record.error, 1000));
+                ps.setLong(2, record.id);
+            });
+            jdbcTemplate.batchUpdate(DELETE_EVENT, deadLettered, deadLettered.size(),
+                    (ps, record) -> ps.setLong(1, record.id));
+            deadLetteredCounter.increment(deadLettered.size());
+            deadLettered.forEach(record -> log.error(
+                    "Moved outbox event {} (topic {}, key {}) to event_outbox_dead_letter after {} attempts: {}",
+                    record.id, record.topic, record.key, maxAttempts, record.error));
+        }
+        return published.size();
+    }
+
+    /**
+     * Whether a send failed because of the row itself, so retrying it
+     * unchanged cannot succeed.
+     */
+    private static boolean isPoison(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof JsonProcessingException
+                    || cause instanceof SerializationException
+                    || cause instanceof RecordTooLargeException
+                    || cause instanceof InvalidTopicException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether a send already failed for a reason other than the row itself
+     * (e.g. max.block.ms expired waiting for metadata).
+     */
+    private static boolean isTransportFailure(CompletableFuture<?> send) {
+        if (!send.isCompletedExceptionally()) {
+            return false;
+        }
+        try {
+            send.join();
+            return false;
+        } catch (CompletionException | CancellationException e) {
+            return !isPoison(e.getCause() != null ? e.getCause() : e);
+        }
+    }
+
+    private long backoffMillis(int previousFailures) {
+        long delay = backoff.toMillis() << Math.min(previousFailures, 20);
+        return Math.min(delay, maxBackoff.toMillis());
+    }
+
+    private CompletableFuture<?> send(OutboxRecord record) {
+        try {
+            DomainEvent event = objectMapper.readValue(record.payload, DomainEvent.class);
+            return kafkaTemplate.send(record.topic, record.key, event);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value != null && value.length() > maxLength ? value.substring(0, maxLength) : value;
+    }
+
+    private static final class OutboxRecord {
+        private final long id;
+        private final String topic;
+        private final String key;
+        private final String payload;
+        private final Instant createdAt;
+        private final int attempts;
+        private final int transportFailures;
+        private String error;
+
+        OutboxRecord(long id, String topic, String key, String payload, Instant createdAt,
+                     int attempts, int transportFailures) {
+            this.id = id;
+            this.topic = topic;
+            this.key = key;
+            this.payload = payload;
+            this.createdAt = createdAt;
+            this.attempts = attempts;
+            this.transportFailures = transportFailures;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.streamflix.auth.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.streamflix.common.event.DomainEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Appends events to the event_outbox table.
+ *
+ * Must be called inside the transaction that makes the change the event
+ * describes (enforced with MANDATORY propagation): the event is stored if
+ * and only if that transaction commits, and OutboxRelay publishes it
+ * afterwards.
+ */
+@Component
+@RequiredArgsConstructor
+public class OutboxWriter {
+
+    private static final String INSERT_EVENT =
+            "INSERT INTO event_outbox (topic, event_key, payload) VALUES (?, ?, ?::jsonb)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(DomainEvent event) {
+        jdbcTemplate.update(INSERT_EVENT, event.getTopic(), event.getPartitionKey(), toJson(event));
+    }
+
+    private String toJson(DomainEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Event " + event.getEventType() + " is not serializable", e);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.streamflix.auth.repository;
+
+import com.streamflix.auth.entity.User;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Read-only projection of the columns the login path needs.
+ *
+ * Loaded by UserRepository.findLoginCredentials in a single query with
+ * one row per role; no entity is hydrated or tracked.
+ */
+@Getter
+public class LoginCredentials {
+
+    private final UUID id;
+    private final String email;
+    private final String passwordHash;
+    private final Boolean accountLocked;
+    private final Instant lockedUntil;
+    private final Integer failedLoginAttempts;
+    private final String firstName;
+    private final String lastName;
+    private final User.SubscriptionTier subscriptionTier;
+    private final User.SubscriptionStatus subscriptionStatus;
+    private final Boolean emailVerified;
+    private final List<String> roles = new ArrayList<>();
+
+    /**
+     * JPQL constructor expression: one instance per (user, role) row.
+     */
+    public LoginCredentials(UUID id, String email, String passwordHash, Boolean accountLocked,
+                            Instant lockedUntil, Integer failedLoginAttempts, String firstName,
+                            String lastName, User.SubscriptionTier subscriptionTier,
+                            User.SubscriptionStatus subscriptionStatus, Boolean emailVerified,
+                            String roleName) {
+        this.id = id;
+        this.email = email;
+        this.passwordHash = passwordHash;
+        this.accountLocked = accountLocked;
+        this.lockedUntil = lockedUntil;
+        this.failedLoginAttempts = failedLoginAttempts;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.subscriptionTier = subscriptionTier;
+        this.subscriptionStatus = subscriptionStatus;
+        this.emailVerified = emailVerified;
+        if (roleName != null) {
+            roles.add(roleName);
+        }
+    }
+
+    /**
+     * Same rule as User.isLocked: an expired lock no longer applies.
+     */
+    public boolean isLocked() {
+        if (!Boolean.TRUE.equals(accountLocked)) {
+            return false;
+        }
+        return lockedUntil == null || !Instant.now().isAfter(lockedUntil);
+    }
+
+    static LoginCredentials merge(List<LoginCredentials> rows) {
+        LoginCredentials credentials = rows.get(0);
+        for (int i = 1; i < rows.size(); i++) {
+            credentials.roles.addAll(rows.get(i).roles);
+        }
+        return credentials;
+    }
+}
@@ -2,6 +2,7 @@ package com.streamflix.auth.repository;
 
 import com.streamflix.auth.entity.Profile;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -52,6 +53,13 @@ public interface ProfileRepository extends JpaRepository<Profile, UUID> {
     @Query("SELECT CASE WHEN COUNT(p) > 0 THEN true ELSE false END FROM Profile p WHERE p.id = :profileId AND p.user.id = :userId AND p.deletedAt IS NULL")
     boolean belongsToUser(@Param("profileId") UUID profileId, @Param("userId") UUID userId);
 
+    /**
+     * Replace a PIN hash only if it is still the one that was verified.
+     */
+    @Modifying
+    @Query("UPDATE Profile p SET p.pinHash = :newHash WHERE p.id = :id AND p.pinHash = :oldHash")
+    int upgradePinHash(@Param("id") UUID id, @Param("oldHash") String oldHash, @Param("newHash") String newHash);
+
     /**
      * Find kids profiles for a user.
      */
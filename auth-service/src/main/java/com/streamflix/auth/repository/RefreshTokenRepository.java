@@ -30,6 +30,20 @@ public interface RefreshTokenRepository extends JpaRepository<RefreshToken, UUID
     @Query("SELECT rt FROM RefreshToken rt JOIN FETCH rt.user WHERE rt.tokenHash = :tokenHash AND rt.revokedAt IS NULL AND rt.expiresAt > :now")
     Optional<RefreshToken> findValidByTokenHash(@Param("tokenHash") String tokenHash, @Param("now") Instant now);
 
+    /**
+     * Find refresh token by hash without loading the user.
+     */
+    @Query("SELECT rt FROM RefreshToken rt WHERE rt.tokenHash = :tokenHash")
+    Optional<RefreshToken> findSessionByTokenHash(@Param("tokenHash") String tokenHash);
+
+    /**
+     * Revoke a token if it is still valid and belongs to the user.
+     * Returns 0 if another request revoked (e.g. rotated) it first.
+     */
+    @Modifying
+    @Query("UPDATE RefreshToken rt SET rt.revokedAt = :now, rt.revokedReason = :reason WHERE rt.tokenHash = :tokenHash AND rt.user.id = :userId AND rt.revokedAt IS NULL AND rt.expiresAt > :now")
+    int revokeValidByTokenHash(@Param("userId") UUID userId, @Param("tokenHash") String tokenHash, @Param("now") Instant now, @Param("reason") String reason);
+
     /**
      * Find all active refresh tokens for a user.
      */
@@ -50,13 +64,6 @@ public interface RefreshTokenRepository extends JpaRepository<RefreshToken, UUID
     @Query("UPDATE RefreshToken rt SET rt.revokedAt = :revokedAt, rt.revokedReason = :reason WHERE rt.user.id = :userId AND rt.deviceId = :deviceId AND rt.revokedAt IS NULL")
     int revokeByUserIdAndDeviceId(@Param("userId") UUID userId, @Param("deviceId") String deviceId, @Param("revokedAt") Instant revokedAt, @Param("reason") String reason);
 
-    /**
-     * Delete expired tokens (cleanup job).
-     */
-    @Modifying
-    @Query("DELETE FROM RefreshToken rt WHERE rt.expiresAt < :cutoff")
-    int deleteExpired(@Param("cutoff") Instant cutoff);
-
     /**
      * Count active sessions for a user.
      */
@@ -8,6 +8,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -53,6 +54,40 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     @Query("SELECT u FROM User u LEFT JOIN FETCH u.roles WHERE LOWER(u.email) = LOWER(:email) AND u.deletedAt IS NULL")
     Optional<User> findByEmailWithRoles(@Param("email") String email);
 
+    /**
+     * Login projection rows, one per role. Matches idx_users_email_lower.
+     */
+    @Query("SELECT new com.streamflix.auth.repository.LoginCredentials(u.id, u.email, u.passwordHash, "
+            + "u.accountLocked, u.lockedUntil, u.failedLoginAttempts, u.firstName, u.lastName, "
+            + "u.subscriptionTier, u.subscriptionStatus, u.emailVerified, r.name) "
+            + "FROM User u LEFT JOIN u.roles r WHERE LOWER(u.email) = LOWER(:email) AND u.deletedAt IS NULL")
+    List<LoginCredentials> findLoginCredentialRows(@Param("email") String email);
+
+    /**
+     * Login projection rows by user ID, one per role.
+     */
+    @Query("SELECT new com.streamflix.auth.repository.LoginCredentials(u.id, u.email, u.passwordHash, "
+            + "u.accountLocked, u.lockedUntil, u.failedLoginAttempts, u.firstName, u.lastName, "
+            + "u.subscriptionTier, u.subscriptionStatus, u.emailVerified, r.name) "
+            + "FROM User u LEFT JOIN u.roles r WHERE u.id = :id AND u.deletedAt IS NULL")
+    List<LoginCredentials> findLoginCredentialRowsById(@Param("id") UUID id);
+
+    /**
+     * Everything the login path reads, in one query and without loading the entity.
+     */
+    default Optional<LoginCredentials> findLoginCredentials(String email) {
+        List<LoginCredentials> rows = findLoginCredentialRows(email);
+        return rows.isEmpty() ? Optional.empty() : Optional.of(LoginCredentials.merge(rows));
+    }
+
+    /**
+     * Same projection by user ID (token refresh).
+     */
+    default Optional<LoginCredentials> findLoginCredentialsById(UUID id) {
+        List<LoginCredentials> rows = findLoginCredentialRowsById(id);
+        return rows.isEmpty() ? Optional.empty() : Optional.of(LoginCredentials.merge(rows));
+    }
+
     /**
      * Soft delete a user.
      */
@@ -74,6 +109,29 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     @Query("UPDATE User u SET u.failedLoginAttempts = u.failedLoginAttempts + 1 WHERE u.id = :id")
     void incrementFailedLoginAttempts(@Param("id") UUID id);
 
+    /**
+     * Count a failed login and lock the account once maxAttempts is reached,
+     * in one atomic statement.
+     */
+    @Modifying
+    @Query("UPDATE User u SET u.failedLoginAttempts = u.failedLoginAttempts + 1, "
+            + "u.accountLocked = CASE WHEN u.failedLoginAttempts + 1 >= :maxAttempts THEN true ELSE u.accountLocked END, "
+            + "u.lockReason = CASE WHEN u.failedLoginAttempts + 1 >= :maxAttempts THEN :reason ELSE u.lockReason END, "
+            + "u.lockedUntil = CASE WHEN u.failedLoginAttempts + 1 >= :maxAttempts THEN :until ELSE u.lockedUntil END "
+            + "WHERE u.id = :id")
+    void recordFailedLogin(@Param("id") UUID id, @Param("maxAttempts") int maxAttempts,
+                           @Param("reason") String reason, @Param("until") Instant until);
+
+    /**
+     * Clear the failed logins counted before a successful login. Only the
+     * count read at login time is subtracted, so failures recorded
+     * concurrently since then are kept.
+     */
+    @Modifying
+    @Query("UPDATE User u SET u.failedLoginAttempts = CASE WHEN u.failedLoginAttempts > :countAtLogin "
+            + "THEN u.failedLoginAttempts - :countAtLogin ELSE 0 END WHERE u.id = :id")
+    void resetFailedLoginAttempts(@Param("id") UUID id, @Param("countAtLogin") int countAtLogin);
+
     /**
      * Lock user account.
      */
@@ -101,4 +159,12 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     @Modifying
     @Query("UPDATE User u SET u.passwordHash = :passwordHash WHERE u.id = :id")
     void updatePassword(@Param("id") UUID id, @Param("passwordHash") String passwordHash);
+
+    /**
+     * Replace a password hash with a rehash of the same password, unless the
+     * password was changed in the meantime.
+     */
+    @Modifying
+    @Query("UPDATE User u SET u.passwordHash = :newHash WHERE u.id = :id AND u.passwordHash = :oldHash")
+    int upgradePasswordHash(@Param("id") UUID id, @Param("oldHash") String oldHash, @Param("newHash") String newHash);
 }
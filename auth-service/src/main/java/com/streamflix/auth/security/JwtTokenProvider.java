@@ -4,7 +4,12 @@ import com.streamflix.auth.entity.Profile;
 import com.streamflix.auth.entity.User;
 import com.streamflix.common.security.SecurityConstants;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.security.Keys;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -12,6 +17,8 @@ import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.PublicKey;
 import java.time.Instant;
 import java.util.Date;
 import java.util.List;
@@ -28,12 +35,19 @@ import java.util.UUID;
  * - Access tokens expire quickly (1 hour by default)
  * - Refresh tokens stored hashed in DB, can be revoked
  * - Tokens include JTI for blacklisting support
+ * - Tokens are signed with the current asymmetric key from SigningKeyStore
+ *   (EdDSA or RS256) and carry its kid; verifiers fetch the public keys
+ *   from /.well-known/jwks.json
+ * - Legacy HS256 tokens (no kid) are still accepted while
+ *   jwt.legacy-hs256-verification is on, until they have all expired
  */
 @Slf4j
 @Component
 public class JwtTokenProvider {
 
-    private final SecretKey secretKey;
+    private final SecretKey legacySecretKey;
+    private final SigningKeyStore signingKeyStore;
+    private final JwtParser jwtParser;
     private final long accessTokenExpiration;
     private final long refreshTokenExpiration;
     private final String issuer;
@@ -42,8 +56,21 @@ public class JwtTokenProvider {
             @Value("${jwt.secret}") String secret,
             @Value("${jwt.access-token-expiration}") long accessTokenExpiration,
             @Value("${jwt.refresh-token-expiration}") long refreshTokenExpiration,
-            @Value("${jwt.issuer}") String issuer) {
-        this.secretKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+            @Value("${jwt.issuer}") String issuer,
+            @Value("${jwt.legacy-hs256-verification:true}") boolean legacyVerification,
+            SigningKeyStore signingKeyStore) {
+        this.legacySecretKey = legacyVerification
+                ? Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8))
+                : null;
+        this.signingKeyStore = signingKeyStore;
+        this.jwtParser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(JwsHeader header) {
+                        return verificationKey(header);
+                    }
+                })
+                .build();
         this.accessTokenExpiration = accessTokenExpiration;
         this.refreshTokenExpiration = refreshTokenExpiration;
         this.issuer = issuer;
@@ -53,59 +80,107 @@ public class JwtTokenProvider {
      * Generate access token for a user.
      */
     public String generateAccessToken(User user, Profile profile) {
-        Instant now = Instant.now();
-        Instant expiry = now.plusMillis(accessTokenExpiration);
-
         List<String> roles = user.getRoles().stream()
                 .map(role -> role.getName())
                 .toList();
 
+        return generateAccessToken(user.getId(), user.getEmail(), roles,
+                profile != null ? profile.getId() : null);
+    }
+
+    /**
+     * Generate access token from already-loaded claims (no entity needed).
+     */
+    public String generateAccessToken(UUID userId, String email, List<String> roles, UUID profileId) {
+        return generateAccessToken(userId, email, roles, profileId, null);
+    }
+
+    /**
+     * Generate an access token that expires no later than notAfter (if
+     * given), so a token derived from another cannot outlive it.
+     */
+    public String generateAccessToken(UUID userId, String email, List<String> roles, UUID profileId,
+                                      Instant notAfter) {
+        Instant now = Instant.now();
+        Instant expiry = now.plusMillis(accessTokenExpiration);
+        if (notAfter != null && notAfter.isBefore(expiry)) {
+            expiry = notAfter;
+        }
+
         var builder = Jwts.builder()
                 .id(UUID.randomUUID().toString())
-                .subject(user.getEmail())
+                .subject(email)
                 .issuer(issuer)
                 .issuedAt(Date.from(now))
                 .expiration(Date.from(expiry))
-                .claim(SecurityConstants.CLAIM_USER_ID, user.getId().toString())
-                .claim(SecurityConstants.CLAIM_EMAIL, user.getEmail())
+                .claim(SecurityConstants.CLAIM_USER_ID, userId.toString())
+                .claim(SecurityConstants.CLAIM_EMAIL, email)
                 .claim(SecurityConstants.CLAIM_ROLES, roles)
                 .claim(SecurityConstants.CLAIM_TOKEN_TYPE, SecurityConstants.TOKEN_TYPE_ACCESS);
 
-        if (profile != null) {
-            builder.claim(SecurityConstants.CLAIM_PROFILE_ID, profile.getId().toString());
+        if (profileId != null) {
+            builder.claim(SecurityConstants.CLAIM_PROFILE_ID, profileId.toString());
         }
 
-        return builder.signWith(secretKey).compact();
+        return sign(builder);
     }
 
     /**
      * Generate refresh token for a user.
      */
     public String generateRefreshToken(User user) {
+        return generateRefreshToken(user.getId(), user.getEmail());
+    }
+
+    /**
+     * Generate refresh token from already-loaded claims (no entity needed).
+     */
+    public String generateRefreshToken(UUID userId, String email) {
         Instant now = Instant.now();
         Instant expiry = now.plusMillis(refreshTokenExpiration);
 
-        return Jwts.builder()
+        return sign(Jwts.builder()
                 .id(UUID.randomUUID().toString())
-                .subject(user.getEmail())
+                .subject(email)
                 .issuer(issuer)
                 .issuedAt(Date.from(now))
                 .expiration(Date.from(expiry))
-                .claim(SecurityConstants.CLAIM_USER_ID, user.getId().toString())
-                .claim(SecurityConstants.CLAIM_TOKEN_TYPE, SecurityConstants.TOKEN_TYPE_REFRESH)
-                .signWith(secretKey)
+                .claim(SecurityConstants.CLAIM_USER_ID, userId.toString())
+                .claim(SecurityConstants.CLAIM_TOKEN_TYPE, SecurityConstants.TOKEN_TYPE_REFRESH));
+    }
+
+    private String sign(JwtBuilder builder) {
+        SigningKeyStore.SigningKey signingKey = signingKeyStore.getSigningKey();
+        return builder.header().keyId(signingKey.getKid()).and()
+                .signWith(signingKey.getPrivateKey())
                 .compact();
     }
 
+    /**
+     * Public key for the token's kid; the legacy HMAC secret for HS256
+     * tokens without a kid (if still enabled).
+     */
+    private Key verificationKey(JwsHeader header) {
+        String kid = header.getKeyId();
+        if (kid != null) {
+            PublicKey key = signingKeyStore.getPublicKey(kid);
+            if (key == null) {
+                throw new UnsupportedJwtException("Unknown signing key: " + kid);
+            }
+            return key;
+        }
+        String algorithm = header.getAlgorithm();
+        if (legacySecretKey != null && algorithm != null && algorithm.startsWith("HS")) {
+            return legacySecretKey;
+        }
+        throw new UnsupportedJwtException("Token has no key ID");
+    }
+
     /**
      * Parse and validate a token.
      */
     public Claims parseToken(String token) {
-        return Jwts.parser()
-                .verifyWith(secretKey)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return jwtParser.parseSignedClaims(token).getPayload();
     }
 
     /**
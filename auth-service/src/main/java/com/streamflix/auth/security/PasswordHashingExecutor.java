@@ -0,0 +1,210 @@
+package com.streamflix.auth.security;
+
+import com.streamflix.common.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Runs password hashing on a dedicated, bounded pool.
+ *
+ * BCrypt is deliberately slow, so unbounded concurrent hashing on servlet
+ * threads lets a login burst occupy every Tomcat thread. Here at most
+ * security.hashing.threads hashes run at once and at most
+ * security.hashing.queue-capacity wait; everything beyond that is rejected
+ * immediately with 503 SERVICE_UNAVAILABLE, leaving servlet threads free
+ * for profile and refresh requests.
+ *
+ * Features:
+ * - Fast rejection when the queue is full, or when the estimated wait
+ *   (queue depth x average hash time) already exceeds security.hashing.max-wait
+ * - Callers give up after max-wait; abandoned tasks are cancelled before they run
+ * - Best-effort background rehashing, skipped while the pool is under load
+ *
+ * Metrics:
+ * - executor.* {name=password.hashing} (queued, active, pool size, completed)
+ * - auth.password.hashing.wait (time queued before a worker picked the task up)
+ * - auth.password.hashing.duration{operation}
+ * - auth.password.hashing.rejected{reason=queue_full|overloaded|timeout}
+ */
+@Slf4j
+@Component
+public class PasswordHashingExecutor {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final int threads;
+    private final int queueCapacity;
+    private final long maxWaitNanos;
+
+    /** Exponentially weighted average hash duration, for the wait estimate. */
+    private final AtomicLong averageHashNanos = new AtomicLong();
+
+    private final Timer waitTimer;
+    private final Timer matchTimer;
+    private final Timer encodeTimer;
+    private final Counter rejectedQueueFull;
+    private final Counter rejectedOverloaded;
+    private final Counter rejectedTimeout;
+
+    public PasswordHashingExecutor(
+            PasswordEncoder passwordEncoder,
+            MeterRegistry meterRegistry,
+            @Value("${security.hashing.threads:0}") int threads,
+            @Value("${security.hashing.queue-capacity:64}") int queueCapacity,
+            @Value("${security.hashing.max-wait:2s}") Duration maxWait) {
+        this.passwordEncoder = passwordEncoder;
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.queueCapacity = queueCapacity;
+        this.maxWaitNanos = maxWait.toNanos();
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("password-hash-");
+        threadFactory.setDaemon(true);
+        this.executor = new ThreadPoolExecutor(this.threads, this.threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+
+        new ExecutorServiceMetrics(executor, "password.hashing", Tags.empty()).bindTo(meterRegistry);
+        this.waitTimer = Timer.builder("auth.password.hashing.wait")
+                .description("Time a hashing task spent queued")
+                .register(meterRegistry);
+        this.matchTimer = Timer.builder("auth.password.hashing.duration")
+                .tag("operation", "matches")
+                .register(meterRegistry);
+        this.encodeTimer = Timer.builder("auth.password.hashing.duration")
+                .tag("operation", "encode")
+                .register(meterRegistry);
+        this.rejectedQueueFull = rejectedCounter(meterRegistry, "queue_full");
+        this.rejectedOverloaded = rejectedCounter(meterRegistry, "overloaded");
+        this.rejectedTimeout = rejectedCounter(meterRegistry, "timeout");
+
+        log.info("Password hashing executor: {} threads, queue capacity {}, max wait {}",
+                this.threads, queueCapacity, maxWait);
+    }
+
+    /**
+     * Verify a raw password against a stored hash.
+     */
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute(matchTimer, () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Hash a raw password for storage.
+     */
+    public String encode(CharSequence rawPassword) {
+        return execute(encodeTimer, () -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * True if a stored hash uses another algorithm or a lower cost than configured.
+     */
+    public boolean upgradeEncoding(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Hash a password in the background and hand the result to onEncoded
+     * (on the hashing thread). Skipped, returning false, when the queue is
+     * over half full: login traffic has priority over rehashing.
+     */
+    public boolean encodeInBackground(CharSequence rawPassword, Consumer<String> onEncoded) {
+        if (executor.getQueue().size() > queueCapacity / 2) {
+            return false;
+        }
+        try {
+            executor.execute(() -> {
+                long startedAt = System.nanoTime();
+                String encoded = passwordEncoder.encode(rawPassword);
+                encodeTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                try {
+                    onEncoded.accept(encoded);
+                } catch (RuntimeException e) {
+                    log.warn("Background password rehash failed: {}", e.getMessage());
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    private <T> T execute(Timer timer, Supplier<T> task) {
+        long averageNanos = averageHashNanos.get();
+        int queued = executor.getQueue().size();
+        if (averageNanos > 0 && (queued / threads + 1) * averageNanos > maxWaitNanos) {
+            rejectedOverloaded.increment();
+            throw overloaded();
+        }
+
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                waitTimer.record(startedAt - submittedAt, TimeUnit.NANOSECONDS);
+                try {
+                    return task.get();
+                } finally {
+                    long elapsed = System.nanoTime() - startedAt;
+                    timer.record(elapsed, TimeUnit.NANOSECONDS);
+                    averageHashNanos.getAndUpdate(avg -> avg == 0 ? elapsed : avg + ((elapsed - avg) >> 3));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedQueueFull.increment();
+            throw overloaded();
+        }
+
+        try {
+            return future.get(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            rejectedTimeout.increment();
+            throw overloaded();
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw overloaded();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    private static ServiceUnavailableException overloaded() {
+        return new ServiceUnavailableException("password-hashing");
+    }
+
+    private static Counter rejectedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("auth.password.hashing.rejected")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
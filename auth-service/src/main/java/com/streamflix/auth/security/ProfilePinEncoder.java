@@ -0,0 +1,58 @@
+package com.streamflix.auth.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hashes profile PINs with a cheap, peppered KDF.
+ *
+ * A 4-digit PIN has 10,000 values, so a slow hash adds latency without
+ * adding protection; an offline attack is stopped by the server-side
+ * pepper (security.pin.pepper) instead, and online guessing by rate limits.
+ * PINs are stored as {pbkdf2}PBKDF2-HMAC-SHA256 with a low iteration
+ * count and verified inline on the request thread.
+ *
+ * PINs set before this change are plain BCrypt hashes. They are verified
+ * on the PasswordHashingExecutor and should be re-encoded after a
+ * successful match (see needsUpgrade).
+ */
+@Component
+public class ProfilePinEncoder {
+
+    private static final String PREFIX = "{pbkdf2}";
+    private static final int SALT_LENGTH = 16;
+
+    private final Pbkdf2PasswordEncoder pbkdf2;
+    private final PasswordHashingExecutor legacyHashingExecutor;
+
+    public ProfilePinEncoder(
+            @Value("${security.pin.pepper}") String pepper,
+            @Value("${security.pin.iterations:4096}") int iterations,
+            PasswordHashingExecutor legacyHashingExecutor) {
+        this.pbkdf2 = new Pbkdf2PasswordEncoder(pepper, SALT_LENGTH, iterations,
+                Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256);
+        this.legacyHashingExecutor = legacyHashingExecutor;
+    }
+
+    public String encode(CharSequence pin) {
+        return PREFIX + pbkdf2.encode(pin);
+    }
+
+    public boolean matches(CharSequence pin, String pinHash) {
+        if (pinHash == null) {
+            return false;
+        }
+        if (pinHash.startsWith(PREFIX)) {
+            return pbkdf2.matches(pin, pinHash.substring(PREFIX.length()));
+        }
+        return legacyHashingExecutor.matches(pin, pinHash);
+    }
+
+    /**
+     * True for legacy BCrypt PIN hashes that should be re-encoded.
+     */
+    public boolean needsUpgrade(String pinHash) {
+        return pinHash != null && !pinHash.startsWith(PREFIX);
+    }
+}
@@ -0,0 +1,303 @@
+package com.streamflix.auth.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.PublicJwk;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Asymmetric JWT signing keys with rotation.
+ *
+ * Keys are read from jwt.signing.key-dir (e.g. a mounted secret):
+ * - {kid}.pem      PKCS#8 private key (Ed25519 or RSA)
+ * - {kid}.pub.pem  X.509 public key
+ *
+ * Every public key is published in the JWKS; a kid with only a public key
+ * is a retired key kept for verification until its tokens have expired.
+ *
+ * Rotation without coordinated restarts:
+ * 1. Add the new key pair to the directory. It is published on the next
+ *    rescan but not used for signing yet
+ * 2. Once a key has been published for jwt.signing.activation-delay (longer
+ *    than the verifiers' JWKS refresh interval) the newest such key becomes
+ *    the signing key, so every verifier already has it cached
+ * 3. Remove the old private key; remove its public key once the longest
+ *    token lifetime has passed
+ *
+ * Publish time is when this instance first saw the kid, not the file's
+ * mtime: a mounted secret is rewritten atomically, giving every file the
+ * same mtime. Only keys present at startup take their publish time from
+ * the file (never later than now), so a restart does not delay a rotation
+ * that is already due. Keys published at the same time are ordered by kid,
+ * so kids should sort by age (e.g. 2024-06-01).
+ *
+ * jwt.signing.active-kid pins the signing key explicitly. Without a key
+ * directory an ephemeral Ed25519 key is generated (development only: each
+ * instance then signs with a different key).
+ */
+@Slf4j
+@Component
+public class SigningKeyStore {
+
+    private static final String PRIVATE_SUFFIX = ".pem";
+    private static final String PUBLIC_SUFFIX = ".pub.pem";
+    private static final String[] KEY_ALGORITHMS = {"Ed25519", "RSA", "EC"};
+
+    private final String keyDir;
+    private final String pinnedKid;
+    private final Duration activationDelay;
+
+    // kid -> when this instance first saw it; only touched by reload()
+    private final Map<String, Instant> firstSeen = new HashMap<>();
+
+    private volatile Snapshot snapshot;
+
+    public SigningKeyStore(
+            @Value("${jwt.signing.key-dir:}") String keyDir,
+            @Value("${jwt.signing.active-kid:}") String pinnedKid,
+            @Value("${jwt.signing.activation-delay:10m}") Duration activationDelay) {
+        this.keyDir = keyDir;
+        this.pinnedKid = pinnedKid;
+        this.activationDelay = activationDelay;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (keyDir == null || keyDir.isBlank()) {
+            KeyPair pair = Jwts.SIG.EdDSA.keyPair().build();
+            String kid = "ephemeral-" + Instant.now().getEpochSecond();
+            log.warn("No jwt.signing.key-dir configured; generated ephemeral Ed25519 signing key {}", kid);
+            Map<String, PublicKey> publicKeys = Map.of(kid, pair.getPublic());
+            snapshot = new Snapshot(new SigningKey(kid, pair.getPrivate()), publicKeys, toJwkSet(publicKeys));
+            return;
+        }
+        reload();
+        if (snapshot == null) {
+            throw new IllegalStateException("No usable signing key in " + keyDir);
+        }
+    }
+
+    /**
+     * Rescan the key directory. A failed scan keeps the previous keys.
+     */
+    @Scheduled(fixedDelayString = "${jwt.signing.rescan-interval-ms:60000}",
+            initialDelayString = "${jwt.signing.rescan-interval-ms:60000}")
+    public synchronized void reload() {
+        if (keyDir == null || keyDir.isBlank()) {
+            return;
+        }
+        try {
+            Map<String, PublicKey> publicKeys = new TreeMap<>();
+            Map<String, Path> privateKeyFiles = new TreeMap<>();
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get(keyDir))) {
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+                    if (name.endsWith(PUBLIC_SUFFIX)) {
+                        String kid = name.substring(0, name.length() - PUBLIC_SUFFIX.length());
+                        publicKeys.put(kid, readPublicKey(file));
+                    } else if (name.endsWith(PRIVATE_SUFFIX)) {
+                        privateKeyFiles.put(name.substring(0, name.length() - PRIVATE_SUFFIX.length()), file);
+                    }
+                }
+            }
+
+            String activeKid = selectActiveKid(privateKeyFiles, publicKeys);
+            if (activeKid == null) {
+                log.error("No signing key with a published public key in {}; keeping current keys", keyDir);
+                return;
+            }
+
+            Snapshot current = snapshot;
+            if (current != null && current.signingKey.kid.equals(activeKid)
+                    && current.publicKeys.equals(publicKeys)) {
+                return;
+            }
+            SigningKey signingKey = new SigningKey(activeKid, readPrivateKey(privateKeyFiles.get(activeKid)));
+            snapshot = new Snapshot(signingKey, Collections.unmodifiableMap(publicKeys), toJwkSet(publicKeys));
+            log.info("Signing keys loaded: active={}, published={}", activeKid, publicKeys.keySet());
+        } catch (IOException | GeneralSecurityException | RuntimeException e) {
+            log.error("Failed to load signing keys from {}, keeping current keys: {}", keyDir, e.getMessage());
+        }
+    }
+
+    /**
+     * The pinned kid if configured, otherwise the newest key published for
+     * at least the activation delay (so verifiers have fetched it). Falls
+     * back to the current key, then to the oldest key at first start.
+     */
+    private String selectActiveKid(Map<String, Path> privateKeyFiles, Map<String, PublicKey> publicKeys)
+            throws IOException {
+        Instant now = Instant.now();
+        boolean initialScan = snapshot == null;
+        firstSeen.keySet().retainAll(publicKeys.keySet());
+        for (Map.Entry<String, PublicKey> entry : publicKeys.entrySet()) {
+            if (!firstSeen.containsKey(entry.getKey())) {
+                Instant seen = now;
+                Path privateKeyFile = privateKeyFiles.get(entry.getKey());
+                if (initialScan && privateKeyFile != null) {
+                    Instant modified = Files.getLastModifiedTime(privateKeyFile).toInstant();
+                    seen = modified.isBefore(now) ? modified : now;
+                }
+                firstSeen.put(entry.getKey(), seen);
+            }
+        }
+
+        if (pinnedKid != null && !pinnedKid.isBlank()) {
+            return privateKeyFiles.containsKey(pinnedKid) && publicKeys.containsKey(pinnedKid) ? pinnedKid : null;
+        }
+
+        // Publish time, then kid: the last element is the newest key
+        Comparator<String> byAge = Comparator.<String, Instant>comparing(firstSeen::get)
+                .thenComparing(Comparator.naturalOrder());
+        List<String> candidates = privateKeyFiles.keySet().stream()
+                .filter(publicKeys::containsKey)
+                .sorted(byAge)
+                .toList();
+        if (candidates.isEmpty()) {
+            return null;
+        }
+
+        Instant cutoff = now.minus(activationDelay);
+        for (int i = candidates.size() - 1; i >= 0; i--) {
+            if (!firstSeen.get(candidates.get(i)).isAfter(cutoff)) {
+                return candidates.get(i);
+            }
+        }
+        // Nothing published long enough: keep signing with the current key if still present
+        Snapshot current = snapshot;
+        if (current != null && candidates.contains(current.signingKey.kid)) {
+            return current.signingKey.kid;
+        }
+        return candidates.get(0);
+    }
+
+    /**
+     * Current signing key.
+     */
+    public SigningKey getSigningKey() {
+        return snapshot.signingKey;
+    }
+
+    /**
+     * Public key for a kid, or null if it is not (or no longer) published.
+     */
+    public PublicKey getPublicKey(String kid) {
+        return snapshot.publicKeys.get(kid);
+    }
+
+    /**
+     * JWKS document (RFC 7517) with every published key.
+     */
+    public Map<String, Object> getJwkSet() {
+        return snapshot.jwkSet;
+    }
+
+    private static Map<String, Object> toJwkSet(Map<String, PublicKey> publicKeys) {
+        List<Map<String, ?>> keys = new ArrayList<>();
+        publicKeys.forEach((kid, key) -> {
+            PublicJwk<PublicKey> jwk = Jwks.builder().key(key).id(kid).publicKeyUse("sig").build();
+            keys.add(new LinkedHashMap<>(jwk));
+        });
+        Map<String, Object> jwkSet = new LinkedHashMap<>();
+        jwkSet.put("keys", Collections.unmodifiableList(keys));
+        return Collections.unmodifiableMap(jwkSet);
+    }
+
+    private static PrivateKey readPrivateKey(Path file) throws IOException, GeneralSecurityException {
+        PKCS8EncodedKeySpec spec = new PKCS8EncodedKeySpec(readPem(file));
+        GeneralSecurityException last = null;
+        for (String algorithm : KEY_ALGORITHMS) {
+            try {
+                return KeyFactory.getInstance(algorithm).generatePrivate(spec);
+            } catch (GeneralSecurityException e) {
+                last = e;
+            }
+        }
+        throw last;
+    }
+
+    private static PublicKey readPublicKey(Path file) throws IOException, GeneralSecurityException {
+        X509EncodedKeySpec spec = new X509EncodedKeySpec(readPem(file));
+        GeneralSecurityException last = null;
+        for (String algorithm : KEY_ALGORITHMS) {
+            try {
+                return KeyFactory.getInstance(algorithm).generatePublic(spec);
+            } catch (GeneralSecurityException e) {
+                last = e;
+            }
+        }
+        throw last;
+    }
+
+    private static byte[] readPem(Path file) throws IOException {
+        StringBuilder base64 = new StringBuilder();
+        for (String line : Files.readAllLines(file, StandardCharsets.US_ASCII)) {
+            if (!line.startsWith("-----")) {
+                base64.append(line.trim());
+            }
+        }
+        return Base64.getDecoder().decode(base64.toString());
+    }
+
+    /**
+     * Active signing key and its key ID.
+     */
+    public static final class SigningKey {
+        private final String kid;
+        private final PrivateKey privateKey;
+
+        SigningKey(String kid, PrivateKey privateKey) {
+            this.kid = kid;
+            this.privateKey = privateKey;
+        }
+
+        public String getKid() {
+            return kid;
+        }
+
+        public PrivateKey getPrivateKey() {
+            return privateKey;
+        }
+    }
+
+    private static final class Snapshot {
+        private final SigningKey signingKey;
+        private final Map<String, PublicKey> publicKeys;
+        private final Map<String, Object> jwkSet;
+
+        Snapshot(SigningKey signingKey, Map<String, PublicKey> publicKeys, Map<String, Object> jwkSet) {
+            this.signingKey = signingKey;
+            this.publicKeys = publicKeys;
+            this.jwkSet = jwkSet;
+        }
+    }
+}
@@ -1,34 +1,51 @@
 package com.streamflix.auth.service;
 
+import com.streamflix.auth.cache.CachedAccount;
+import com.streamflix.auth.cache.CachedProfile;
+import com.streamflix.auth.cache.ProfileCache;
 import com.streamflix.auth.dto.AuthRequest;
 import com.streamflix.auth.dto.AuthResponse;
 import com.streamflix.auth.entity.Profile;
-import com.streamflix.auth.entity.RefreshToken;
 import com.streamflix.auth.entity.Role;
 import com.streamflix.auth.entity.User;
+import com.streamflix.auth.repository.LoginCredentials;
 import com.streamflix.auth.repository.ProfileRepository;
-import com.streamflix.auth.repository.RefreshTokenRepository;
 import com.streamflix.auth.repository.RoleRepository;
 import com.streamflix.auth.repository.UserRepository;
 import com.streamflix.auth.security.JwtTokenProvider;
+import com.streamflix.auth.security.PasswordHashingExecutor;
+import com.streamflix.auth.security.ProfilePinEncoder;
+import com.streamflix.auth.session.RefreshSession;
+import com.streamflix.auth.session.RefreshTokenStore;
 import com.streamflix.common.exception.AuthenticationException;
 import com.streamflix.common.exception.ConflictException;
 import com.streamflix.common.exception.ResourceNotFoundException;
+import com.streamflix.common.exception.ServiceUnavailableException;
 import com.streamflix.common.exception.ValidationException;
+import com.streamflix.common.security.SecurityConstants;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 /**
  * Authentication service handling user login, registration, and token management.
+ *
+ * Password hashing runs on the PasswordHashingExecutor and outside any
+ * transaction, so a slow BCrypt check never holds a servlet thread's DB
+ * connection; the writes that follow run in a short TransactionTemplate.
  */
 @Slf4j
 @Service
@@ -38,10 +55,15 @@ public class AuthService {
     private final UserRepository userRepository;
     private final ProfileRepository profileRepository;
     private final RoleRepository roleRepository;
-    private final RefreshTokenRepository refreshTokenRepository;
+    private final RefreshTokenStore refreshTokenStore;
     private final JwtTokenProvider jwtTokenProvider;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final ProfilePinEncoder profilePinEncoder;
+    private final ProfileCache profileCache;
+    private final TransactionTemplate transactionTemplate;
     private final UserEventPublisher eventPublisher;
+    private final LoginActivityRecorder loginActivityRecorder;
+    private final StringRedisTemplate redisTemplate;
 
     @Value("${security.max-login-attempts:5}")
     private int maxLoginAttempts;
@@ -51,54 +73,98 @@ public class AuthService {
 
     /**
      * Authenticate user and generate tokens.
+     *
+     * Synchronous work is one indexed projection query, the password check
+     * and one short transaction storing the refresh token and the USER_LOGIN
+     * outbox row together (plus the failed-attempt reset, when there is
+     * anything to reset). Last-login fields and login history are written
+     * behind by LoginActivityRecorder.
      */
-    @Transactional
     public AuthResponse.TokenResponse login(AuthRequest.Login request, String ipAddress, String userAgent) {
         log.debug("Login attempt for email: {}", request.getEmail());
 
-        User user = userRepository.findByEmailWithRoles(request.getEmail())
+        LoginCredentials credentials = userRepository.findLoginCredentials(request.getEmail())
                 .orElseThrow(() -> {
                     log.debug("User not found: {}", request.getEmail());
                     return AuthenticationException.invalidCredentials();
                 });
+        UUID userId = credentials.getId();
 
         // Check if account is locked
-        if (user.isLocked()) {
-            log.warn("Login attempt for locked account: {}", user.getEmail());
+        if (credentials.isLocked()) {
+            log.warn("Login attempt for locked account: {}", credentials.getEmail());
+            loginActivityRecorder.recordFailure(userId, ipAddress, userAgent, request.getDeviceType(),
+                    "ACCOUNT_LOCKED");
             throw new AuthenticationException("ACCOUNT_LOCKED",
                     "Account is locked. Please try again later or contact support.");
         }
 
-        // Verify password
-        if (!passwordEncoder.matches(request.getPassword(), user.getPasswordHash())) {
-            handleFailedLogin(user);
+        // Verify password (no transaction open while hashing)
+        if (!passwordHashingExecutor.matches(request.getPassword(), credentials.getPasswordHash())) {
+            handleFailedLogin(credentials);
+            loginActivityRecorder.recordFailure(userId, ipAddress, userAgent, request.getDeviceType(),
+                    "INVALID_CREDENTIALS");
             throw AuthenticationException.invalidCredentials();
         }
 
-        // Successful login
-        user.recordSuccessfulLogin(ipAddress);
-        userRepository.save(user);
+        if (passwordHashingExecutor.upgradeEncoding(credentials.getPasswordHash())) {
+            upgradePasswordHash(userId, credentials.getPasswordHash(), request.getPassword());
+        }
 
         // Generate tokens
-        String accessToken = jwtTokenProvider.generateAccessToken(user, null);
-        String refreshToken = jwtTokenProvider.generateRefreshToken(user);
+        List<String> roles = credentials.getRoles();
+        String accessToken = jwtTokenProvider.generateAccessToken(userId, credentials.getEmail(), roles, null);
+        String refreshToken = jwtTokenProvider.generateRefreshToken(userId, credentials.getEmail());
+
+        // Store refresh token and the login event in one transaction
+        Instant now = Instant.now();
+        RefreshSession session = RefreshSession.builder()
+                .userId(userId)
+                .tokenHash(jwtTokenProvider.hashToken(refreshToken))
+                .deviceId(request.getDeviceId())
+                .deviceType(request.getDeviceType())
+                .deviceName(request.getDeviceName())
+                .ipAddress(ipAddress)
+                .userAgent(userAgent)
+                .issuedAt(now)
+                .expiresAt(jwtTokenProvider.getRefreshTokenExpiration())
+                .build();
+        int failedAttempts = credentials.getFailedLoginAttempts() != null ? credentials.getFailedLoginAttempts() : 0;
+        transactionTemplate.executeWithoutResult(status -> {
+            if (failedAttempts > 0) {
+                userRepository.resetFailedLoginAttempts(userId, failedAttempts);
+            }
+            refreshTokenStore.create(session);
+            eventPublisher.publishLoginEvent(userId, credentials.getEmail(), roles);
+        });
 
-        // Store refresh token
-        saveRefreshToken(user, refreshToken, request.getDeviceId(), request.getDeviceType(),
-                request.getDeviceName(), ipAddress, userAgent);
+        // Bookkeeping is written behind
+        loginActivityRecorder.recordSuccess(userId, ipAddress, userAgent, request.getDeviceType());
 
-        // Publish login event
-        eventPublisher.publishLoginEvent(user);
+        log.info("User logged in successfully: {}", credentials.getEmail());
 
-        log.info("User logged in successfully: {}", user.getEmail());
+        return buildTokenResponse(toUserInfo(credentials), null, accessToken, refreshToken);
+    }
 
-        return buildTokenResponse(user, null, accessToken, refreshToken);
+    /**
+     * Rehash with the configured algorithm and cost, off the login path.
+     */
+    private void upgradePasswordHash(UUID userId, String oldHash, String password) {
+        boolean scheduled = passwordHashingExecutor.encodeInBackground(password, newHash -> {
+            Integer updated = transactionTemplate.execute(status ->
+                    userRepository.upgradePasswordHash(userId, oldHash, newHash));
+            if (updated != null && updated > 0) {
+                log.debug("Upgraded password hash for user {}", userId);
+            }
+        });
+        if (!scheduled) {
+            log.debug("Hashing pool busy, deferring password hash upgrade for user {}", userId);
+        }
     }
 
     /**
      * Register a new user.
      */
-    @Transactional
     public AuthResponse.RegistrationResponse register(AuthRequest.Register request) {
         log.debug("Registration attempt for email: {}", request.getEmail());
 
@@ -107,6 +173,14 @@ public class AuthService {
             throw ConflictException.emailAlreadyExists(request.getEmail());
         }
 
+        // Hash before opening the transaction
+        String passwordHash = passwordHashingExecutor.encode(request.getPassword());
+
+        return transactionTemplate.execute(status -> createUser(request, passwordHash));
+    }
+
+    private AuthResponse.RegistrationResponse createUser(AuthRequest.Register request, String passwordHash) {
+
         // Get default user role
         Role userRole = roleRepository.findByName(Role.ROLE_USER)
                 .orElseThrow(() -> new IllegalStateException("Default user role not found"));
@@ -114,7 +188,7 @@ public class AuthService {
         // Create user
         User user = User.builder()
                 .email(request.getEmail().toLowerCase())
-                .passwordHash(passwordEncoder.encode(request.getPassword()))
+                .passwordHash(passwordHash)
                 .firstName(request.getFirstName())
                 .lastName(request.getLastName())
                 .countryCode(request.getCountryCode())
@@ -147,96 +221,115 @@ public class AuthService {
     /**
      * Refresh access token using refresh token.
      */
-    @Transactional
     public AuthResponse.TokenResponse refreshAccessToken(String refreshToken, String ipAddress, String userAgent) {
+        UUID userId = refreshTokenUserId(refreshToken)
+                .orElseThrow(AuthenticationException::invalidToken);
         String tokenHash = jwtTokenProvider.hashToken(refreshToken);
 
-        RefreshToken storedToken = refreshTokenRepository.findValidByTokenHash(tokenHash, Instant.now())
-                .orElseThrow(() -> AuthenticationException.invalidToken());
-
-        User user = storedToken.getUser();
-
         // Check if user is still active
-        if (user.isDeleted() || user.isLocked()) {
-            storedToken.revoke("User account inactive");
-            refreshTokenRepository.save(storedToken);
+        LoginCredentials user = userRepository.findLoginCredentialsById(userId).orElse(null);
+        if (user == null || user.isLocked()) {
+            refreshTokenStore.revoke(userId, tokenHash, "User account inactive");
             throw new AuthenticationException("ACCOUNT_INACTIVE", "Account is no longer active");
         }
 
-        // Token rotation: revoke old token and issue new one
-        storedToken.revoke("Token rotated");
-        refreshTokenRepository.save(storedToken);
-
-        // Generate new tokens
-        String newAccessToken = jwtTokenProvider.generateAccessToken(user, null);
-        String newRefreshToken = jwtTokenProvider.generateRefreshToken(user);
+        // Token rotation: the store atomically replaces the old token with the new one
+        String newRefreshToken = jwtTokenProvider.generateRefreshToken(userId, user.getEmail());
+        refreshTokenStore.rotate(userId, tokenHash, jwtTokenProvider.hashToken(newRefreshToken),
+                        jwtTokenProvider.getRefreshTokenExpiration(), ipAddress, userAgent)
+                .orElseThrow(AuthenticationException::invalidToken);
 
-        // Store new refresh token
-        saveRefreshToken(user, newRefreshToken, storedToken.getDeviceId(), storedToken.getDeviceType(),
-                storedToken.getDeviceName(), ipAddress, userAgent);
+        String newAccessToken = jwtTokenProvider.generateAccessToken(userId, user.getEmail(), user.getRoles(), null);
 
-        return buildTokenResponse(user, null, newAccessToken, newRefreshToken);
+        return buildTokenResponse(toUserInfo(user), null, newAccessToken, newRefreshToken);
     }
 
     /**
      * Logout user (revoke refresh token).
      */
-    @Transactional
     public void logout(String refreshToken) {
-        String tokenHash = jwtTokenProvider.hashToken(refreshToken);
+        refreshTokenUserId(refreshToken).ifPresent(userId -> {
+            if (refreshTokenStore.revoke(userId, jwtTokenProvider.hashToken(refreshToken), "User logout")) {
+                log.info("User logged out: {}", userId);
+            }
+        });
+    }
 
-        refreshTokenRepository.findByTokenHash(tokenHash)
-                .ifPresent(token -> {
-                    token.revoke("User logout");
-                    refreshTokenRepository.save(token);
-                    log.info("User logged out: {}", token.getUser().getEmail());
-                });
+    /**
+     * User ID of a signature-valid, unexpired, not revoked access token.
+     * For /api/v1/auth endpoints, which are not behind JwtAuthentication and
+     * so must not trust X-User-ID.
+     */
+    public UUID authenticatedUserId(String accessToken) {
+        Claims claims = verifiedAccessToken(accessToken);
+        return UUID.fromString(claims.get(SecurityConstants.CLAIM_USER_ID, String.class));
     }
 
     /**
      * Logout from all devices.
      */
-    @Transactional
     public void logoutAllDevices(UUID userId) {
-        int revokedCount = refreshTokenRepository.revokeAllByUserId(userId, Instant.now(), "Logout all devices");
+        int revokedCount = refreshTokenStore.revokeAll(userId, "Logout all devices");
         log.info("Revoked {} refresh tokens for user {}", revokedCount, userId);
     }
 
     /**
      * Select a profile and generate a new access token with profile context.
+     *
+     * User ID, email and roles are taken from the caller's access token, so
+     * the profile token carries exactly the claims of the token it derives
+     * from and expires no later than it; role changes take effect at the
+     * next refresh, as they do without profiles. Profiles and PIN hashes
+     * come from ProfileCache; the database is only written when a legacy
+     * PIN hash is upgraded.
+     *
+     * /api/v1/auth/** is not behind the gateway's JwtAuthentication, so the
+     * revocation check is done here: a token revoked at logout must not be
+     * exchanged for a fresh one.
      */
-    @Transactional
-    public AuthResponse.TokenResponse selectProfile(UUID userId, AuthRequest.SelectProfile request) {
+    public AuthResponse.TokenResponse selectProfile(String accessToken, AuthRequest.SelectProfile request) {
+        Claims claims = verifiedAccessToken(accessToken);
+        UUID userId = UUID.fromString(claims.get(SecurityConstants.CLAIM_USER_ID, String.class));
         UUID profileId = UUID.fromString(request.getProfileId());
 
-        Profile profile = profileRepository.findByIdWithUser(profileId)
+        // Only the user's own profiles are cached, so this also verifies ownership
+        CachedAccount account = profileCache.get(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Profile", profileId.toString()));
+        CachedProfile profile = account.findProfile(profileId)
                 .orElseThrow(() -> new ResourceNotFoundException("Profile", profileId.toString()));
-
-        // Verify profile belongs to user
-        if (!profile.getUser().getId().equals(userId)) {
-            throw new ValidationException("Profile does not belong to this account");
-        }
 
         // Check PIN if protected
         if (profile.isPinProtected()) {
             if (request.getPin() == null || request.getPin().isEmpty()) {
                 throw new ValidationException("PIN is required for this profile");
             }
-            if (!passwordEncoder.matches(request.getPin(), profile.getPinHash())) {
+            if (!profilePinEncoder.matches(request.getPin(), profile.getPinHash())) {
                 throw new ValidationException("Invalid PIN");
             }
+            // Move legacy BCrypt PINs to the cheaper KDF
+            if (profilePinEncoder.needsUpgrade(profile.getPinHash())) {
+                String upgraded = profilePinEncoder.encode(request.getPin());
+                transactionTemplate.executeWithoutResult(status ->
+                        profileRepository.upgradePinHash(profileId, profile.getPinHash(), upgraded));
+                profileCache.invalidate(userId);
+            }
         }
 
-        User user = profile.getUser();
-
-        // Generate new access token with profile
-        String accessToken = jwtTokenProvider.generateAccessToken(user, profile);
+        // Generate new access token with profile, bounded by the caller's token
+        Instant now = Instant.now();
+        Instant expiresAt = claims.getExpiration().toInstant();
+        Instant fullLifetime = now.plusSeconds(jwtTokenProvider.getAccessTokenExpirationSeconds());
+        if (fullLifetime.isBefore(expiresAt)) {
+            expiresAt = fullLifetime;
+        }
+        String profileToken = jwtTokenProvider.generateAccessToken(userId,
+                claims.get(SecurityConstants.CLAIM_EMAIL, String.class), rolesClaim(claims), profileId, expiresAt);
 
         return AuthResponse.TokenResponse.builder()
-                .accessToken(accessToken)
+                .accessToken(profileToken)
                 .tokenType("Bearer")
-                .expiresIn(jwtTokenProvider.getAccessTokenExpirationSeconds())
-                .expiresAt(Instant.now().plusSeconds(jwtTokenProvider.getAccessTokenExpirationSeconds()))
+                .expiresIn(Math.max(0, Duration.between(now, expiresAt).toSeconds()))
+                .expiresAt(expiresAt)
                 .profile(AuthResponse.ProfileInfo.builder()
                         .id(profile.getId().toString())
                         .name(profile.getName())
@@ -251,64 +344,112 @@ public class AuthService {
     /**
      * Get active sessions for a user.
      */
-    @Transactional(readOnly = true)
     public List<AuthResponse.SessionInfo> getActiveSessions(UUID userId) {
-        return refreshTokenRepository.findActiveByUserId(userId, Instant.now()).stream()
-                .map(token -> AuthResponse.SessionInfo.builder()
-                        .deviceId(token.getDeviceId())
-                        .deviceType(token.getDeviceType())
-                        .deviceName(token.getDeviceName())
-                        .ipAddress(token.getIpAddress())
-                        .lastActiveAt(token.getIssuedAt())
+        return refreshTokenStore.findActive(userId).stream()
+                .map(session -> AuthResponse.SessionInfo.builder()
+                        .deviceId(session.getDeviceId())
+                        .deviceType(session.getDeviceType())
+                        .deviceName(session.getDeviceName())
+                        .ipAddress(session.getIpAddress())
+                        .lastActiveAt(session.getIssuedAt())
                         .build())
                 .toList();
     }
 
-    private void handleFailedLogin(User user) {
-        user.recordFailedLogin();
+    /**
+     * User ID of a signature-valid, unexpired refresh token.
+     */
+    private Optional<UUID> refreshTokenUserId(String refreshToken) {
+        try {
+            Claims claims = jwtTokenProvider.parseToken(refreshToken);
+            if (!SecurityConstants.TOKEN_TYPE_REFRESH.equals(
+                    claims.get(SecurityConstants.CLAIM_TOKEN_TYPE, String.class))) {
+                return Optional.empty();
+            }
+            return Optional.of(UUID.fromString(claims.get(SecurityConstants.CLAIM_USER_ID, String.class)));
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Rejected refresh token: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
 
-        if (user.getFailedLoginAttempts() >= maxLoginAttempts) {
-            Instant lockUntil = Instant.now().plus(lockoutDurationMinutes, ChronoUnit.MINUTES);
-            user.lockAccount("Too many failed login attempts", lockUntil);
-            log.warn("Account locked due to too many failed attempts: {}", user.getEmail());
+    /**
+     * Claims of a signature-valid, unexpired, not revoked access token.
+     */
+    private Claims verifiedAccessToken(String accessToken) {
+        Claims claims = accessTokenClaims(accessToken)
+                .orElseThrow(AuthenticationException::invalidToken);
+        if (isRevoked(claims.getId())) {
+            throw AuthenticationException.tokenRevoked();
         }
+        return claims;
+    }
 
-        userRepository.save(user);
+    /**
+     * Whether the gateway blacklisted this jti at logout. Fails closed: with
+     * Redis unreachable, revocation cannot be ruled out.
+     */
+    private boolean isRevoked(String jti) {
+        if (jti == null) {
+            return false;
+        }
+        try {
+            return Boolean.TRUE.equals(redisTemplate.hasKey(SecurityConstants.TOKEN_BLACKLIST_PREFIX + jti));
+        } catch (DataAccessException e) {
+            log.warn("Cannot check token revocation: {}", e.getMessage());
+            throw new ServiceUnavailableException("token-revocation", e);
+        }
     }
 
-    private void saveRefreshToken(User user, String refreshToken, String deviceId, String deviceType,
-                                   String deviceName, String ipAddress, String userAgent) {
-        RefreshToken token = RefreshToken.builder()
-                .user(user)
-                .tokenHash(jwtTokenProvider.hashToken(refreshToken))
-                .deviceId(deviceId)
-                .deviceType(deviceType)
-                .deviceName(deviceName)
-                .ipAddress(ipAddress)
-                .userAgent(userAgent)
-                .expiresAt(jwtTokenProvider.getRefreshTokenExpiration())
-                .build();
+    /**
+     * Claims of a signature-valid, unexpired access token.
+     */
+    private Optional<Claims> accessTokenClaims(String accessToken) {
+        try {
+            Claims claims = jwtTokenProvider.parseToken(accessToken);
+            if (!SecurityConstants.TOKEN_TYPE_ACCESS.equals(
+                    claims.get(SecurityConstants.CLAIM_TOKEN_TYPE, String.class))
+                    || claims.get(SecurityConstants.CLAIM_USER_ID, String.class) == null) {
+                return Optional.empty();
+            }
+            return Optional.of(claims);
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Rejected access token: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
 
-        refreshTokenRepository.save(token);
+    private static List<String> rolesClaim(Claims claims) {
+        List<?> roles = claims.get(SecurityConstants.CLAIM_ROLES, List.class);
+        return roles != null ? roles.stream().map(String::valueOf).toList() : List.of();
     }
 
-    private AuthResponse.TokenResponse buildTokenResponse(User user, Profile profile,
-                                                           String accessToken, String refreshToken) {
-        List<String> roles = user.getRoles().stream()
-                .map(Role::getName)
-                .toList();
+    private void handleFailedLogin(LoginCredentials credentials) {
+        // Counted synchronously and atomically: lockout must not lag behind
+        Instant lockUntil = Instant.now().plus(lockoutDurationMinutes, ChronoUnit.MINUTES);
+        transactionTemplate.executeWithoutResult(status -> userRepository.recordFailedLogin(
+                credentials.getId(), maxLoginAttempts, "Too many failed login attempts", lockUntil));
 
-        AuthResponse.UserInfo userInfo = AuthResponse.UserInfo.builder()
-                .id(user.getId().toString())
-                .email(user.getEmail())
-                .firstName(user.getFirstName())
-                .lastName(user.getLastName())
-                .subscriptionTier(user.getSubscriptionTier().name())
-                .subscriptionStatus(user.getSubscriptionStatus().name())
-                .roles(roles)
-                .emailVerified(user.getEmailVerified())
+        if (credentials.getFailedLoginAttempts() + 1 >= maxLoginAttempts) {
+            log.warn("Account locked due to too many failed attempts: {}", credentials.getEmail());
+        }
+    }
+
+    private AuthResponse.UserInfo toUserInfo(LoginCredentials credentials) {
+        return AuthResponse.UserInfo.builder()
+                .id(credentials.getId().toString())
+                .email(credentials.getEmail())
+                .firstName(credentials.getFirstName())
+                .lastName(credentials.getLastName())
+                .subscriptionTier(credentials.getSubscriptionTier().name())
+                .subscriptionStatus(credentials.getSubscriptionStatus().name())
+                .roles(credentials.getRoles())
+                .emailVerified(credentials.getEmailVerified())
                 .build();
+    }
 
+    private AuthResponse.TokenResponse buildTokenResponse(AuthResponse.UserInfo userInfo, Profile profile,
+                                                           String accessToken, String refreshToken) {
         AuthResponse.ProfileInfo profileInfo = null;
         if (profile != null) {
             profileInfo = AuthResponse.ProfileInfo.builder()
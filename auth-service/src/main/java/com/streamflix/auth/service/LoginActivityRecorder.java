@@ -0,0 +1,200 @@
+package com.streamflix.auth.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind queue for login bookkeeping.
+ *
+ * The login request only enqueues; a scheduled flush writes batches in one
+ * transaction with JDBC batching:
+ * - users: last_login_at / last_login_ip and expiry of an elapsed lock,
+ *   collapsed to the latest successful login per user
+ * - login_history: one row per attempt, successful or not
+ *
+ * Failed-attempt counting, its reset and lockout are not deferred (see
+ * UserRepository.recordFailedLogin / resetFailedLoginAttempts), so
+ * bookkeeping lag or loss never changes lockout decisions. A full queue
+ * drops entries (counted, logged at most every drop-log-interval) rather
+ * than slowing logins; pending entries are flushed on shutdown.
+ *
+ * Metrics:
+ * - auth.login.write_behind.queue (pending entries)
+ * - auth.login.write_behind.dropped
+ * - auth.login.write_behind.flush (batch write time)
+ */
+@Slf4j
+@Component
+public class LoginActivityRecorder {
+
+    private static final String UPDATE_LAST_LOGIN =
+            "UPDATE users SET last_login_at = ?, last_login_ip = ?, "
+            + "account_locked = CASE WHEN locked_until < ? THEN FALSE ELSE account_locked END, "
+            + "lock_reason = CASE WHEN locked_until < ? THEN NULL ELSE lock_reason END, "
+            + "locked_until = CASE WHEN locked_until < ? THEN NULL ELSE locked_until END "
+            + "WHERE id = ? AND (last_login_at IS NULL OR last_login_at < ?)";
+
+    private static final String INSERT_LOGIN_HISTORY =
+            "INSERT INTO login_history (id, user_id, login_at, ip_address, user_agent, device_type, "
+            + "success, failure_reason) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<LoginActivity> queue;
+    private final int maxBatchSize;
+
+    private final long dropLogIntervalNanos;
+    private final AtomicLong lastDropLog;
+    private final AtomicLong droppedSinceLog = new AtomicLong();
+
+    private final Counter droppedCounter;
+    private final Timer flushTimer;
+
+    public LoginActivityRecorder(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${security.login-write-behind.queue-capacity:10000}") int queueCapacity,
+            @Value("${security.login-write-behind.max-batch-size:500}") int maxBatchSize,
+            @Value("${security.login-write-behind.drop-log-interval:10s}") Duration dropLogInterval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatchSize = maxBatchSize;
+        this.dropLogIntervalNanos = dropLogInterval.toNanos();
+        this.lastDropLog = new AtomicLong(System.nanoTime() - dropLogIntervalNanos);
+
+        meterRegistry.gauge("auth.login.write_behind.queue", queue, BlockingQueue::size);
+        this.droppedCounter = meterRegistry.counter("auth.login.write_behind.dropped");
+        this.flushTimer = meterRegistry.timer("auth.login.write_behind.flush");
+    }
+
+    /**
+     * Record a successful login (last-login fields, history).
+     */
+    public void recordSuccess(UUID userId, String ipAddress, String userAgent, String deviceType) {
+        enqueue(new LoginActivity(userId, Instant.now(), ipAddress, userAgent, deviceType, true, null));
+    }
+
+    /**
+     * Record a rejected login attempt in the login history.
+     */
+    public void recordFailure(UUID userId, String ipAddress, String userAgent, String deviceType,
+                              String failureReason) {
+        enqueue(new LoginActivity(userId, Instant.now(), ipAddress, userAgent, deviceType, false, failureReason));
+    }
+
+    private void enqueue(LoginActivity activity) {
+        if (!queue.offer(activity)) {
+            droppedCounter.increment();
+            droppedSinceLog.incrementAndGet();
+            long now = System.nanoTime();
+            long last = lastDropLog.get();
+            if (now - last >= dropLogIntervalNanos && lastDropLog.compareAndSet(last, now)) {
+                log.warn("Login write-behind queue full, dropped {} login records since last report",
+                        droppedSinceLog.getAndSet(0));
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${security.login-write-behind.flush-interval-ms:500}")
+    public void flush() {
+        List<LoginActivity> batch = new ArrayList<>(maxBatchSize);
+        while (queue.drainTo(batch, maxBatchSize) > 0) {
+            try {
+                flushTimer.record(() -> transactionTemplate.executeWithoutResult(status -> write(batch)));
+            } catch (RuntimeException e) {
+                // Bookkeeping is best effort: never retry into an unbounded backlog
+                log.error("Failed to write {} login records: {}", batch.size(), e.getMessage());
+            }
+            batch.clear();
+        }
+    }
+
+    private void write(List<LoginActivity> batch) {
+        // Only the latest successful login per user matters for the users row
+        Map<UUID, LoginActivity> latestSuccess = new LinkedHashMap<>();
+        for (LoginActivity activity : batch) {
+            if (activity.success) {
+                latestSuccess.merge(activity.userId, activity,
+                        (a, b) -> b.at.isAfter(a.at) ? b : a);
+            }
+        }
+
+        if (!latestSuccess.isEmpty()) {
+            Timestamp now = Timestamp.from(Instant.now());
+            jdbcTemplate.batchUpdate(UPDATE_LAST_LOGIN, new ArrayList<>(latestSuccess.values()),
+                    latestSuccess.size(), (ps, activity) -> {
+                        Timestamp at = Timestamp.from(activity.at);
+                        ps.setTimestamp(1, at);
+                        ps.setString(2, activity.ipAddress);
+                        ps.setTimestamp(3, now);
+                        ps.setTimestamp(4, now);
+                        ps.setTimestamp(5, now);
+                        ps.setObject(6, activity.userId);
+                        ps.setTimestamp(7, at);
+                    });
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_LOGIN_HISTORY, batch, batch.size(), (ps, activity) -> {
+            ps.setObject(1, UUID.randomUUID());
+            ps.setObject(2, activity.userId);
+            ps.setTimestamp(3, Timestamp.from(activity.at));
+            ps.setString(4, activity.ipAddress);
+            ps.setString(5, truncate(activity.userAgent, 500));
+            ps.setString(6, truncate(activity.deviceType, 50));
+            ps.setBoolean(7, activity.success);
+            ps.setString(8, activity.failureReason);
+        });
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value != null && value.length() > maxLength ? value.substring(0, maxLength) : value;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private static final class LoginActivity {
+        private final UUID userId;
+        private final Instant at;
+        private final String ipAddress;
+        private final String userAgent;
+        private final String deviceType;
+        private final boolean success;
+        private final String failureReason;
+
+        LoginActivity(UUID userId, Instant at, String ipAddress, String userAgent, String deviceType,
+                      boolean success, String failureReason) {
+            this.userId = userId;
+            this.at = at;
+            this.ipAddress = ipAddress;
+            this.userAgent = userAgent;
+            this.deviceType = deviceType;
+            this.success = success;
+            this.failureReason = failureReason;
+        }
+    }
+}
@@ -1,16 +1,18 @@
 package com.streamflix.auth.service;
 
+import com.streamflix.auth.cache.CachedProfile;
+import com.streamflix.auth.cache.ProfileCache;
 import com.streamflix.auth.dto.ProfileDto;
 import com.streamflix.auth.entity.Profile;
 import com.streamflix.auth.entity.User;
 import com.streamflix.auth.repository.ProfileRepository;
 import com.streamflix.auth.repository.UserRepository;
+import com.streamflix.auth.security.ProfilePinEncoder;
 import com.streamflix.common.exception.ResourceNotFoundException;
 import com.streamflix.common.exception.ValidationException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -28,8 +30,9 @@ public class ProfileService {
 
     private final ProfileRepository profileRepository;
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final ProfilePinEncoder profilePinEncoder;
     private final UserEventPublisher eventPublisher;
+    private final ProfileCache profileCache;
 
     @Value("${profile.max-profiles-per-account:5}")
     private int maxProfilesPerAccount;
@@ -38,13 +41,14 @@ public class ProfileService {
     private String defaultAvatarUrl;
 
     /**
-     * Get all profiles for a user.
+     * Get all profiles for a user (served from ProfileCache).
      */
-    @Transactional(readOnly = true)
     public List<ProfileDto.Response> getProfiles(UUID userId) {
-        return profileRepository.findByUserId(userId).stream()
-                .map(this::toResponse)
-                .toList();
+        return profileCache.get(userId)
+                .map(account -> account.getProfiles().stream()
+                        .map(this::toResponse)
+                        .toList())
+                .orElse(List.of());
     }
 
     /**
@@ -94,6 +98,7 @@ public class ProfileService {
 
         profile = profileRepository.save(profile);
 
+        profileCache.invalidateAfterCommit(userId);
         eventPublisher.publishProfileCreatedEvent(user, profile);
         log.info("Profile created: {} for user {}", profile.getId(), userId);
 
@@ -136,6 +141,9 @@ public class ProfileService {
         }
 
         profile = profileRepository.save(profile);
+
+        profileCache.invalidateAfterCommit(userId);
+        eventPublisher.publishProfileUpdatedEvent(userId, profileId);
         log.info("Profile updated: {}", profileId);
 
         return toResponse(profile);
@@ -158,6 +166,8 @@ public class ProfileService {
         profile.setDeletedAt(Instant.now());
         profileRepository.save(profile);
 
+        profileCache.invalidateAfterCommit(userId);
+        eventPublisher.publishProfileDeletedEvent(userId, profileId);
         log.info("Profile deleted: {}", profileId);
     }
 
@@ -173,9 +183,11 @@ public class ProfileService {
             throw new ValidationException("PIN must be exactly 4 digits");
         }
 
-        profile.setPinHash(passwordEncoder.encode(request.getPin()));
+        profile.setPinHash(profilePinEncoder.encode(request.getPin()));
         profileRepository.save(profile);
 
+        profileCache.invalidateAfterCommit(userId);
+        eventPublisher.publishProfileUpdatedEvent(userId, profileId);
         log.info("PIN set for profile: {}", profileId);
     }
 
@@ -189,6 +201,8 @@ public class ProfileService {
         profile.setPinHash(null);
         profileRepository.save(profile);
 
+        profileCache.invalidateAfterCommit(userId);
+        eventPublisher.publishProfileUpdatedEvent(userId, profileId);
         log.info("PIN removed for profile: {}", profileId);
     }
 
@@ -216,4 +230,18 @@ public class ProfileService {
                 .isPinProtected(profile.isPinProtected())
                 .build();
     }
+
+    private ProfileDto.Response toResponse(CachedProfile profile) {
+        return ProfileDto.Response.builder()
+                .id(profile.getId().toString())
+                .name(profile.getName())
+                .avatarUrl(profile.getAvatarUrl())
+                .isKidsProfile(profile.isKids())
+                .maturityRating(profile.getMaturityRating().name())
+                .languagePreference(profile.getLanguagePreference())
+                .autoplayNextEpisode(profile.getAutoplayNextEpisode())
+                .autoplayPreviews(profile.getAutoplayPreviews())
+                .isPinProtected(profile.isPinProtected())
+                .build();
+    }
 }
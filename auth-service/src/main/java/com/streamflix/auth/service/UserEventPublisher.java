@@ -2,34 +2,29 @@ package com.streamflix.auth.service;
 
 import com.streamflix.auth.entity.Profile;
 import com.streamflix.auth.entity.User;
+import com.streamflix.auth.outbox.OutboxWriter;
 import com.streamflix.common.event.UserEvent;
-import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
-import io.github.resilience4j.retry.annotation.Retry;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
-import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
-import java.util.concurrent.CompletableFuture;
 
 /**
- * Publishes user-related events to Kafka.
+ * Publishes user-related events to Kafka through the transactional outbox.
+ *
+ * The publish methods write to event_outbox in the caller's transaction
+ * (OutboxWriter requires one); OutboxRelay sends to Kafka after commit.
  */
-@Slf4j
 @Service
 @RequiredArgsConstructor
 public class UserEventPublisher {
 
-    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final OutboxWriter outboxWriter;
 
     private static final String SOURCE = "auth-service";
 
-    @CircuitBreaker(name = "kafkaProducer", fallbackMethod = "publishEventFallback")
-    @Retry(name = "kafkaProducer")
     public void publishRegistrationEvent(User user) {
         UserEvent event = UserEvent.builder()
                 .eventId(UUID.randomUUID().toString())
@@ -42,77 +37,47 @@ public class UserEventPublisher {
                 .version(1)
                 .build();
 
-        sendEvent(event);
+        outboxWriter.append(event);
     }
 
-    @CircuitBreaker(name = "kafkaProducer", fallbackMethod = "publishEventFallback")
-    @Retry(name = "kafkaProducer")
-    public void publishLoginEvent(User user) {
-        List<String> roles = user.getRoles().stream()
-                .map(role -> role.getName())
-                .toList();
-
+    public void publishLoginEvent(UUID userId, String email, List<String> roles) {
         UserEvent event = UserEvent.builder()
                 .eventId(UUID.randomUUID().toString())
                 .eventType("USER_LOGIN")
                 .timestamp(Instant.now())
                 .source(SOURCE)
-                .userId(user.getId().toString())
-                .email(user.getEmail())
+                .userId(userId.toString())
+                .email(email)
                 .userEventType(UserEvent.UserEventType.USER_LOGIN)
                 .roles(roles)
                 .version(1)
                 .build();
 
-        sendEvent(event);
+        outboxWriter.append(event);
     }
 
-    @CircuitBreaker(name = "kafkaProducer", fallbackMethod = "publishEventFallback")
-    @Retry(name = "kafkaProducer")
     public void publishProfileCreatedEvent(User user, Profile profile) {
-        UserEvent event = UserEvent.builder()
-                .eventId(UUID.randomUUID().toString())
-                .eventType("PROFILE_CREATED")
-                .timestamp(Instant.now())
-                .source(SOURCE)
-                .userId(user.getId().toString())
-                .profileId(profile.getId().toString())
-                .userEventType(UserEvent.UserEventType.PROFILE_CREATED)
-                .version(1)
-                .build();
-
-        sendEvent(event);
+        outboxWriter.append(profileEvent(UserEvent.UserEventType.PROFILE_CREATED, user.getId(), profile.getId()));
     }
 
-    private void sendEvent(UserEvent event) {
-        CompletableFuture<SendResult<String, Object>> future =
-                kafkaTemplate.send(UserEvent.TOPIC, event.getUserId(), event);
-
-        future.whenComplete((result, ex) -> {
-            if (ex != null) {
-                log.error("Failed to send event {} to Kafka: {}", event.getEventType(), ex.getMessage());
-            } else {
-                log.debug("Event {} sent successfully to partition {} at offset {}",
-                        event.getEventType(),
-                        result.getRecordMetadata().partition(),
-                        result.getRecordMetadata().offset());
-            }
-        });
+    public void publishProfileUpdatedEvent(UUID userId, UUID profileId) {
+        outboxWriter.append(profileEvent(UserEvent.UserEventType.PROFILE_UPDATED, userId, profileId));
     }
 
-    @SuppressWarnings("unused")
-    private void publishEventFallback(User user, Exception ex) {
-        log.error("Circuit breaker open for Kafka producer. Event not published for user: {}. Error: {}",
-                user.getId(), ex.getMessage());
-        // In production, you might want to:
-        // 1. Store events in a local queue/database for later retry
-        // 2. Send to a DLQ (Dead Letter Queue)
-        // 3. Trigger an alert
+    public void publishProfileDeletedEvent(UUID userId, UUID profileId) {
+        outboxWriter.append(profileEvent(UserEvent.UserEventType.PROFILE_DELETED, userId, profileId));
     }
 
-    @SuppressWarnings("unused")
-    private void publishEventFallback(User user, Profile profile, Exception ex) {
-        log.error("Circuit breaker open for Kafka producer. Profile event not published for user: {}. Error: {}",
-                user.getId(), ex.getMessage());
+    private UserEvent profileEvent(UserEvent.UserEventType type, UUID userId, UUID profileId) {
+        return UserEvent.builder()
+                .eventId(UUID.randomUUID().toString())
+                .eventType(type.name())
+                .timestamp(Instant.now())
+                .source(SOURCE)
+                .userId(userId.toString())
+                .profileId(profileId.toString())
+                .userEventType(type)
+                .version(1)
+                .build();
     }
 }
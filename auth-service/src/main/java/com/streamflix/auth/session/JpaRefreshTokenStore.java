@@ -0,0 +1,105 @@
+package com.streamflix.auth.session;
+
+import com.streamflix.auth.entity.RefreshToken;
+import com.streamflix.auth.repository.RefreshTokenRepository;
+import com.streamflix.auth.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Refresh-token sessions in the refresh_tokens table (default store).
+ *
+ * Rotation revokes the old row with a conditional UPDATE, so of two
+ * concurrent refreshes with the same token only one succeeds.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "security.session-store.type", havingValue = "jpa", matchIfMissing = true)
+public class JpaRefreshTokenStore implements RefreshTokenStore {
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserRepository userRepository;
+
+    @Override
+    @Transactional
+    public void create(RefreshSession session) {
+        refreshTokenRepository.save(toEntity(session));
+    }
+
+    @Override
+    @Transactional
+    public Optional<RefreshSession> rotate(UUID userId, String oldTokenHash, String newTokenHash,
+                                           Instant expiresAt, String ipAddress, String userAgent) {
+        Optional<RefreshToken> current = refreshTokenRepository.findSessionByTokenHash(oldTokenHash);
+        Instant now = Instant.now();
+        if (current.isEmpty()
+                || refreshTokenRepository.revokeValidByTokenHash(userId, oldTokenHash, now, "Token rotated") == 0) {
+            return Optional.empty();
+        }
+
+        RefreshSession rotated = toSession(userId, current.get()).toBuilder()
+                .tokenHash(newTokenHash)
+                .ipAddress(ipAddress)
+                .userAgent(userAgent)
+                .issuedAt(now)
+                .expiresAt(expiresAt)
+                .build();
+        refreshTokenRepository.save(toEntity(rotated));
+        return Optional.of(rotated);
+    }
+
+    @Override
+    @Transactional
+    public boolean revoke(UUID userId, String tokenHash, String reason) {
+        return refreshTokenRepository.revokeValidByTokenHash(userId, tokenHash, Instant.now(), reason) > 0;
+    }
+
+    @Override
+    @Transactional
+    public int revokeAll(UUID userId, String reason) {
+        return refreshTokenRepository.revokeAllByUserId(userId, Instant.now(), reason);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<RefreshSession> findActive(UUID userId) {
+        return refreshTokenRepository.findActiveByUserId(userId, Instant.now()).stream()
+                .map(token -> toSession(userId, token))
+                .toList();
+    }
+
+    private RefreshToken toEntity(RefreshSession session) {
+        return RefreshToken.builder()
+                .user(userRepository.getReferenceById(session.getUserId()))
+                .tokenHash(session.getTokenHash())
+                .deviceId(session.getDeviceId())
+                .deviceType(session.getDeviceType())
+                .deviceName(session.getDeviceName())
+                .ipAddress(session.getIpAddress())
+                .userAgent(session.getUserAgent())
+                .issuedAt(session.getIssuedAt())
+                .expiresAt(session.getExpiresAt())
+                .build();
+    }
+
+    private static RefreshSession toSession(UUID userId, RefreshToken token) {
+        return RefreshSession.builder()
+                .userId(userId)
+                .tokenHash(token.getTokenHash())
+                .deviceId(token.getDeviceId())
+                .deviceType(token.getDeviceType())
+                .deviceName(token.getDeviceName())
+                .ipAddress(token.getIpAddress())
+                .userAgent(token.getUserAgent())
+                .issuedAt(token.getIssuedAt())
+                .expiresAt(token.getExpiresAt())
+                .build();
+    }
+}
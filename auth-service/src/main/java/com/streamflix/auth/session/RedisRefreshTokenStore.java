@@ -0,0 +1,176 @@
+package com.streamflix.auth.session;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Refresh-token sessions in Redis (security.session-store.type=redis).
+ *
+ * Layout: one hash per user, auth:sessions:{userId}, mapping token hash to
+ * the session as JSON. Everything about a user's sessions is in one key:
+ * - create / rotate are single Lua scripts (scripts/session_*.lua); rotate
+ *   removes the presented token and stores its replacement atomically, so
+ *   a replayed or concurrently used token fails
+ * - revoke is HDEL, revoke-all counts and deletes the hash in one script
+ *   (scripts/session_revoke_all.lua), listing sessions is HGETALL
+ * - the key expires one token lifetime after its last write
+ *
+ * Redis is authoritative for validity. refresh_tokens is still written,
+ * behind and in batches, by RefreshTokenAuditWriter.
+ *
+ * Switching an existing deployment from the jpa store does not migrate
+ * sessions: tokens issued before the switch fail to refresh and those
+ * clients sign in again.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "security.session-store.type", havingValue = "redis")
+public class RedisRefreshTokenStore implements RefreshTokenStore {
+
+    private static final String KEY_PREFIX = "auth:sessions:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final RefreshTokenAuditWriter auditWriter;
+    private final String keyTtlSeconds;
+
+    private final RedisScript<Long> createScript;
+    private final RedisScript<String> rotateScript;
+    private final RedisScript<Long> revokeAllScript;
+
+    public RedisRefreshTokenStore(
+            StringRedisTemplate redisTemplate,
+            ObjectMapper objectMapper,
+            RefreshTokenAuditWriter auditWriter,
+            @Value("${jwt.refresh-token-expiration}") long refreshTokenExpirationMillis) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.auditWriter = auditWriter;
+        this.keyTtlSeconds = String.valueOf(Math.max(1, refreshTokenExpirationMillis / 1000));
+        this.createScript = RedisScript.of(new ClassPathResource("scripts/session_create.lua"), Long.class);
+        this.rotateScript = RedisScript.of(new ClassPathResource("scripts/session_rotate.lua"), String.class);
+        this.revokeAllScript = RedisScript.of(new ClassPathResource("scripts/session_revoke_all.lua"), Long.class);
+        log.info("Refresh-token sessions stored in Redis");
+    }
+
+    @Override
+    public void create(RefreshSession session) {
+        redisTemplate.execute(createScript, List.of(key(session.getUserId())),
+                session.getTokenHash(),
+                toJson(session),
+                String.valueOf(Instant.now().toEpochMilli()),
+                keyTtlSeconds);
+        auditWriter.created(session);
+    }
+
+    @Override
+    public Optional<RefreshSession> rotate(UUID userId, String oldTokenHash, String newTokenHash,
+                                           Instant expiresAt, String ipAddress, String userAgent) {
+        String replacement = redisTemplate.execute(rotateScript, List.of(key(userId)),
+                oldTokenHash,
+                newTokenHash,
+                String.valueOf(Instant.now().toEpochMilli()),
+                String.valueOf(expiresAt.toEpochMilli()),
+                ipAddress != null ? ipAddress : "",
+                userAgent != null ? userAgent : "",
+                keyTtlSeconds);
+        if (replacement == null) {
+            return Optional.empty();
+        }
+
+        RefreshSession session = fromJson(userId, replacement);
+        auditWriter.revoked(userId, oldTokenHash, "Token rotated");
+        auditWriter.created(session);
+        return Optional.of(session);
+    }
+
+    @Override
+    public boolean revoke(UUID userId, String tokenHash, String reason) {
+        Long removed = redisTemplate.opsForHash().delete(key(userId), tokenHash);
+        boolean revoked = removed != null && removed > 0;
+        if (revoked) {
+            auditWriter.revoked(userId, tokenHash, reason);
+        }
+        return revoked;
+    }
+
+    @Override
+    public int revokeAll(UUID userId, String reason) {
+        Long count = redisTemplate.execute(revokeAllScript, List.of(key(userId)));
+        auditWriter.revokedAll(userId, reason);
+        return count != null ? count.intValue() : 0;
+    }
+
+    @Override
+    public List<RefreshSession> findActive(UUID userId) {
+        Map<Object, Object> entries = redisTemplate.opsForHash().entries(key(userId));
+        Instant now = Instant.now();
+        List<RefreshSession> sessions = new ArrayList<>(entries.size());
+        for (Object value : entries.values()) {
+            RefreshSession session = fromJson(userId, (String) value);
+            if (!session.isExpired(now)) {
+                sessions.add(session);
+            }
+        }
+        sessions.sort(Comparator.comparing(RefreshSession::getIssuedAt).reversed());
+        return sessions;
+    }
+
+    private static String key(UUID userId) {
+        return KEY_PREFIX + userId;
+    }
+
+    private String toJson(RefreshSession session) {
+        ObjectNode node = objectMapper.createObjectNode()
+                .put("tokenHash", session.getTokenHash())
+                .put("deviceId", session.getDeviceId())
+                .put("deviceType", session.getDeviceType())
+                .put("deviceName", session.getDeviceName())
+                .put("ipAddress", session.getIpAddress())
+                .put("userAgent", session.getUserAgent())
+                .put("issuedAt", session.getIssuedAt().toEpochMilli())
+                .put("expiresAt", session.getExpiresAt().toEpochMilli());
+        return node.toString();
+    }
+
+    private RefreshSession fromJson(UUID userId, String json) {
+        try {
+            JsonNode node = objectMapper.readTree(json);
+            return RefreshSession.builder()
+                    .userId(userId)
+                    .tokenHash(text(node, "tokenHash"))
+                    .deviceId(text(node, "deviceId"))
+                    .deviceType(text(node, "deviceType"))
+                    .deviceName(text(node, "deviceName"))
+                    .ipAddress(text(node, "ipAddress"))
+                    .userAgent(text(node, "userAgent"))
+                    .issuedAt(Instant.ofEpochMilli(node.path("issuedAt").asLong()))
+                    .expiresAt(Instant.ofEpochMilli(node.path("expiresAt").asLong()))
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Corrupt session entry for user " + userId, e);
+        }
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+}
@@ -0,0 +1,33 @@
+package com.streamflix.auth.session;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * An active refresh token (one per signed-in device), as held by a RefreshTokenStore.
+ */
+@Getter
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefreshSession {
+
+    private UUID userId;
+    private String tokenHash;
+    private String deviceId;
+    private String deviceType;
+    private String deviceName;
+    private String ipAddress;
+    private String userAgent;
+    private Instant issuedAt;
+    private Instant expiresAt;
+
+    public boolean isExpired(Instant now) {
+        return !expiresAt.isAfter(now);
+    }
+}
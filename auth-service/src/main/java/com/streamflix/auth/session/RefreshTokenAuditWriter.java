@@ -0,0 +1,228 @@
+package com.streamflix.auth.session;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes Redis session changes behind to refresh_tokens, for auditing.
+ *
+ * Each flush applies one batch in a single transaction: inserts first
+ * (idempotent on token_hash, expires_at), then revocations, then
+ * revoke-all, so a revocation always finds the row it refers to. A failed
+ * batch stays pending and is retried before anything newer is drained, so
+ * changes are applied in the order they happened. After max-retries the
+ * batch is applied one change at a time and only the changes that still
+ * fail are dropped (logged and counted). The queue is bounded and drops
+ * (counted, logged at most every drop-log-interval) when full, since
+ * Redis, not this table, is authoritative.
+ *
+ * Metrics:
+ * - auth.sessions.audit.queue (queued changes, excluding a pending retry)
+ * - auth.sessions.audit.dropped
+ * - auth.sessions.audit.flush (batch write time)
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "security.session-store.type", havingValue = "redis")
+public class RefreshTokenAuditWriter {
+
+    private static final String INSERT_TOKEN =
+            "INSERT INTO refresh_tokens (id, user_id, token_hash, device_id, device_type, device_name, "
+            + "ip_address, user_agent, issued_at, expires_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) "
+            + "ON CONFLICT (token_hash, expires_at) DO NOTHING";
+
+    private static final String REVOKE_TOKEN =
+            "UPDATE refresh_tokens SET revoked_at = ?, revoked_reason = ? "
+            + "WHERE token_hash = ? AND revoked_at IS NULL";
+
+    private static final String REVOKE_ALL =
+            "UPDATE refresh_tokens SET revoked_at = ?, revoked_reason = ? "
+            + "WHERE user_id = ? AND revoked_at IS NULL AND issued_at <= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<Change> queue;
+    private final int maxBatchSize;
+    private final int maxRetries;
+
+    // Batch currently being written; only touched under the flush lock
+    private final List<Change> pending = new ArrayList<>();
+    private int pendingFailures;
+
+    private final long dropLogIntervalNanos;
+    private final AtomicLong lastDropLog;
+    private final AtomicLong droppedSinceLog = new AtomicLong();
+
+    private final Counter droppedCounter;
+    private final Timer flushTimer;
+
+    public RefreshTokenAuditWriter(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${security.session-store.audit.queue-capacity:50000}") int queueCapacity,
+            @Value("${security.session-store.audit.max-batch-size:1000}") int maxBatchSize,
+            @Value("${security.session-store.audit.max-retries:5}") int maxRetries,
+            @Value("${security.session-store.audit.drop-log-interval:10s}") Duration dropLogInterval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatchSize = maxBatchSize;
+        this.maxRetries = maxRetries;
+        this.dropLogIntervalNanos = dropLogInterval.toNanos();
+        this.lastDropLog = new AtomicLong(System.nanoTime() - dropLogIntervalNanos);
+
+        meterRegistry.gauge("auth.sessions.audit.queue", queue, BlockingQueue::size);
+        this.droppedCounter = meterRegistry.counter("auth.sessions.audit.dropped");
+        this.flushTimer = meterRegistry.timer("auth.sessions.audit.flush");
+    }
+
+    public void created(RefreshSession session) {
+        enqueue(new Change(session, session.getUserId(), session.getTokenHash(), null, session.getIssuedAt()));
+    }
+
+    public void revoked(UUID userId, String tokenHash, String reason) {
+        enqueue(new Change(null, userId, tokenHash, reason, Instant.now()));
+    }
+
+    public void revokedAll(UUID userId, String reason) {
+        enqueue(new Change(null, userId, null, reason, Instant.now()));
+    }
+
+    private void enqueue(Change change) {
+        if (!queue.offer(change)) {
+            droppedCounter.increment();
+            droppedSinceLog.incrementAndGet();
+            long now = System.nanoTime();
+            long last = lastDropLog.get();
+            if (now - last >= dropLogIntervalNanos && lastDropLog.compareAndSet(last, now)) {
+                log.warn("Session audit queue full, dropped {} changes since last report",
+                        droppedSinceLog.getAndSet(0));
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${security.session-store.audit.flush-interval-ms:500}")
+    public synchronized void flush() {
+        while (!pending.isEmpty() || queue.drainTo(pending, maxBatchSize) > 0) {
+            try {
+                flushTimer.record(() -> transactionTemplate.executeWithoutResult(status -> write(pending)));
+            } catch (RuntimeException e) {
+                if (++pendingFailures < maxRetries) {
+                    log.warn("Failed to write {} session audit changes (attempt {}), retrying on next flush: {}",
+                            pending.size(), pendingFailures, e.getMessage());
+                    return;
+                }
+                log.error("Failed to write {} session audit changes after {} attempts, applying them one by one: {}",
+                        pending.size(), pendingFailures, e.getMessage());
+                writeIndividually();
+            }
+            pending.clear();
+            pendingFailures = 0;
+        }
+    }
+
+    /**
+     * Apply the pending batch one change at a time, in order, dropping only
+     * the changes that fail on their own.
+     */
+    private void writeIndividually() {
+        for (Change change : pending) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> write(List.of(change)));
+            } catch (RuntimeException e) {
+                droppedCounter.increment();
+                log.error("Dropping session audit change for user {}: {}", change.userId, e.getMessage());
+            }
+        }
+    }
+
+    private void write(List<Change> batch) {
+        List<Change> inserts = new ArrayList<>();
+        List<Change> revocations = new ArrayList<>();
+        List<Change> revokeAlls = new ArrayList<>();
+        for (Change change : batch) {
+            if (change.session != null) {
+                inserts.add(change);
+            } else if (change.tokenHash != null) {
+                revocations.add(change);
+            } else {
+                revokeAlls.add(change);
+            }
+        }
+
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_TOKEN, inserts, inserts.size(), (ps, change) -> {
+                RefreshSession session = change.session;
+                ps.setObject(1, UUID.randomUUID());
+                ps.setObject(2, session.getUserId());
+                ps.setString(3, session.getTokenHash());
+                ps.setString(4, session.getDeviceId());
+                ps.setString(5, session.getDeviceType());
+                ps.setString(6, session.getDeviceName());
+                ps.setString(7, session.getIpAddress());
+                ps.setString(8, session.getUserAgent());
+                ps.setTimestamp(9, Timestamp.from(session.getIssuedAt()));
+                ps.setTimestamp(10, Timestamp.from(session.getExpiresAt()));
+            });
+        }
+        if (!revocations.isEmpty()) {
+            jdbcTemplate.batchUpdate(REVOKE_TOKEN, revocations, revocations.size(), (ps, change) -> {
+                ps.setTimestamp(1, Timestamp.from(change.at));
+                ps.setString(2, change.reason);
+                ps.setString(3, change.tokenHash);
+            });
+        }
+        if (!revokeAlls.isEmpty()) {
+            jdbcTemplate.batchUpdate(REVOKE_ALL, revokeAlls, revokeAlls.size(), (ps, change) -> {
+                ps.setTimestamp(1, Timestamp.from(change.at));
+                ps.setString(2, change.reason);
+                ps.setObject(3, change.userId);
+                ps.setTimestamp(4, Timestamp.from(change.at));
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * A created session, a single revocation (tokenHash set) or a revoke-all.
+     */
+    private static final class Change {
+        private final RefreshSession session;
+        private final UUID userId;
+        private final String tokenHash;
+        private final String reason;
+        private final Instant at;
+
+        Change(RefreshSession session, UUID userId, String tokenHash, String reason, Instant at) {
+            this.session = session;
+            this.userId = userId;
+            this.tokenHash = tokenHash;
+            this.reason = reason;
+            this.at = at;
+        }
+    }
+}
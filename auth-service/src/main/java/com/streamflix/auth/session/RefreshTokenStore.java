@@ -0,0 +1,52 @@
+package com.streamflix.auth.session;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Storage for active refresh-token sessions.
+ *
+ * Selected with security.session-store.type:
+ * - jpa (default): refresh_tokens in Postgres, as before
+ * - redis: one hash per user in Redis, rotated atomically by a script,
+ *   with refresh_tokens written behind for audit
+ *
+ * Tokens are identified by their SHA-256 hash; raw tokens are never stored.
+ */
+public interface RefreshTokenStore {
+
+    /**
+     * Store a new session (login).
+     */
+    void create(RefreshSession session);
+
+    /**
+     * Atomically replace a valid session with a new token for the same device.
+     *
+     * @return the new session, or empty if the old token is unknown, expired
+     *         or already rotated/revoked
+     */
+    Optional<RefreshSession> rotate(UUID userId, String oldTokenHash, String newTokenHash,
+                                    Instant expiresAt, String ipAddress, String userAgent);
+
+    /**
+     * Revoke one session.
+     *
+     * @return true if an active session was revoked
+     */
+    boolean revoke(UUID userId, String tokenHash, String reason);
+
+    /**
+     * Revoke every session of a user.
+     *
+     * @return number of sessions revoked
+     */
+    int revokeAll(UUID userId, String reason);
+
+    /**
+     * Active sessions of a user, most recently issued first.
+     */
+    List<RefreshSession> findActive(UUID userId);
+}
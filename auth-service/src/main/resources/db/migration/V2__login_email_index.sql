@@ -0,0 +1,10 @@
+-- Streamflix Auth Service Database Schema
+-- Version: 2
+-- Description: Case-insensitive email index for the login lookup
+
+-- Login and registration match LOWER(email) = LOWER(:email), which a plain
+-- index on email cannot serve. Same partial predicate as the queries.
+CREATE INDEX idx_users_email_lower ON users (LOWER(email)) WHERE deleted_at IS NULL;
+
+-- Superseded: exact-match lookups are covered by the UNIQUE constraint's index
+DROP INDEX IF EXISTS idx_users_email;
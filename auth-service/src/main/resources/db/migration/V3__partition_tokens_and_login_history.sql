@@ -0,0 +1,122 @@
+-- Streamflix Auth Service Database Schema
+-- Version: 3
+-- Description: Monthly range partitions for refresh_tokens and login_history
+
+-- refresh_tokens is partitioned by expires_at and login_history by login_at,
+-- one partition per calendar month (UTC). Once a whole month is past the
+-- retention window, PartitionMaintenance detaches and drops its partition
+-- instead of deleting rows; BatchedPurger trims the month at the boundary.
+--
+-- Postgres requires the partition key in every unique constraint, so the
+-- primary keys become (id, <key>) and token_hash is unique per expires_at.
+-- Token hashes are SHA-256 of signed JWTs, so this loses nothing in practice.
+
+-- Creates the partition of parent for the month containing month_start,
+-- named <parent>_pYYYYMM. Also called by PartitionMaintenance.
+-- Both bounds are computed on plain dates and timestamps and only then
+-- converted AT TIME ZONE 'UTC', so the session TimeZone cannot shift them
+-- and consecutive months always meet without a gap.
+CREATE OR REPLACE FUNCTION create_monthly_partition(parent TEXT, month_start DATE)
+RETURNS TEXT AS $$
+DECLARE
+    first_day DATE := date_trunc('month', month_start::TIMESTAMP)::DATE;
+    lower_bound TIMESTAMP WITH TIME ZONE := first_day::TIMESTAMP AT TIME ZONE 'UTC';
+    upper_bound TIMESTAMP WITH TIME ZONE := (first_day + INTERVAL '1 month')::TIMESTAMP AT TIME ZONE 'UTC';
+    partition_name TEXT := parent || '_p' || to_char(first_day, 'YYYYMM');
+BEGIN
+    EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, parent, lower_bound, upper_bound);
+    RETURN partition_name;
+END;
+$$ language 'plpgsql';
+
+-- Refresh tokens
+ALTER TABLE refresh_tokens RENAME TO refresh_tokens_unpartitioned;
+
+CREATE TABLE refresh_tokens (
+    id UUID NOT NULL DEFAULT uuid_generate_v4(),
+    user_id UUID NOT NULL,
+    token_hash VARCHAR(255) NOT NULL,
+    device_id VARCHAR(255),
+    device_type VARCHAR(50),
+    device_name VARCHAR(100),
+    ip_address VARCHAR(45),
+    user_agent VARCHAR(500),
+    issued_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+    expires_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    revoked_at TIMESTAMP WITH TIME ZONE,
+    revoked_reason VARCHAR(255)
+) PARTITION BY RANGE (expires_at);
+
+DO $$
+DECLARE
+    month_start DATE;
+BEGIN
+    SELECT COALESCE(date_trunc('month', MIN(expires_at) AT TIME ZONE 'UTC'), date_trunc('month', now() AT TIME ZONE 'UTC'))::DATE
+      INTO month_start FROM refresh_tokens_unpartitioned;
+    WHILE month_start <= (now() AT TIME ZONE 'UTC' + INTERVAL '3 months')::DATE LOOP
+        PERFORM create_monthly_partition('refresh_tokens', month_start);
+        month_start := (month_start + INTERVAL '1 month')::DATE;
+    END LOOP;
+END $$;
+
+INSERT INTO refresh_tokens (id, user_id, token_hash, device_id, device_type, device_name, ip_address,
+                            user_agent, issued_at, expires_at, revoked_at, revoked_reason)
+SELECT id, user_id, token_hash, device_id, device_type, device_name, ip_address,
+       user_agent, issued_at, expires_at, revoked_at, revoked_reason
+FROM refresh_tokens_unpartitioned;
+
+DROP TABLE refresh_tokens_unpartitioned;
+
+ALTER TABLE refresh_tokens ADD PRIMARY KEY (id, expires_at);
+ALTER TABLE refresh_tokens ADD CONSTRAINT refresh_tokens_token_hash_key UNIQUE (token_hash, expires_at);
+ALTER TABLE refresh_tokens ADD CONSTRAINT refresh_tokens_user_id_fkey
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE;
+
+-- Token-hash lookups use the unique constraint's index (leading column)
+CREATE INDEX idx_refresh_tokens_user_id ON refresh_tokens(user_id);
+-- Keyset order for BatchedPurger
+CREATE INDEX idx_refresh_tokens_expires_at ON refresh_tokens(expires_at, id);
+
+-- Login history
+ALTER TABLE login_history RENAME TO login_history_unpartitioned;
+
+CREATE TABLE login_history (
+    id UUID NOT NULL DEFAULT uuid_generate_v4(),
+    user_id UUID NOT NULL,
+    login_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    ip_address VARCHAR(45),
+    user_agent VARCHAR(500),
+    device_type VARCHAR(50),
+    location_country VARCHAR(100),
+    location_city VARCHAR(100),
+    success BOOLEAN NOT NULL,
+    failure_reason VARCHAR(255)
+) PARTITION BY RANGE (login_at);
+
+DO $$
+DECLARE
+    month_start DATE;
+BEGIN
+    SELECT COALESCE(date_trunc('month', MIN(login_at) AT TIME ZONE 'UTC'), date_trunc('month', now() AT TIME ZONE 'UTC'))::DATE
+      INTO month_start FROM login_history_unpartitioned;
+    WHILE month_start <= (now() AT TIME ZONE 'UTC' + INTERVAL '3 months')::DATE LOOP
+        PERFORM create_monthly_partition('login_history', month_start);
+        month_start := (month_start + INTERVAL '1 month')::DATE;
+    END LOOP;
+END $$;
+
+INSERT INTO login_history (id, user_id, login_at, ip_address, user_agent, device_type,
+                           location_country, location_city, success, failure_reason)
+SELECT id, user_id, COALESCE(login_at, CURRENT_TIMESTAMP), ip_address, user_agent, device_type,
+       location_country, location_city, success, failure_reason
+FROM login_history_unpartitioned;
+
+DROP TABLE login_history_unpartitioned;
+
+ALTER TABLE login_history ADD PRIMARY KEY (id, login_at);
+ALTER TABLE login_history ADD CONSTRAINT login_history_user_id_fkey
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE;
+
+CREATE INDEX idx_login_history_user_id ON login_history(user_id);
+CREATE INDEX idx_login_history_login_at ON login_history(login_at, id);
@@ -0,0 +1,41 @@
+-- Streamflix Auth Service Database Schema
+-- Version: 4
+-- Description: Transactional outbox for user events
+
+-- Events are inserted in the transaction that makes the change they
+-- describe and published to Kafka by OutboxRelay, which deletes each row
+-- once the broker has acknowledged it.
+--
+-- Failed sends are retried after next_attempt_at. Transport failures
+-- (broker unreachable, no acknowledgement) are counted separately and
+-- retried indefinitely with backoff; only failures caused by the row
+-- itself count towards attempts, and rows reaching the cap are moved to
+-- event_outbox_dead_letter.
+CREATE TABLE event_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    topic VARCHAR(255) NOT NULL,
+    event_key VARCHAR(255),
+    payload JSONB NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    next_attempt_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    transport_failures INTEGER NOT NULL DEFAULT 0,
+    last_error VARCHAR(1000)
+);
+
+-- Queue table: every row is inserted and deleted once, so vacuum it by
+-- dead-row count rather than as a fraction of a table that stays small
+ALTER TABLE event_outbox SET (autovacuum_vacuum_scale_factor = 0.0, autovacuum_vacuum_threshold = 1000);
+
+-- Events that could not be published however often they were retried,
+-- kept for inspection and manual replay
+CREATE TABLE event_outbox_dead_letter (
+    id BIGINT PRIMARY KEY,
+    topic VARCHAR(255) NOT NULL,
+    event_key VARCHAR(255),
+    payload JSONB NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    dead_lettered_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    attempts INTEGER NOT NULL,
+    last_error VARCHAR(1000)
+);
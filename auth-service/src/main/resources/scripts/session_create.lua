@@ -0,0 +1,25 @@
+-- Store a new refresh-token session in the user's session hash.
+--
+-- KEYS[1]  hash of the user's sessions: token hash -> session JSON
+-- ARGV[1]  token hash of the new session
+-- ARGV[2]  session JSON (issuedAt / expiresAt in epoch milliseconds)
+-- ARGV[3]  current time in epoch milliseconds
+-- ARGV[4]  key TTL in seconds (refresh token lifetime)
+--
+-- Expired sessions of the user are pruned on the way, so the hash only
+-- grows with the number of signed-in devices.
+
+local key = KEYS[1]
+local now = tonumber(ARGV[3])
+
+local entries = redis.call('HGETALL', key)
+for i = 1, #entries, 2 do
+  local session = cjson.decode(entries[i + 1])
+  if tonumber(session.expiresAt) <= now then
+    redis.call('HDEL', key, entries[i])
+  end
+end
+
+redis.call('HSET', key, ARGV[1], ARGV[2])
+redis.call('EXPIRE', key, tonumber(ARGV[4]))
+return 1
@@ -0,0 +1,12 @@
+-- Revoke every refresh-token session of a user.
+--
+-- KEYS[1]  hash of the user's sessions: token hash -> session JSON
+--
+-- Counting and deleting in one script keeps the count exact when a
+-- session is created or rotated concurrently.
+--
+-- Returns the number of sessions removed
+
+local count = redis.call('HLEN', KEYS[1])
+redis.call('DEL', KEYS[1])
+return count
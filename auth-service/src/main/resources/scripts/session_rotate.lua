@@ -0,0 +1,39 @@
+-- Rotate a refresh token: remove the presented session and store its
+-- replacement for the same device, atomically.
+--
+-- KEYS[1]  hash of the user's sessions: token hash -> session JSON
+-- ARGV[1]  token hash being presented
+-- ARGV[2]  token hash of the replacement
+-- ARGV[3]  current time in epoch milliseconds
+-- ARGV[4]  replacement expiry in epoch milliseconds
+-- ARGV[5]  client IP address ("" if unknown)
+-- ARGV[6]  user agent ("" if unknown)
+-- ARGV[7]  key TTL in seconds (refresh token lifetime)
+--
+-- Returns the replacement session JSON, or false if the presented token is
+-- unknown, expired or was already rotated (so a replayed token fails).
+
+local key = KEYS[1]
+local now = tonumber(ARGV[3])
+
+local current = redis.call('HGET', key, ARGV[1])
+if not current then
+  return false
+end
+redis.call('HDEL', key, ARGV[1])
+
+local session = cjson.decode(current)
+if tonumber(session.expiresAt) <= now then
+  return false
+end
+
+session.tokenHash = ARGV[2]
+session.issuedAt = now
+session.expiresAt = tonumber(ARGV[4])
+session.ipAddress = ARGV[5] ~= '' and ARGV[5] or cjson.null
+session.userAgent = ARGV[6] ~= '' and ARGV[6] or cjson.null
+
+local replacement = cjson.encode(session)
+redis.call('HSET', key, ARGV[2], replacement)
+redis.call('EXPIRE', key, tonumber(ARGV[7]))
+return replacement
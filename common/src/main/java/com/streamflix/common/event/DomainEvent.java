@@ -48,6 +48,8 @@ import java.util.UUID;
     @JsonSubTypes.Type(value = UserEvent.class, name = "USER_REGISTERED"),
     @JsonSubTypes.Type(value = UserEvent.class, name = "USER_LOGIN"),
     @JsonSubTypes.Type(value = UserEvent.class, name = "PROFILE_CREATED"),
+    @JsonSubTypes.Type(value = UserEvent.class, name = "PROFILE_UPDATED"),
+    @JsonSubTypes.Type(value = UserEvent.class, name = "PROFILE_DELETED"),
     @JsonSubTypes.Type(value = ContentEvent.class, name = "CONTENT_ADDED"),
     @JsonSubTypes.Type(value = ContentEvent.class, name = "CONTENT_UPDATED"),
     @JsonSubTypes.Type(value = SearchEvent.class, name = "SEARCH_PERFORMED")
@@ -29,4 +29,8 @@ public class AuthenticationException extends StreamflixException {
     public static AuthenticationException invalidToken() {
         return new AuthenticationException("INVALID_TOKEN", "Authentication token is invalid");
     }
+
+    public static AuthenticationException tokenRevoked() {
+        return new AuthenticationException("TOKEN_REVOKED", "Authentication token has been revoked");
+    }
 }
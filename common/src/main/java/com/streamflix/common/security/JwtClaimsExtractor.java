@@ -16,6 +16,10 @@ import java.util.Optional;
  *
  * Used by services to validate and extract user information
  * from tokens passed by the API Gateway.
+ *
+ * Requests routed through the gateway already carry a verified
+ * X-User-Context header; prefer UserContextFilter and UserContextHolder,
+ * and use this class only where a raw token must be inspected.
  */
 @Slf4j
 public class JwtClaimsExtractor {
@@ -19,6 +19,7 @@ public final class SecurityConstants {
     public static final String API_VERSION_HEADER = "X-API-Version";
     public static final String REQUEST_ID_HEADER = "X-Request-ID";
     public static final String DEVICE_ID_HEADER = "X-Device-ID";
+    public static final String USER_CONTEXT_HEADER = "X-User-Context";
 
     // JWT claim keys
     public static final String CLAIM_USER_ID = "userId";
@@ -32,6 +33,9 @@ public final class SecurityConstants {
     public static final String TOKEN_TYPE_ACCESS = "ACCESS";
     public static final String TOKEN_TYPE_REFRESH = "REFRESH";
 
+    // Redis key prefix (+ jti) of access tokens revoked at logout
+    public static final String TOKEN_BLACKLIST_PREFIX = "jwt:blacklist:";
+
     // Roles
     public static final String ROLE_USER = "ROLE_USER";
     public static final String ROLE_ADMIN = "ROLE_ADMIN";
@@ -0,0 +1,288 @@
+package com.streamflix.common.security;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Compact, MAC-protected encoding of the authenticated user context.
+ *
+ * The API Gateway encodes the claims it has already verified into a single
+ * X-User-Context header; services decode it with one truncated HMAC-SHA256
+ * instead of re-parsing the JWT or several plain headers.
+ *
+ * Layout (base64url, no padding):
+ *   version(1) issuedAtSeconds(4) userId profileId email deviceId roles mac(16)
+ *
+ * - String fields are a tag byte: 0 absent, 1 UUID (16 bytes follow),
+ *   2 UTF-8 (1-byte length and up to 255 bytes follow), 3 long UTF-8
+ *   (2-byte length and up to 65535 bytes follow). Longer values are cut
+ *   at a character boundary; token claims never come close, so encode
+ *   does not fail on field length
+ * - Roles are a count byte, then per role either the index of a well-known
+ *   role from SecurityConstants or 0xFF followed by a UTF-8 field
+ * - The MAC covers every preceding byte. Headers older (or newer) than
+ *   the configured max age are rejected, which bounds replay
+ *
+ * Instances are thread-safe; each thread keeps its own Mac.
+ */
+public final class UserContextCodec {
+
+    private static final byte VERSION = 1;
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final int MAC_LENGTH = 16;
+    private static final int MAX_HEADER_LENGTH = 8192;
+
+    private static final byte ABSENT = 0;
+    private static final byte UUID_FIELD = 1;
+    private static final byte UTF8_FIELD = 2;
+    private static final byte LONG_UTF8_FIELD = 3;
+    private static final int MAX_FIELD_BYTES = 0xFFFF;
+    private static final int CUSTOM_ROLE = 0xFF;
+
+    private static final String[] KNOWN_ROLES = {
+            SecurityConstants.ROLE_USER,
+            SecurityConstants.ROLE_ADMIN,
+            SecurityConstants.ROLE_CONTENT_MANAGER,
+            SecurityConstants.ROLE_ANALYTICS_VIEWER
+    };
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+    private final long maxAgeSeconds;
+    private final ThreadLocal<Mac> macs;
+
+    public UserContextCodec(String secret, Duration maxAge) {
+        if (secret == null || secret.length() < 32) {
+            throw new IllegalArgumentException("User context secret must be at least 32 characters");
+        }
+        this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), MAC_ALGORITHM);
+        this.maxAgeSeconds = maxAge.toSeconds();
+        this.macs = ThreadLocal.withInitial(this::newMac);
+    }
+
+    /**
+     * Encode a verified user context into a header value.
+     */
+    public String encode(String userId, String profileId, String email, String deviceId, List<String> roles) {
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        buffer.put(VERSION);
+        buffer.putInt((int) (System.currentTimeMillis() / 1000));
+        buffer = putField(buffer, userId);
+        buffer = putField(buffer, profileId);
+        buffer = putField(buffer, email);
+        buffer = putField(buffer, deviceId);
+
+        int roleCount = roles != null ? Math.min(roles.size(), 255) : 0;
+        buffer = ensure(buffer, 1);
+        buffer.put((byte) roleCount);
+        for (int i = 0; i < roleCount; i++) {
+            String role = roles.get(i);
+            int known = knownRoleIndex(role);
+            buffer = ensure(buffer, 1);
+            if (known >= 0) {
+                buffer.put((byte) known);
+            } else {
+                buffer.put((byte) CUSTOM_ROLE);
+                buffer = putField(buffer, role);
+            }
+        }
+
+        buffer = ensure(buffer, MAC_LENGTH);
+        int length = buffer.position();
+        Mac mac = macs.get();
+        mac.update(buffer.array(), 0, length);
+        buffer.put(mac.doFinal(), 0, MAC_LENGTH);
+        return ENCODER.encodeToString(Arrays.copyOf(buffer.array(), buffer.position()));
+    }
+
+    /**
+     * Verify and decode a header value.
+     *
+     * @return the user context, or null if the header is malformed, forged or expired
+     */
+    public UserContext decode(String header, String correlationId) {
+        if (header == null || header.isEmpty() || header.length() > MAX_HEADER_LENGTH) {
+            return null;
+        }
+        byte[] bytes;
+        try {
+            bytes = DECODER.decode(header);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        int signedLength = bytes.length - MAC_LENGTH;
+        if (signedLength < 5 || bytes[0] != VERSION) {
+            return null;
+        }
+
+        Mac mac = macs.get();
+        mac.update(bytes, 0, signedLength);
+        byte[] expected = mac.doFinal();
+        if (!MessageDigest.isEqual(Arrays.copyOf(expected, MAC_LENGTH),
+                Arrays.copyOfRange(bytes, signedLength, bytes.length))) {
+            return null;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, signedLength);
+        buffer.get();
+        long issuedAt = Integer.toUnsignedLong(buffer.getInt());
+        long now = System.currentTimeMillis() / 1000;
+        if (Math.abs(now - issuedAt) > maxAgeSeconds) {
+            return null;
+        }
+
+        try {
+            String userId = getField(buffer);
+            String profileId = getField(buffer);
+            String email = getField(buffer);
+            String deviceId = getField(buffer);
+            int roleCount = buffer.get() & 0xFF;
+            List<String> roles = new ArrayList<>(roleCount);
+            for (int i = 0; i < roleCount; i++) {
+                int code = buffer.get() & 0xFF;
+                if (code == CUSTOM_ROLE) {
+                    roles.add(getField(buffer));
+                } else if (code < KNOWN_ROLES.length) {
+                    roles.add(KNOWN_ROLES[code]);
+                } else {
+                    return null;
+                }
+            }
+            if (userId == null || buffer.hasRemaining()) {
+                return null;
+            }
+            return UserContext.builder()
+                    .userId(userId)
+                    .profileId(profileId)
+                    .email(email)
+                    .deviceId(deviceId)
+                    .roles(roles)
+                    .correlationId(correlationId)
+                    .build();
+        } catch (RuntimeException e) {
+            // BufferUnderflowException and friends: authentic but unparseable (version skew)
+            return null;
+        }
+    }
+
+    private static ByteBuffer putField(ByteBuffer buffer, String value) {
+        if (value == null || value.isEmpty()) {
+            buffer = ensure(buffer, 1);
+            buffer.put(ABSENT);
+            return buffer;
+        }
+        UUID uuid = parseUuid(value);
+        if (uuid != null) {
+            buffer = ensure(buffer, 17);
+            buffer.put(UUID_FIELD);
+            buffer.putLong(uuid.getMostSignificantBits());
+            buffer.putLong(uuid.getLeastSignificantBits());
+            return buffer;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        if (utf8.length <= 0xFF) {
+            buffer = ensure(buffer, 2 + utf8.length);
+            buffer.put(UTF8_FIELD);
+            buffer.put((byte) utf8.length);
+            buffer.put(utf8);
+            return buffer;
+        }
+        int length = utf8.length <= MAX_FIELD_BYTES ? utf8.length : truncatedLength(utf8, MAX_FIELD_BYTES);
+        buffer = ensure(buffer, 3 + length);
+        buffer.put(LONG_UTF8_FIELD);
+        buffer.putShort((short) length);
+        buffer.put(utf8, 0, length);
+        return buffer;
+    }
+
+    private static String getField(ByteBuffer buffer) {
+        byte tag = buffer.get();
+        switch (tag) {
+            case ABSENT:
+                return null;
+            case UUID_FIELD:
+                return new UUID(buffer.getLong(), buffer.getLong()).toString();
+            case UTF8_FIELD:
+                return getUtf8(buffer, buffer.get() & 0xFF);
+            case LONG_UTF8_FIELD:
+                return getUtf8(buffer, buffer.getShort() & 0xFFFF);
+            default:
+                throw new IllegalArgumentException("Unknown field tag " + tag);
+        }
+    }
+
+    private static String getUtf8(ByteBuffer buffer, int length) {
+        byte[] utf8 = new byte[length];
+        buffer.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Longest prefix of at most max bytes that does not split a character.
+     */
+    private static int truncatedLength(byte[] utf8, int max) {
+        int length = max;
+        // Back up over continuation bytes (10xxxxxx) to a character start
+        while (length > 0 && (utf8[length] & 0xC0) == 0x80) {
+            length--;
+        }
+        return length;
+    }
+
+    /**
+     * Parse canonical lowercase UUIDs only, so decoding returns the exact input.
+     */
+    private static UUID parseUuid(String value) {
+        if (value.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(value);
+            return uuid.toString().equals(value) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static int knownRoleIndex(String role) {
+        for (int i = 0; i < KNOWN_ROLES.length; i++) {
+            if (KNOWN_ROLES[i].equals(role)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static ByteBuffer ensure(ByteBuffer buffer, int bytes) {
+        if (buffer.remaining() >= bytes) {
+            return buffer;
+        }
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+        buffer.flip();
+        larger.put(buffer);
+        return larger;
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.streamflix.common.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Servlet filter that populates UserContextHolder from the gateway's
+ * X-User-Context header.
+ *
+ * The header is verified with UserContextCodec (one HMAC, no JWT parsing).
+ * Requests with a header that fails verification are rejected with 401,
+ * since that header can only come from the gateway. Requests without the
+ * header are rejected too when the filter is required (register it that
+ * way on paths the gateway authenticates), otherwise they proceed without
+ * a context. The context is always cleared afterwards.
+ *
+ * Register it early in each servlet service, e.g. with a
+ * FilterRegistrationBean ordered before Spring Security; controllers then
+ * read the caller from UserContextHolder instead of X-User-ID /
+ * X-Profile-ID headers.
+ */
+@Slf4j
+public class UserContextFilter extends OncePerRequestFilter {
+
+    private final UserContextCodec codec;
+    private final boolean required;
+
+    public UserContextFilter(UserContextCodec codec) {
+        this(codec, false);
+    }
+
+    public UserContextFilter(UserContextCodec codec, boolean required) {
+        this.codec = codec;
+        this.required = required;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String header = request.getHeader(SecurityConstants.USER_CONTEXT_HEADER);
+        if (header == null) {
+            if (required) {
+                response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Missing user context");
+                return;
+            }
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String correlationId = request.getHeader(SecurityConstants.CORRELATION_ID_HEADER);
+        UserContext context = codec.decode(header, correlationId);
+        if (context == null) {
+            log.warn("[{}] Rejected invalid or expired user context header for {}",
+                    correlationId, request.getRequestURI());
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Invalid user context");
+            return;
+        }
+
+        UserContextHolder.setContext(context);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            UserContextHolder.clear();
+        }
+    }
+}
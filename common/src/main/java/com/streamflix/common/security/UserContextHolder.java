@@ -1,5 +1,8 @@
 package com.streamflix.common.security;
 
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
 /**
  * Thread-local holder for user context.
  *
@@ -70,6 +73,20 @@ public final class UserContextHolder {
         return context != null ? context.getProfileId() : null;
     }
 
+    /**
+     * Get the selected profile ID of the current request.
+     *
+     * @throws IllegalStateException if no context is set
+     * @throws ResponseStatusException (400) if no profile is selected
+     */
+    public static String requireProfileId() {
+        UserContext context = requireContext();
+        if (!context.hasProfileSelected()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No profile selected");
+        }
+        return context.getProfileId();
+    }
+
     /**
      * Get the correlation ID for the current request.
      */
@@ -1,6 +1,7 @@
 package com.streamflix.common.util;
 
-import java.util.UUID;
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Generates correlation IDs for distributed tracing.
@@ -8,13 +9,32 @@ import java.util.UUID;
  * Correlation IDs are used to track requests across all services,
  * enabling end-to-end debugging and log aggregation.
  *
- * Format: prefix-timestamp-uuid
- * Example: stfx-1704067200000-a1b2c3d4
+ * Format: prefix-timestamp-nodecounter (hex)
+ * Example: stfx-18cc2f4e400-3fa10000002a
+ *
+ * - timestamp: epoch millis
+ * - node: 16-bit node ID from the streamflix.node-id system property or
+ *   STREAMFLIX_NODE_ID environment variable, random per JVM otherwise
+ * - counter: low 32 bits of a per-JVM monotonic counter
+ *
+ * IDs are unique within a node without any per-call randomness, so no
+ * SecureRandom is touched on the request path. Digits are written into a
+ * per-thread reused char buffer.
  */
 public final class CorrelationIdGenerator {
 
     private static final String PREFIX = "stfx";
 
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final int TIMESTAMP_DIGITS = 11;
+    private static final int NODE_DIGITS = 4;
+    private static final int COUNTER_DIGITS = 8;
+    private static final int LENGTH = PREFIX.length() + 1 + TIMESTAMP_DIGITS + 1 + NODE_DIGITS + COUNTER_DIGITS;
+
+    private static final int NODE_ID = resolveNodeId();
+    private static final AtomicLong COUNTER = new AtomicLong();
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(CorrelationIdGenerator::newBuffer);
+
     private CorrelationIdGenerator() {
         // Prevent instantiation
     }
@@ -23,8 +43,13 @@ public final class CorrelationIdGenerator {
      * Generate a new correlation ID.
      */
     public static String generate() {
-        String uuid = UUID.randomUUID().toString().substring(0, 8);
-        return String.format("%s-%d-%s", PREFIX, System.currentTimeMillis(), uuid);
+        char[] buffer = BUFFER.get();
+        int pos = PREFIX.length() + 1;
+        pos = writeHex(buffer, pos, System.currentTimeMillis(), TIMESTAMP_DIGITS);
+        buffer[pos++] = '-';
+        pos = writeHex(buffer, pos, NODE_ID, NODE_DIGITS);
+        writeHex(buffer, pos, COUNTER.getAndIncrement(), COUNTER_DIGITS);
+        return new String(buffer, 0, LENGTH);
     }
 
     /**
@@ -45,4 +70,32 @@ public final class CorrelationIdGenerator {
     public static String getOrGenerate(String correlationId) {
         return isValid(correlationId) ? correlationId : generate();
     }
+
+    private static int writeHex(char[] buffer, int pos, long value, int digits) {
+        for (int i = digits - 1; i >= 0; i--) {
+            buffer[pos + i] = HEX[(int) (value & 0xf)];
+            value >>>= 4;
+        }
+        return pos + digits;
+    }
+
+    private static char[] newBuffer() {
+        char[] buffer = new char[LENGTH];
+        PREFIX.getChars(0, PREFIX.length(), buffer, 0);
+        buffer[PREFIX.length()] = '-';
+        return buffer;
+    }
+
+    private static int resolveNodeId() {
+        String configured = System.getProperty("streamflix.node-id", System.getenv("STREAMFLIX_NODE_ID"));
+        if (configured != null && !configured.isBlank()) {
+            try {
+                return Integer.parseInt(configured.trim()) & 0xffff;
+            } catch (NumberFormatException e) {
+                return configured.trim().hashCode() & 0xffff;
+            }
+        }
+        // One-off draw at class init, never on the request path
+        return new SecureRandom().nextInt() & 0xffff;
+    }
 }
@@ -0,0 +1,60 @@
+package com.streamflix.common.util;
+
+/**
+ * Fast, non-cryptographic 64-bit string hashing.
+ *
+ * FNV-1a over the UTF-16 code units, finished with the full murmur3 fmix64
+ * finalizer so that every output bit (and both 32-bit halves) depends on
+ * every input bit. The result depends only on the input characters, so it
+ * is stable across JVMs and nodes and can be used for shared decisions
+ * such as traffic bucketing.
+ *
+ * Not suitable where an attacker choosing inputs matters (use a keyed MAC).
+ */
+public final class HashUtils {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private HashUtils() {
+        // Prevent instantiation
+    }
+
+    /**
+     * 64-bit hash of value.
+     */
+    public static long hash64(CharSequence value) {
+        return fmix64(fnv1a(FNV_OFFSET_BASIS, value));
+    }
+
+    /**
+     * 64-bit hash of first and second joined by ':', without building the
+     * joined string.
+     */
+    public static long hash64(CharSequence first, CharSequence second) {
+        long h = fnv1a(FNV_OFFSET_BASIS, first);
+        h ^= ':';
+        h *= FNV_PRIME;
+        return fmix64(fnv1a(h, second));
+    }
+
+    private static long fnv1a(long h, CharSequence value) {
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= FNV_PRIME;
+        }
+        return h;
+    }
+
+    /**
+     * murmur3 64-bit finalizer.
+     */
+    private static long fmix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
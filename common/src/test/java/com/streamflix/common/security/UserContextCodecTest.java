@@ -0,0 +1,137 @@
+package com.streamflix.common.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UserContextCodecTest {
+
+    private static final String SECRET = "test-user-context-secret-0123456789abcdef";
+
+    private final UserContextCodec codec = new UserContextCodec(SECRET, Duration.ofSeconds(60));
+
+    @Test
+    void roundTripsAllFields() {
+        String userId = UUID.randomUUID().toString();
+        String profileId = UUID.randomUUID().toString();
+
+        String header = codec.encode(userId, profileId, "viewer@example.com", "device-1",
+                List.of(SecurityConstants.ROLE_USER, SecurityConstants.ROLE_ADMIN, "ROLE_BETA_TESTER"));
+        UserContext context = codec.decode(header, "corr-1");
+
+        assertThat(context).isNotNull();
+        assertThat(context.getUserId()).isEqualTo(userId);
+        assertThat(context.getProfileId()).isEqualTo(profileId);
+        assertThat(context.getEmail()).isEqualTo("viewer@example.com");
+        assertThat(context.getDeviceId()).isEqualTo("device-1");
+        assertThat(context.getRoles())
+                .containsExactly(SecurityConstants.ROLE_USER, SecurityConstants.ROLE_ADMIN, "ROLE_BETA_TESTER");
+        assertThat(context.getCorrelationId()).isEqualTo("corr-1");
+    }
+
+    @Test
+    void roundTripsAbsentFields() {
+        UserContext context = codec.decode(codec.encode("user-1", null, "", null, null), null);
+
+        assertThat(context).isNotNull();
+        assertThat(context.getUserId()).isEqualTo("user-1");
+        assertThat(context.getProfileId()).isNull();
+        assertThat(context.getEmail()).isNull();
+        assertThat(context.getDeviceId()).isNull();
+        assertThat(context.getRoles()).isEmpty();
+    }
+
+    @Test
+    void keepsNonCanonicalUuidsVerbatim() {
+        String upperCase = UUID.randomUUID().toString().toUpperCase();
+
+        UserContext context = codec.decode(codec.encode(upperCase, null, null, null, List.of()), null);
+
+        assertThat(context.getUserId()).isEqualTo(upperCase);
+    }
+
+    @Test
+    void roundTripsFieldsLongerThan255Bytes() {
+        String email = "a".repeat(300) + "@example.com";
+        String deviceId = "\u00e9".repeat(200);
+
+        UserContext context = codec.decode(codec.encode("user-1", null, email, deviceId, List.of()), null);
+
+        assertThat(context).isNotNull();
+        assertThat(context.getEmail()).isEqualTo(email);
+        assertThat(context.getDeviceId()).isEqualTo(deviceId);
+    }
+
+    @Test
+    void truncatesOversizedFieldsAtCharacterBoundary() {
+        // 3-byte characters after a 1-byte prefix: the 65535-byte limit falls mid-character
+        String oversized = "x" + "\u20ac".repeat(30000);
+
+        byte[] bytes = Base64.getUrlDecoder().decode(codec.encode("user-1", null, null, oversized, List.of()));
+
+        // version(1) issuedAt(4) userId(2 + 6) profileId(1) email(1), then the device id field
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 15, bytes.length - 15);
+        assertThat(buffer.get()).isEqualTo((byte) 3);
+        int length = buffer.getShort() & 0xFFFF;
+        byte[] field = new byte[length];
+        buffer.get(field);
+
+        assertThat(length).isEqualTo(1 + 3 * 21844);
+        assertThat(new String(field, StandardCharsets.UTF_8)).isEqualTo("x" + "\u20ac".repeat(21844));
+    }
+
+    @Test
+    void rejectsTamperedHeader() {
+        String header = codec.encode(UUID.randomUUID().toString(), null, "viewer@example.com", null,
+                List.of(SecurityConstants.ROLE_USER));
+        byte[] bytes = Base64.getUrlDecoder().decode(header);
+
+        for (int i = 0; i < bytes.length; i++) {
+            byte[] tampered = bytes.clone();
+            tampered[i] ^= 0x01;
+            String forged = Base64.getUrlEncoder().withoutPadding().encodeToString(tampered);
+            assertThat(codec.decode(forged, null)).as("flipped bit in byte %d", i).isNull();
+        }
+    }
+
+    @Test
+    void rejectsHeaderSignedWithAnotherSecret() {
+        UserContextCodec other = new UserContextCodec("another-user-context-secret-0123456789", Duration.ofSeconds(60));
+
+        String header = other.encode("user-1", null, null, null, List.of());
+
+        assertThat(codec.decode(header, null)).isNull();
+    }
+
+    @Test
+    void rejectsExpiredHeader() {
+        UserContextCodec expired = new UserContextCodec(SECRET, Duration.ofSeconds(-1));
+
+        String header = codec.encode("user-1", null, null, null, List.of());
+
+        assertThat(expired.decode(header, null)).isNull();
+    }
+
+    @Test
+    void rejectsMalformedHeaders() {
+        assertThat(codec.decode(null, null)).isNull();
+        assertThat(codec.decode("", null)).isNull();
+        assertThat(codec.decode("not base64!", null)).isNull();
+        assertThat(codec.decode("AAAA", null)).isNull();
+        assertThat(codec.decode("A".repeat(10_000), null)).isNull();
+    }
+
+    @Test
+    void rejectsShortSecret() {
+        assertThatThrownBy(() -> new UserContextCodec("too-short", Duration.ofSeconds(60)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
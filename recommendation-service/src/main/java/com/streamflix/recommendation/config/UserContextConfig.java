@@ -0,0 +1,38 @@
+package com.streamflix.recommendation.config;
+
+import com.streamflix.common.security.UserContextCodec;
+import com.streamflix.common.security.UserContextFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+
+/**
+ * Verifies the gateway's X-User-Context header on per-profile endpoints.
+ *
+ * UserContextFilter populates UserContextHolder, which the controllers read
+ * instead of the X-User-ID / X-Profile-ID headers. The secret must match
+ * streamflix.user-context.secret in the API Gateway.
+ */
+@Configuration
+public class UserContextConfig {
+
+    @Bean
+    public UserContextCodec userContextCodec(
+            @Value("${streamflix.user-context.secret}") String secret,
+            @Value("${streamflix.user-context.max-age:60s}") Duration maxAge) {
+        return new UserContextCodec(secret, maxAge);
+    }
+
+    @Bean
+    public FilterRegistrationBean<UserContextFilter> userContextFilter(UserContextCodec userContextCodec) {
+        FilterRegistrationBean<UserContextFilter> registration =
+                new FilterRegistrationBean<>(new UserContextFilter(userContextCodec, true));
+        registration.addUrlPatterns("/api/v1/recommendations/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+}
@@ -1,7 +1,7 @@
 package com.streamflix.recommendation.controller;
 
 import com.streamflix.common.dto.ApiResponse;
-import com.streamflix.common.security.SecurityConstants;
+import com.streamflix.common.security.UserContextHolder;
 import com.streamflix.recommendation.dto.RecommendationDto;
 import com.streamflix.recommendation.service.RecommendationService;
 import lombok.RequiredArgsConstructor;
@@ -29,21 +29,23 @@ public class RecommendationController {
 
     @GetMapping("/recommendations")
     public ResponseEntity<ApiResponse<List<RecommendationDto.RecommendedItem>>> getRecommendations(
-            @RequestHeader(SecurityConstants.PROFILE_ID_HEADER) String profileId,
             @RequestParam(defaultValue = "20") int limit) {
 
         List<RecommendationDto.RecommendedItem> recommendations =
-                recommendationService.getPersonalizedRecommendations(UUID.fromString(profileId), limit);
+                recommendationService.getPersonalizedRecommendations(currentProfileId(), limit);
         return ResponseEntity.ok(ApiResponse.success(recommendations));
     }
 
     @GetMapping("/recommendations/because-you-watched")
     public ResponseEntity<ApiResponse<List<RecommendationDto.BecauseYouWatched>>> getBecauseYouWatched(
-            @RequestHeader(SecurityConstants.PROFILE_ID_HEADER) String profileId,
             @RequestParam(defaultValue = "3") int limit) {
 
         List<RecommendationDto.BecauseYouWatched> recommendations =
-                recommendationService.getBecauseYouWatched(UUID.fromString(profileId), limit);
+                recommendationService.getBecauseYouWatched(currentProfileId(), limit);
         return ResponseEntity.ok(ApiResponse.success(recommendations));
     }
+
+    private static UUID currentProfileId() {
+        return UUID.fromString(UserContextHolder.requireProfileId());
+    }
 }